@@ -0,0 +1,69 @@
+package com.example.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files (e.g. two commits) benchmark by benchmark: primary score
+ * and normalized allocation ({@code gc.alloc.rate.norm}, present with {@code -prof gc}).
+ *
+ * <pre>
+ * make bench-diff BASE=target/jmh-1a2b3c4.json NEW=target/jmh-5d6e7f8.json
+ * </pre>
+ */
+public final class BenchmarkDiff {
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    private BenchmarkDiff() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: BenchmarkDiff <base.json> <new.json>");
+            System.exit(2);
+        }
+        Map<String, JsonNode> base = read(args[0]);
+        Map<String, JsonNode> current = read(args[1]);
+
+        System.out.printf("%-70s %14s %14s %8s %12s %12s%n",
+                "Benchmark", "Base", "New", "Change", "Base B/op", "New B/op");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode after = entry.getValue();
+            JsonNode before = base.get(entry.getKey());
+            double scoreAfter = after.path("primaryMetric").path("score").asDouble();
+            String unit = after.path("primaryMetric").path("scoreUnit").asText();
+            if (before == null) {
+                System.out.printf("%-70s %14s %14.3f %8s%n", entry.getKey(), "-", scoreAfter, "new");
+                continue;
+            }
+            double scoreBefore = before.path("primaryMetric").path("score").asDouble();
+            System.out.printf("%-70s %14.3f %14.3f %+7.1f%% %12s %12s  %s%n",
+                    entry.getKey(), scoreBefore, scoreAfter, (scoreAfter - scoreBefore) / scoreBefore * 100,
+                    allocation(before), allocation(after), unit);
+        }
+    }
+
+    // "benchmark [param=value, ...]" -> result
+    private static Map<String, JsonNode> read(String path) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(new File(path))) {
+            String name = result.path("benchmark").asText()
+                    .replaceFirst("^com\\.example\\.benchmarks\\.", "");
+            Map<String, String> params = new TreeMap<>();
+            result.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+            results.put(params.isEmpty() ? name : name + " " + params, result);
+        }
+        return results;
+    }
+
+    private static String allocation(JsonNode result) {
+        JsonNode metric = result.path("secondaryMetrics").path(ALLOCATION);
+        return metric.isMissingNode() ? "-" : String.format("%.0f", metric.path("score").asDouble());
+    }
+}
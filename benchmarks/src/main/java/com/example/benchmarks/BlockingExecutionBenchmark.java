@@ -0,0 +1,117 @@
+package com.example.benchmarks;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /api/grades/average of service-b with its blocking JPA calls on boundedElastic against
+ * virtual threads ({@code grades.blocking.mode}), both with the same Hikari pool. Every
+ * invocation fires {@code concurrency} simultaneous requests (requests/s = score * concurrency).
+ * After each iteration the latency percentiles of the single requests, the live/peak
+ * platform thread counts and the used heap are printed. {@code virtual-threads} needs Java 21;
+ * on Java 17 run it with {@code -p mode=bounded-elastic} only. Above a few thousand
+ * connections raise {@code ulimit -n}.
+ *
+ * <pre>
+ * mvn -pl benchmarks exec:exec -Dbench.args="BlockingExecutionBenchmark -p concurrency=1000,10000 -prof gc"
+ * mvn -pl benchmarks exec:exec -Dbench.args="BlockingExecutionBenchmark -p mode=virtual-threads -p maxConcurrentCalls=100000"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class BlockingExecutionBenchmark {
+    private static final String[] COURSES = {
+            "Mathematics", "Physics", "Computer Science", "Chemistry", "Biology",
+            "English", "History", "Philosophy", "Economics", "Statistics"
+    };
+
+    @Param({"bounded-elastic", "virtual-threads"})
+    public String mode;
+
+    @Param({"1000", "5000", "10000"})
+    public int concurrency;
+
+    /** Database calls in flight at once in virtual-threads mode; the Hikari pool size by default. */
+    @Param({"10"})
+    public int maxConcurrentCalls;
+
+    private GradesDatabase database;
+    private ConfigurableApplicationContext serviceB;
+    private ConnectionProvider connectionProvider;
+    private WebClient client;
+    private final Histogram latency = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    @Setup
+    public void setUp() throws Exception {
+        database = GradesDatabase.start();
+        serviceB = ServiceB.start(database, Map.of(
+                "grades.blocking.mode", mode,
+                "grades.blocking.max-concurrent-calls", String.valueOf(maxConcurrentCalls),
+                "spring.datasource.hikari.maximum-pool-size", "10"));
+
+        connectionProvider = ConnectionProvider.builder("bench")
+                .maxConnections(concurrency)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofMinutes(1))
+                .build();
+        client = WebClient.builder()
+                .baseUrl("http://localhost:" + ServiceB.port(serviceB))
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        connectionProvider.dispose();
+        serviceB.close();
+        database.close();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printIteration() {
+        System.out.printf("%n[%s] requests: p50=%.1fms p99=%.1fms max=%.1fms; threads: live=%d peak=%d; heap used=%dMB%n",
+                mode, latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(99) / 1000.0,
+                latency.getMaxValue() / 1000.0, threads.getThreadCount(), threads.getPeakThreadCount(),
+                memory.getHeapMemoryUsage().getUsed() / (1024 * 1024));
+        latency.reset();
+        threads.resetPeakThreadCount();
+    }
+
+    @Benchmark
+    public long concurrentRequests() {
+        return Flux.range(0, concurrency)
+                .flatMap(i -> Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return client.get()
+                            .uri("/api/grades/average/{courseName}", COURSES[i % COURSES.length])
+                            .retrieve()
+                            .toBodilessEntity()
+                            .doOnSuccess(response -> latency.recordValue(
+                                    Math.min(latency.getHighestTrackableValue(),
+                                            TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start))));
+                }), concurrency)
+                .count()
+                .block();
+    }
+}
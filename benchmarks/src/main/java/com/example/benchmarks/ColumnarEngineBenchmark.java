@@ -0,0 +1,119 @@
+package com.example.benchmarks;
+
+import com.example.server.dto.CourseStatisticsRow;
+import com.example.server.engine.ColumnarGradeEngine;
+import com.example.server.repository.GradeRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics of one course holding {@code grades} rows, computed three ways in the same
+ * service-b (started with the {@code columnar} profile):
+ * {@code columnar} scans the in-memory columns on the fork/join pool, {@code aggregates} is
+ * the SQL path over course_stats / student_course_stats, and {@code groupBy} aggregates the
+ * raw grades table in PostgreSQL, which is the work the engine does in memory.
+ *
+ * <pre>
+ * mvn -pl benchmarks exec:exec -Dbench.args="ColumnarEngineBenchmark -prof gc -rf json"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColumnarEngineBenchmark {
+    private static final String INSERT_STUDENTS = """
+            INSERT INTO students (name, email)
+            SELECT 'Columnar ' || i, 'columnar' || i || '@benchmark.local'
+            FROM generate_series(1, ?) i
+            """;
+
+    private static final String INSERT_GRADES = """
+            WITH s AS (SELECT array_agg(id ORDER BY id) AS ids FROM students WHERE name LIKE 'Columnar %')
+            INSERT INTO grades (student_id, course_id, grade, created_at)
+            SELECT s.ids[1 + i % array_length(s.ids, 1)], ?, CAST(random() * 100 AS integer), now()
+            FROM s, generate_series(0, ? - 1) i
+            """;
+
+    private static final String GROUP_BY_QUERY = """
+            SELECT g.student_id, (SELECT s.name FROM students s WHERE s.id = g.student_id),
+                   AVG(g.grade), COUNT(*)
+            FROM grades g
+            WHERE g.course_id = ?
+            GROUP BY g.student_id
+            ORDER BY AVG(g.grade) DESC, g.student_id
+            LIMIT ?
+            """;
+
+    private static final int TOP_N = 10;
+    // inserted in slices so the aggregate triggers' transition tables stay small
+    private static final int INSERT_SLICE = 1_000_000;
+
+    @Param({"10000000"})
+    public int grades;
+
+    @Param({"100000"})
+    public int students;
+
+    private GradesDatabase database;
+    private ConfigurableApplicationContext serviceB;
+    private ColumnarGradeEngine engine;
+    private GradeRepository gradeRepository;
+    private JdbcTemplate jdbc;
+    private String courseName;
+    private long courseId;
+
+    @Setup
+    public void setUp() throws Exception {
+        database = GradesDatabase.start();
+        courseName = "Columnar " + grades;
+
+        jdbc = new JdbcTemplate(database.getDataSource());
+        courseId = jdbc.queryForObject(
+                "INSERT INTO courses (name, description) VALUES (?, 'JMH data set') RETURNING id",
+                Long.class, courseName);
+        jdbc.update(INSERT_STUDENTS, students);
+        for (int inserted = 0; inserted < grades; inserted += INSERT_SLICE) {
+            jdbc.update(INSERT_GRADES, courseId, Math.min(INSERT_SLICE, grades - inserted));
+        }
+        jdbc.execute("VACUUM ANALYZE");
+
+        long started = System.nanoTime();
+        serviceB = ServiceB.start(database, "columnar");
+        engine = serviceB.getBean(ColumnarGradeEngine.class);
+        gradeRepository = serviceB.getBean(GradeRepository.class);
+        while (!engine.isReady()) {
+            Thread.sleep(100);
+        }
+        System.out.printf("%nservice-b started and engine loaded in %d ms%n",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        serviceB.close();
+        database.close();
+    }
+
+    @Benchmark
+    public List<CourseStatisticsRow> columnar() {
+        return engine.findCourseStatistics(Map.of(courseName, courseId), TOP_N);
+    }
+
+    @Benchmark
+    public List<CourseStatisticsRow> aggregates() {
+        return gradeRepository.findCourseStatisticsByCourseId(courseId, TOP_N);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> groupBy() {
+        return jdbc.queryForList(GROUP_BY_QUERY, courseId, TOP_N);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.benchmarks;
+
+import com.example.server.dto.StudentGradeStats;
+import com.example.server.repository.GradeRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Database round trips of one /api/grades/average request: the former five-query path
+ * (course lookup, every student's stats, AVG, COUNT, COUNT DISTINCT) against the single
+ * statement of {@link GradeRepository#findCourseStatisticsByCourseId}.
+ *
+ * <pre>
+ * mvn -pl benchmarks exec:exec -Dbench.args="CourseStatisticsQueryBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CourseStatisticsQueryBenchmark {
+    private static final String COURSE_BY_NAME =
+            "SELECT id, name, description, created_at FROM courses WHERE name = :courseName";
+    private static final String STUDENT_STATS =
+            "SELECT s.id, s.name, AVG(g.grade), COUNT(g.id) FROM grades g " +
+            "JOIN students s ON s.id = g.student_id JOIN courses c ON c.id = g.course_id " +
+            "WHERE c.name = :courseName GROUP BY s.id, s.name ORDER BY AVG(g.grade) DESC";
+    private static final String AVERAGE =
+            "SELECT AVG(g.grade) FROM grades g JOIN courses c ON c.id = g.course_id WHERE c.name = :courseName";
+    private static final String COUNT =
+            "SELECT COUNT(g.id) FROM grades g JOIN courses c ON c.id = g.course_id WHERE c.name = :courseName";
+    private static final String COUNT_DISTINCT =
+            "SELECT COUNT(DISTINCT g.student_id) FROM grades g JOIN courses c ON c.id = g.course_id " +
+            "WHERE c.name = :courseName";
+
+    @Param({"Mathematics"})
+    public String courseName;
+
+    @Param({"10"})
+    public int topN;
+
+    private GradesDatabase database;
+    private SingleConnectionDataSource connection;
+    private NamedParameterJdbcTemplate jdbc;
+    private String singleStatementSql;
+    private MapSqlParameterSource params;
+
+    @Setup
+    public void setUp() throws Exception {
+        database = GradesDatabase.start();
+        connection = new SingleConnectionDataSource(database.getDataSource().getConnection(), true);
+        jdbc = new NamedParameterJdbcTemplate(connection);
+        singleStatementSql = GradeRepository.class
+                .getMethod("findCourseStatisticsByCourseId", long.class, int.class)
+                .getAnnotation(Query.class)
+                .value();
+        params = new MapSqlParameterSource()
+                .addValue("courseName", courseName)
+                .addValue("topN", topN);
+        // service-b resolves the id from its in-memory CourseCatalog, outside the measured path
+        params.addValue("courseId", jdbc.queryForObject("SELECT id FROM courses WHERE name = :courseName",
+                params, Long.class));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        connection.destroy();
+        database.close();
+    }
+
+    @Benchmark
+    public void legacyFiveQueries(Blackhole blackhole) {
+        blackhole.consume(jdbc.queryForMap(COURSE_BY_NAME, params));
+        List<StudentGradeStats> stats = jdbc.query(STUDENT_STATS, params, (rs, rowNum) -> new StudentGradeStats(
+                rs.getLong(1), rs.getString(2), rs.getDouble(3), rs.getLong(4)));
+        blackhole.consume(jdbc.queryForObject(AVERAGE, params, Double.class));
+        blackhole.consume(jdbc.queryForObject(COUNT, params, Long.class));
+        blackhole.consume(jdbc.queryForObject(COUNT_DISTINCT, params, Long.class));
+        blackhole.consume(stats.stream().limit(topN).toList());
+    }
+
+    @Benchmark
+    public void singleStatement(Blackhole blackhole) {
+        List<StudentGradeStats> rows = jdbc.query(singleStatementSql, params, (rs, rowNum) -> new StudentGradeStats(
+                rs.getLong("studentId"), rs.getString("studentName"), rs.getDouble("averageGrade"),
+                rs.getLong("gradeCount")));
+        blackhole.consume(rows);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /api/grades/average throughput of service-b with JPA on boundedElastic ({@code jpa})
+ * against the non-blocking R2DBC path ({@code r2dbc} profile). Every invocation fires
+ * {@code concurrency} simultaneous requests, so requests/s = score * concurrency. After
+ * each iteration the thread counts of the service JVM are printed: boundedElastic threads
+ * are what the JPA mode pays per in-flight request.
+ *
+ * <pre>
+ * mvn -pl benchmarks exec:exec -Dbench.args="DataAccessModeBenchmark -p concurrency=64,512"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class DataAccessModeBenchmark {
+    private static final String[] COURSES = {
+            "Mathematics", "Physics", "Computer Science", "Chemistry", "Biology",
+            "English", "History", "Philosophy", "Economics", "Statistics"
+    };
+
+    @Param({"jpa", "r2dbc"})
+    public String mode;
+
+    @Param({"512"})
+    public int concurrency;
+
+    private GradesDatabase database;
+    private ConfigurableApplicationContext serviceB;
+    private ConnectionProvider connectionProvider;
+    private WebClient client;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    @Setup
+    public void setUp() throws Exception {
+        database = GradesDatabase.start();
+        serviceB = mode.equals("r2dbc") ? ServiceB.start(database, "r2dbc") : ServiceB.start(database);
+
+        connectionProvider = ConnectionProvider.builder("bench")
+                .maxConnections(concurrency)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        client = WebClient.builder()
+                .baseUrl("http://localhost:" + ServiceB.port(serviceB))
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        connectionProvider.dispose();
+        serviceB.close();
+        database.close();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printThreads() {
+        int boundedElastic = 0;
+        int r2dbc = 0;
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info == null) {
+                continue;
+            }
+            if (info.getThreadName().startsWith("boundedElastic-")) {
+                boundedElastic++;
+            } else if (info.getThreadName().startsWith("reactor-tcp-")) {
+                r2dbc++;
+            }
+        }
+        System.out.printf("%n[%s] threads: live=%d peak=%d boundedElastic=%d r2dbc-event-loop=%d%n",
+                mode, threads.getThreadCount(), threads.getPeakThreadCount(), boundedElastic, r2dbc);
+        threads.resetPeakThreadCount();
+    }
+
+    @Benchmark
+    public long concurrentRequests() {
+        return Flux.range(0, concurrency)
+                .flatMap(i -> client.get()
+                        .uri("/api/grades/average/{courseName}", COURSES[i % COURSES.length])
+                        .retrieve()
+                        .toBodilessEntity(), concurrency)
+                .count()
+                .block();
+    }
+}
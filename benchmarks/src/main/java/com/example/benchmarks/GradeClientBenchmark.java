@@ -0,0 +1,97 @@
+package com.example.benchmarks;
+
+import com.example.api.dto.AverageGradeResponse;
+import com.example.client.config.WebClientConfig;
+import com.example.client.service.CircuitBreaker;
+import com.example.client.service.GradeClientService;
+import com.example.client.service.RetryBudget;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * service-a's call path, {@link GradeClientService} -> {@link WebClientConfig}'s WebClient
+ * (filters, timeouts, retry, JSON decoding), against a local Reactor Netty server that answers
+ * with a canned service-b response. Built in a plain Spring context rather than Spring Boot
+ * so service-a's and service-b's application.yml do not clash on the benchmark classpath.
+ *
+ * <pre>
+ * mvn -pl benchmarks exec:exec -Dbench.args="GradeClientBenchmark -prof gc -rf json"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GradeClientBenchmark {
+
+    @Param({"10", "100"})
+    public int topStudents;
+
+    private DisposableServer mockServiceB;
+    private AnnotationConfigApplicationContext context;
+    private GradeClientService gradeClientService;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        byte[] body = objectMapper.writeValueAsBytes(SampleResponses.averageGrade("Mathematics", topStudents));
+        mockServiceB = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.get("/api/grades/average/{courseName}", (request, response) -> response
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .sendByteArray(Mono.just(body))))
+                .bindNow();
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("service-b.base-url", "http://localhost:" + mockServiceB.port());
+        properties.put("service-b.timeout.connection", 5000);
+        properties.put("service-b.timeout.response", 30000);
+        properties.put("service-b.retry.max-attempts", 3);
+        properties.put("service-b.retry.backoff.initial", 1000);
+        properties.put("service-b.retry.backoff.max", 5000);
+        properties.put("service-b.retry.backoff.multiplier", 2);
+        // measure the HTTP path, not cache hits
+        properties.put("service-b.cache.enabled", false);
+        properties.put("service-b.cache.ttl", 0);
+        properties.put("service-b.cache.stale-while-revalidate", 0);
+        properties.put("service-b.cache.stale-if-error", 0);
+        properties.put("service-b.cache.stale-if-error-timeout", 0);
+
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        context.registerBean(WebClient.Builder.class, WebClient::builder);
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.register(WebClientConfig.class, CircuitBreaker.class, RetryBudget.class, GradeClientService.class);
+        context.refresh();
+        gradeClientService = context.getBean(GradeClientService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        mockServiceB.disposeNow();
+    }
+
+    @Benchmark
+    public AverageGradeResponse getAverageGrade() {
+        return gradeClientService.getAverageGrade("Mathematics").block();
+    }
+}
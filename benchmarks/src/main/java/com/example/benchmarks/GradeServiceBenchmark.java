@@ -0,0 +1,76 @@
+package com.example.benchmarks;
+
+import com.example.api.dto.AverageGradeResponse;
+import com.example.api.dto.BatchAverageGradeResponse;
+import com.example.server.service.GradeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GradeService} through its Spring proxy (transaction, Hibernate, Hikari) for a course
+ * holding {@code grades} rows, on top of the seeded courses. The statistics come from the
+ * course_stats aggregates, so the time should not grow with the course size.
+ *
+ * <pre>
+ * mvn -pl benchmarks exec:exec -Dbench.args="GradeServiceBenchmark -prof gc -rf json"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GradeServiceBenchmark {
+    private static final String INSERT_GRADES = """
+            WITH s AS (SELECT array_agg(id ORDER BY id) AS ids FROM students)
+            INSERT INTO grades (student_id, course_id, grade, created_at)
+            SELECT s.ids[1 + i % array_length(s.ids, 1)], ?, CAST(random() * 100 AS integer), now()
+            FROM s, generate_series(0, ? - 1) i
+            """;
+
+    @Param({"1000", "100000", "1000000"})
+    public int grades;
+
+    private GradesDatabase database;
+    private ConfigurableApplicationContext serviceB;
+    private GradeService gradeService;
+    private String courseName;
+    private long courseId;
+
+    @Setup
+    public void setUp() throws Exception {
+        database = GradesDatabase.start();
+        courseName = "Benchmark " + grades;
+
+        JdbcTemplate jdbc = new JdbcTemplate(database.getDataSource());
+        courseId = jdbc.queryForObject(
+                "INSERT INTO courses (name, description) VALUES (?, 'JMH data set') RETURNING id",
+                Long.class, courseName);
+        jdbc.update(INSERT_GRADES, courseId, grades);
+        jdbc.execute("ANALYZE");
+
+        serviceB = ServiceB.start(database);
+        gradeService = serviceB.getBean(GradeService.class);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        serviceB.close();
+        database.close();
+    }
+
+    @Benchmark
+    public AverageGradeResponse singleCourse() {
+        return gradeService.calculateAverageGradeByCourse(courseId, courseName).orElseThrow();
+    }
+
+    @Benchmark
+    public BatchAverageGradeResponse allCourses() {
+        return gradeService.calculateAverageGrades(List.of());
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.benchmarks;
+
+import com.example.datagen.DatasetGenerator;
+import com.example.datagen.DatasetOptions;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.postgresql.ds.PGSimpleDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PostgreSQL instance for the benchmarks, migrated with service-b's Flyway scripts and, when
+ * empty, filled by the datagen tool: 1000 students x 10 courses, ~100k grades unless
+ * {@code -jvmArgsAppend -Dbench.dataset=--students=100000,--skew=1.1} scales it.
+ * Uses an embedded server unless {@code -Dbench.jdbc.url=...} points at an existing one
+ * (e.g. the docker-compose database on localhost:5433).
+ */
+public final class GradesDatabase implements AutoCloseable {
+    private final EmbeddedPostgres embeddedPostgres;
+    private final DataSource dataSource;
+    private final String jdbcUrl;
+    private final String user;
+    private final String password;
+
+    private GradesDatabase(EmbeddedPostgres embeddedPostgres, DataSource dataSource,
+                           String jdbcUrl, String user, String password) {
+        this.embeddedPostgres = embeddedPostgres;
+        this.dataSource = dataSource;
+        this.jdbcUrl = jdbcUrl;
+        this.user = user;
+        this.password = password;
+    }
+
+    public static GradesDatabase start() throws IOException, SQLException, InterruptedException {
+        String url = System.getProperty("bench.jdbc.url");
+        GradesDatabase database;
+        if (url != null) {
+            String user = System.getProperty("bench.jdbc.user", "postgres");
+            String password = System.getProperty("bench.jdbc.password", "postgres");
+            PGSimpleDataSource external = new PGSimpleDataSource();
+            external.setUrl(url);
+            external.setUser(user);
+            external.setPassword(password);
+            database = new GradesDatabase(null, external, url, user, password);
+        } else {
+            EmbeddedPostgres embedded = EmbeddedPostgres.builder().start();
+            database = new GradesDatabase(embedded, embedded.getPostgresDatabase(),
+                    "jdbc:postgresql://localhost:" + embedded.getPort() + "/postgres", "postgres", "postgres");
+        }
+
+        Flyway.configure()
+                .dataSource(database.dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .load()
+                .migrate();
+        List<String> dataset = new ArrayList<>(List.of(System.getProperty("bench.dataset", "").trim().split("[\\s,]+")));
+        dataset.removeIf(String::isEmpty);
+        dataset.add("--if-empty");
+        DatasetGenerator.generate(database.dataSource, DatasetOptions.parse(dataset.toArray(String[]::new)));
+        // planner statistics, as autovacuum would have collected them on a long-running database
+        try (Connection connection = database.dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+        }
+        return database;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public String getJdbcUrl() {
+        return jdbcUrl;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (embeddedPostgres != null) {
+            embeddedPostgres.close();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.benchmarks;
+
+import com.example.api.dto.LeaderboardPage;
+import com.example.server.service.LeaderboardService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One leaderboard page of a course with {@code students} ranked students, at increasing depth.
+ * {@code keyset} is {@link LeaderboardService} (seek after the previous page's last row);
+ * {@code offset} is the same ranking with LIMIT/OFFSET, which reads and discards every row
+ * before the page. Keyset time should stay flat as {@code page} grows, OFFSET grows linearly.
+ *
+ * <pre>
+ * mvn -pl benchmarks exec:exec -Dbench.args="LeaderboardBenchmark -prof gc -rf json"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LeaderboardBenchmark {
+    private static final int PAGE_SIZE = 50;
+    private static final int GRADES_PER_STUDENT = 5;
+
+    private static final String INSERT_STUDENTS = """
+            INSERT INTO students (name, email)
+            SELECT 'Leaderboard ' || i, 'leaderboard' || i || '@benchmark.local'
+            FROM generate_series(1, ?) i
+            """;
+
+    private static final String INSERT_GRADES = """
+            INSERT INTO grades (student_id, course_id, grade, created_at)
+            SELECT s.id, ?, CAST(random() * 100 AS integer), now()
+            FROM students s, generate_series(1, ?) g
+            WHERE s.name LIKE 'Leaderboard %'
+            """;
+
+    private static final String OFFSET_PAGE_QUERY = """
+            SELECT scs.student_id, (SELECT s.name FROM students s WHERE s.id = scs.student_id),
+                   scs.grade_sum, scs.grade_count
+            FROM student_course_stats scs
+            WHERE scs.course_id = ?
+            ORDER BY CAST(scs.grade_sum AS float8) / scs.grade_count DESC, scs.student_id
+            LIMIT ? OFFSET ?
+            """;
+
+    @Param({"100000"})
+    public int students;
+
+    @Param({"1", "100", "1000"})
+    public int page;
+
+    private GradesDatabase database;
+    private ConfigurableApplicationContext serviceB;
+    private LeaderboardService leaderboardService;
+    private JdbcTemplate jdbc;
+    private String courseName;
+    private long courseId;
+    private String cursor;
+
+    @Setup
+    public void setUp() throws Exception {
+        database = GradesDatabase.start();
+        courseName = "Leaderboard " + students;
+
+        jdbc = new JdbcTemplate(database.getDataSource());
+        courseId = jdbc.queryForObject(
+                "INSERT INTO courses (name, description) VALUES (?, 'JMH data set') RETURNING id",
+                Long.class, courseName);
+        jdbc.update(INSERT_STUDENTS, students);
+        jdbc.update(INSERT_GRADES, courseId, GRADES_PER_STUDENT);
+        // sets the visibility map, so pages are index-only scans as in a vacuumed database
+        jdbc.execute("VACUUM ANALYZE");
+
+        serviceB = ServiceB.start(database);
+        leaderboardService = serviceB.getBean(LeaderboardService.class);
+
+        // cursor of the page before the measured one, obtained the way a client pages through
+        for (int i = 1; i < page; i++) {
+            cursor = leaderboardService.getPage(courseName, cursor, PAGE_SIZE).block().getNextCursor();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        serviceB.close();
+        database.close();
+    }
+
+    @Benchmark
+    public LeaderboardPage keyset() {
+        return leaderboardService.getPage(courseName, cursor, PAGE_SIZE).block();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> offset() {
+        return jdbc.queryForList(OFFSET_PAGE_QUERY, courseId, PAGE_SIZE, (page - 1) * PAGE_SIZE);
+    }
+}
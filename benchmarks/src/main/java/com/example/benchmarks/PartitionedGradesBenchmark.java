@@ -0,0 +1,165 @@
+package com.example.benchmarks;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The grades queries of service-b against the hash-partitioned grades table
+ * (V8__partition_grades.sql, {@code layout=partitioned}) and against a copy of it in the
+ * single-table layout of V1 ({@code layout=unpartitioned}: primary key on id, indexes on
+ * student_id and course_id). Per-course queries filter on course_id, so on the partitioned
+ * table they read one partition; the all-courses histogram is one statement over the table,
+ * or one statement per partition on {@code parallelism} connections
+ * ({@code grades.partitions.parallelism}).
+ * <p>
+ * The default data set is small; the comparison is meant for tens of millions of rows, and
+ * since every fork generates its own embedded database, a large one is better generated once
+ * into an existing database:
+ *
+ * <pre>
+ * make seed SEED="--students=500000 --courses=100 --grades-per-pair=10 --skew=1.1 --reset"
+ * mvn -pl benchmarks exec:exec -Dbench.args="PartitionedGradesBenchmark -rf json \
+ *     -jvmArgsAppend -Dbench.jdbc.url=jdbc:postgresql://localhost:5433/grades_db"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class PartitionedGradesBenchmark {
+    private static final String UNPARTITIONED_TABLE = "grades_unpartitioned";
+    private static final String CREATE_UNPARTITIONED = """
+            CREATE TABLE grades_unpartitioned (
+                id BIGINT PRIMARY KEY,
+                student_id BIGINT NOT NULL,
+                course_id BIGINT NOT NULL,
+                grade INTEGER NOT NULL,
+                created_at TIMESTAMP
+            )
+            """;
+    private static final String PARTITIONS_QUERY = """
+            SELECT i.inhrelid::regclass::text FROM pg_inherits i
+            WHERE i.inhparent = 'grades'::regclass ORDER BY 1
+            """;
+
+    // GradeRepository.GRADE_HISTOGRAM_QUERY / GradePartitions
+    private static final String COURSE_HISTOGRAM = "SELECT grade, COUNT(*) FROM %s WHERE course_id = ? GROUP BY grade";
+    private static final String ALL_COURSES_HISTOGRAM = "SELECT course_id, grade, COUNT(*) FROM %s GROUP BY course_id, grade";
+    // GradeColumnReader: the columnar engine catching up on a course's latest grades
+    private static final String COURSE_GRADES_AFTER = "SELECT id, course_id, student_id, grade FROM %s WHERE id > ? AND course_id = ?";
+    private static final String COURSE_AVERAGE = "SELECT AVG(grade), COUNT(*) FROM %s WHERE course_id = ?";
+    private static final int CATCH_UP_ROWS = 1000;
+
+    @Param({"partitioned", "unpartitioned"})
+    public String layout;
+
+    @Param({"4"})
+    public int parallelism;
+
+    private GradesDatabase database;
+    private HikariDataSource pool;
+    private JdbcTemplate jdbc;
+    private ExecutorService partitionReaders;
+    private String table;
+    private List<String> partitions;
+    private long courseId;
+    private long catchUpAfterId;
+
+    @Setup
+    public void setUp() throws Exception {
+        database = GradesDatabase.start();
+        pool = new HikariDataSource();
+        pool.setJdbcUrl(database.getJdbcUrl());
+        pool.setUsername(database.getUser());
+        pool.setPassword(database.getPassword());
+        pool.setMaximumPoolSize(parallelism + 1);
+        jdbc = new JdbcTemplate(pool);
+        partitionReaders = Executors.newFixedThreadPool(parallelism);
+
+        if ("partitioned".equals(layout)) {
+            table = "grades";
+            partitions = jdbc.queryForList(PARTITIONS_QUERY, String.class);
+        } else {
+            table = UNPARTITIONED_TABLE;
+            partitions = List.of(UNPARTITIONED_TABLE);
+            createUnpartitionedCopy();
+        }
+        // sets the visibility map, so both layouts get index-only scans as in a vacuumed database
+        jdbc.execute("VACUUM ANALYZE " + table);
+
+        // the course with the most grades
+        courseId = jdbc.queryForObject("SELECT course_id FROM course_stats ORDER BY grade_count DESC LIMIT 1", Long.class);
+        catchUpAfterId = jdbc.queryForObject("SELECT COALESCE(MIN(id), 0) FROM (SELECT id FROM grades "
+                + "WHERE course_id = ? ORDER BY id DESC LIMIT ?) latest", Long.class, courseId, CATCH_UP_ROWS) - 1;
+        long grades = jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        long courseGrades = jdbc.queryForObject(String.format(COURSE_AVERAGE, table), (rs, rowNum) -> rs.getLong(2), courseId);
+        System.out.printf("%n%s: %,d grades in %d table(s), course %d has %,d%n",
+                table, grades, partitions.size(), courseId, courseGrades);
+    }
+
+    // kept between runs against an external database, like the generated data
+    private void createUnpartitionedCopy() {
+        Boolean exists = jdbc.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, UNPARTITIONED_TABLE);
+        if (Boolean.TRUE.equals(exists)) {
+            return;
+        }
+        long started = System.nanoTime();
+        jdbc.execute(CREATE_UNPARTITIONED);
+        jdbc.execute("INSERT INTO grades_unpartitioned SELECT id, student_id, course_id, grade, created_at FROM grades");
+        jdbc.execute("CREATE INDEX ON grades_unpartitioned (student_id)");
+        jdbc.execute("CREATE INDEX ON grades_unpartitioned (course_id)");
+        System.out.printf("%nCopied grades into %s in %d s%n", UNPARTITIONED_TABLE,
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        partitionReaders.shutdownNow();
+        pool.close();
+        database.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> courseAverage() {
+        return jdbc.queryForMap(String.format(COURSE_AVERAGE, table), courseId);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> courseHistogram() {
+        return jdbc.queryForList(String.format(COURSE_HISTOGRAM, table), courseId);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> courseCatchUp() {
+        return jdbc.queryForList(String.format(COURSE_GRADES_AFTER, table), catchUpAfterId, courseId);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> allCoursesHistogram() {
+        return jdbc.queryForList(String.format(ALL_COURSES_HISTOGRAM, table));
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> allCoursesHistogramPerPartition() throws Exception {
+        List<Future<List<Map<String, Object>>>> reads = new ArrayList<>(partitions.size());
+        for (String partition : partitions) {
+            reads.add(partitionReaders.submit(() -> jdbc.queryForList(String.format(ALL_COURSES_HISTOGRAM, partition))));
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Future<List<Map<String, Object>>> read : reads) {
+            rows.addAll(read.get());
+        }
+        return rows;
+    }
+}
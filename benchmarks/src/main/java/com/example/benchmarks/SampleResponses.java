@@ -0,0 +1,83 @@
+package com.example.benchmarks;
+
+import com.example.api.dto.AverageGradeResponse;
+import com.example.api.dto.BatchAverageGradeResponse;
+import com.example.api.dto.BatchGradeDistributionResponse;
+import com.example.api.dto.GradeDistributionResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic response payloads shaped like the ones service-b returns for the seed data.
+ */
+final class SampleResponses {
+
+    private SampleResponses() {
+    }
+
+    static AverageGradeResponse averageGrade(String courseName, int topStudents) {
+        List<AverageGradeResponse.StudentGradeInfo> students = new ArrayList<>(topStudents);
+        for (int i = 0; i < topStudents; i++) {
+            students.add(AverageGradeResponse.StudentGradeInfo.builder()
+                    .studentId(100L + i)
+                    .studentName("Student " + (100 + i))
+                    .averageGrade(75.0 - i * 0.137)
+                    .gradeCount(8 + i % 5)
+                    .build());
+        }
+        return AverageGradeResponse.builder()
+                .courseName(courseName)
+                .averageGrade(50.062015988008994)
+                .totalStudents(1000)
+                .totalGrades(80060)
+                .topStudents(students)
+                .processingTimeMs(3L)
+                .build();
+    }
+
+    static BatchAverageGradeResponse averageGrades(int courses, int topStudents) {
+        List<AverageGradeResponse> responses = new ArrayList<>(courses);
+        for (int i = 0; i < courses; i++) {
+            responses.add(averageGrade("Course " + i, topStudents));
+        }
+        return BatchAverageGradeResponse.builder()
+                .courses(responses)
+                .missingCourses(List.of())
+                .processingTimeMs(5L)
+                .build();
+    }
+
+    static BatchGradeDistributionResponse gradeDistributions(int courses) {
+        List<GradeDistributionResponse> responses = new ArrayList<>(courses);
+        for (int i = 0; i < courses; i++) {
+            responses.add(gradeDistribution("Course " + i, i));
+        }
+        return BatchGradeDistributionResponse.builder()
+                .courses(responses)
+                .combined(gradeDistribution(null, courses))
+                .missingCourses(List.of())
+                .processingTimeMs(4L)
+                .build();
+    }
+
+    private static GradeDistributionResponse gradeDistribution(String courseName, int seed) {
+        List<Long> distribution = new ArrayList<>(101);
+        for (int grade = 0; grade <= 100; grade++) {
+            distribution.add(700L + (grade * 31L + seed * 17L) % 200);
+        }
+        return GradeDistributionResponse.builder()
+                .courseName(courseName)
+                .totalGrades(80060L)
+                .averageGrade(50.062015988008994)
+                .standardDeviation(28.86374281936021)
+                .p10(10.0)
+                .median(50.0)
+                .p90(90.0)
+                .passThreshold(60)
+                .passRate(0.40371 + seed * 0.001)
+                .distribution(distribution)
+                .processingTimeMs(4L)
+                .build();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.benchmarks;
+
+import com.example.server.ServiceBApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Starts service-b in the benchmark JVM against a {@link GradesDatabase}, on a random port,
+ * with SQL/request logging turned off so it does not dominate the measurements.
+ */
+public final class ServiceB {
+
+    private ServiceB() {
+    }
+
+    public static ConfigurableApplicationContext start(GradesDatabase database, String... profiles) {
+        return start(database, Map.of(), profiles);
+    }
+
+    /** {@code properties} override the defaults below, e.g. to turn service-b's cache back on. */
+    public static ConfigurableApplicationContext start(GradesDatabase database, Map<String, String> properties,
+                                                       String... profiles) {
+        Map<String, String> arguments = new LinkedHashMap<>();
+        arguments.put("server.port", "0");
+        arguments.put("spring.datasource.url", database.getJdbcUrl());
+        arguments.put("spring.datasource.username", database.getUser());
+        arguments.put("spring.datasource.password", database.getPassword());
+        arguments.put("spring.r2dbc.url", database.getJdbcUrl().replaceFirst("^jdbc:", "r2dbc:"));
+        arguments.put("spring.r2dbc.username", database.getUser());
+        arguments.put("spring.r2dbc.password", database.getPassword());
+        // every request must reach the database
+        arguments.put("grades.cache.enabled", "false");
+        // benchmarks drive more concurrency than the limiter admits; measure the service, not the shedding
+        arguments.put("grades.limiter.enabled", "false");
+        arguments.put("spring.jpa.show-sql", "false");
+        arguments.put("logging.level.root", "WARN");
+        arguments.put("logging.level.com.example.server", "WARN");
+        arguments.put("logging.level.org.hibernate.SQL", "WARN");
+        arguments.put("logging.level.org.hibernate.type.descriptor.sql.BasicBinder", "WARN");
+        arguments.putAll(properties);
+        return new SpringApplicationBuilder(ServiceBApplication.class)
+                .profiles(profiles)
+                // command-line arguments take precedence over service-b's application.yml
+                .run(arguments.entrySet().stream()
+                        .map(argument -> "--" + argument.getKey() + "=" + argument.getValue())
+                        .toArray(String[]::new));
+    }
+
+    public static int port(ConfigurableApplicationContext context) {
+        return Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+    }
+}
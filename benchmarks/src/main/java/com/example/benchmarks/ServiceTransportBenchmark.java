@@ -0,0 +1,144 @@
+package com.example.benchmarks;
+
+import com.example.api.dto.AverageGradeResponse;
+import com.example.api.dto.BatchGradeDistributionResponse;
+import com.example.client.config.WebClientConfig;
+import com.example.client.service.CircuitBreaker;
+import com.example.client.service.GradeClientService;
+import com.example.client.service.RetryBudget;
+import com.example.server.engine.ColumnarGradeEngine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The service-a -> service-b hop over HTTP/1.1 and h2c, with and without gzip, through
+ * service-a's {@link WebClientConfig} pool. service-b serves both protocols and compresses
+ * JSON above 2KB; its cache and the {@code columnar} engine keep the database out of the
+ * numbers. {@code average} is a ~1KB response, {@code distributions} the ~8KB distribution
+ * of all courses. The {@code *Throughput} benchmarks fire {@code concurrency} requests at
+ * once through a pool of {@code maxConnections} (requests/s = score * concurrency), the
+ * {@code *Latency} ones measure a single request on an idle pool.
+ *
+ * <pre>
+ * mvn -pl benchmarks exec:exec -Dbench.args="ServiceTransportBenchmark -p maxConnections=8,64"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ServiceTransportBenchmark {
+    private static final String[] COURSES = {
+            "Mathematics", "Physics", "Computer Science", "Chemistry", "Biology",
+            "English", "History", "Philosophy", "Economics", "Statistics"
+    };
+
+    @Param({"http1", "h2c"})
+    public String protocol;
+
+    @Param({"false", "true"})
+    public boolean compression;
+
+    @Param({"16"})
+    public int maxConnections;
+
+    @Param({"256"})
+    public int concurrency;
+
+    private GradesDatabase database;
+    private ConfigurableApplicationContext serviceB;
+    private AnnotationConfigApplicationContext serviceA;
+    private GradeClientService gradeClientService;
+
+    @Setup
+    public void setUp() throws Exception {
+        database = GradesDatabase.start();
+        serviceB = ServiceB.start(database, Map.of(
+                "grades.cache.enabled", "true",
+                "server.http2.enabled", "true",
+                "server.compression.enabled", "true"), "columnar");
+        ColumnarGradeEngine engine = serviceB.getBean(ColumnarGradeEngine.class);
+        while (!engine.isReady()) {
+            Thread.sleep(100);
+        }
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("service-b.base-url", "http://localhost:" + ServiceB.port(serviceB));
+        properties.put("service-b.timeout.connection", 5000);
+        properties.put("service-b.timeout.response", 30000);
+        properties.put("service-b.pool.max-connections", maxConnections);
+        properties.put("service-b.pool.pending-acquire-max-count", -1);
+        properties.put("service-b.pool.leasing-strategy", "lifo");
+        properties.put("service-b.http2.enabled", protocol.equals("h2c"));
+        properties.put("service-b.compression", compression);
+        properties.put("service-b.retry.max-attempts", 3);
+        properties.put("service-b.retry.backoff.initial", 1000);
+        properties.put("service-b.retry.backoff.max", 5000);
+        properties.put("service-b.retry.backoff.multiplier", 2);
+        properties.put("service-b.cache.enabled", false);
+        properties.put("service-b.cache.ttl", 0);
+        properties.put("service-b.cache.stale-while-revalidate", 0);
+        properties.put("service-b.cache.stale-if-error", 0);
+        properties.put("service-b.cache.stale-if-error-timeout", 0);
+
+        serviceA = new AnnotationConfigApplicationContext();
+        serviceA.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        serviceA.registerBean(WebClient.Builder.class, WebClient::builder);
+        serviceA.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        serviceA.register(WebClientConfig.class, CircuitBreaker.class, RetryBudget.class, GradeClientService.class);
+        serviceA.refresh();
+        gradeClientService = serviceA.getBean(GradeClientService.class);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        serviceA.close();
+        serviceB.close();
+        database.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public List<AverageGradeResponse> averageThroughput() {
+        return Flux.range(0, concurrency)
+                .flatMap(i -> gradeClientService.getAverageGrade(COURSES[i % COURSES.length]), concurrency)
+                .collectList()
+                .block();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public List<BatchGradeDistributionResponse> distributionsThroughput() {
+        return Flux.range(0, concurrency)
+                .flatMap(i -> gradeClientService.getDistributions(List.of()), concurrency)
+                .collectList()
+                .block();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public AverageGradeResponse averageLatency() {
+        return gradeClientService.getAverageGrade("Mathematics").block();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public BatchGradeDistributionResponse distributionsLatency() {
+        return gradeClientService.getDistributions(List.of()).block();
+    }
+}
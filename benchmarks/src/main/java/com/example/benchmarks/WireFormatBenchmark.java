@@ -0,0 +1,73 @@
+package com.example.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of service-b responses as JSON and as Smile, with the ObjectMapper
+ * configuration Spring Boot uses for the WebFlux codecs (each service's SmileCodecConfig builds
+ * the Smile one the same way). Payloads: {@code top100} / {@code top1000} are one course's
+ * average with that many top students, {@code courses10} the batch average of 10 courses with
+ * 100 students each, {@code distributions10} the distributions of 10 courses. The encoded size
+ * of each is printed at setup; run with {@code -prof gc} for bytes allocated per operation.
+ *
+ * <pre>
+ * mvn -pl benchmarks exec:exec -Dbench.args="WireFormatBenchmark -prof gc -rf json"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"json", "smile"})
+    public String format;
+
+    @Param({"top100", "top1000", "courses10", "distributions10"})
+    public String payload;
+
+    private Object response;
+    private byte[] encoded;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+
+    @Setup
+    public void setUp() throws Exception {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (format.equals("smile")) {
+            builder.factory(new SmileFactory());
+        }
+        ObjectMapper objectMapper = builder.build();
+
+        response = switch (payload) {
+            case "top100" -> SampleResponses.averageGrade("Mathematics", 100);
+            case "top1000" -> SampleResponses.averageGrade("Mathematics", 1000);
+            case "courses10" -> SampleResponses.averageGrades(10, 100);
+            case "distributions10" -> SampleResponses.gradeDistributions(10);
+            default -> throw new IllegalArgumentException("Unknown payload " + payload);
+        };
+        writer = objectMapper.writerFor(response.getClass());
+        reader = objectMapper.readerFor(response.getClass());
+        encoded = writer.writeValueAsBytes(response);
+        System.out.printf("%n%s %s: %d bytes%n", format, payload, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return writer.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public Object deserialize() throws Exception {
+        return reader.readValue(encoded);
+    }
+}
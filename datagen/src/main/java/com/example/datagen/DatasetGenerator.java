@@ -0,0 +1,292 @@
+package com.example.datagen;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.ds.PGSimpleDataSource;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fills a database migrated by service-b's Flyway scripts with a synthetic data set (see
+ * {@link DatasetModel}). Students are split into ranges written in parallel, one connection
+ * and transaction per range, with COPY for the range's students and then its grades, streamed
+ * as they are generated. The aggregate, rollup and notification triggers on grades are
+ * disabled for the load and the aggregates and daily rollups rebuilt in one pass at the end, which is much cheaper than
+ * maintaining them per COPY; run it against a database nothing else writes to.
+ *
+ * <pre>
+ * make seed SEED="--students=1000000 --grades-per-pair=10 --skew=1.1 --reset"
+ * </pre>
+ */
+public final class DatasetGenerator {
+    private static final int COPY_CHUNK_SIZE = 64 * 1024;
+    private static final int MAX_STUDENTS_PER_RANGE = 10_000;
+    private static final String COPY_STUDENTS = "COPY students (id, name, email) FROM STDIN WITH (FORMAT csv)";
+    private static final String COPY_GRADES =
+            "COPY grades (id, student_id, course_id, grade, created_at) FROM STDIN WITH (FORMAT csv)";
+
+    private DatasetGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (List.of(args).contains("--help")) {
+            System.err.print(DatasetOptions.USAGE);
+            System.exit(0);
+        }
+        DatasetOptions options;
+        try {
+            options = DatasetOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(DatasetOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        PGSimpleDataSource dataSource = new PGSimpleDataSource();
+        dataSource.setUrl(options.url);
+        dataSource.setUser(options.user);
+        dataSource.setPassword(options.password);
+        Optional<DatasetReport> report = generate(dataSource, options);
+        if (report.isEmpty()) {
+            System.out.println("The database already holds data, nothing generated");
+        }
+        report.ifPresent(DatasetReport::print);
+    }
+
+    /**
+     * Empty (and nothing written) when {@code --if-empty} is set and the database already holds
+     * data; fails with {@link IllegalStateException} on existing data without {@code --reset}.
+     */
+    public static Optional<DatasetReport> generate(DataSource dataSource, DatasetOptions options)
+            throws SQLException, InterruptedException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            if (options.reset) {
+                statement.execute("TRUNCATE grades, student_course_stats, course_stats, grade_daily_rollups, "
+                        + "grade_rollup_deltas, students, courses");
+            } else if (hasData(statement)) {
+                if (options.ifEmpty) {
+                    return Optional.empty();
+                }
+                throw new IllegalStateException("The database already holds data; use --reset or --if-empty");
+            }
+            System.out.printf("Generating %,d students, %,d courses, ~%,d grades with %d threads%n",
+                    options.students, options.courses, options.expectedGrades(), options.threads);
+            insertCourses(connection, options);
+
+            long loadStart = System.nanoTime();
+            LoadProgress progress = new LoadProgress();
+            statement.execute("ALTER TABLE grades DISABLE TRIGGER USER");
+            try {
+                loadStudents(dataSource, options, progress);
+            } finally {
+                statement.execute("ALTER TABLE grades ENABLE TRIGGER USER");
+            }
+            // Hibernate's pooled optimizer continues after the explicit ids
+            statement.execute("SELECT setval('students_id_seq', " + options.students + ")");
+            statement.execute("SELECT setval('courses_id_seq', " + options.courses + ")");
+            double loadSeconds = secondsSince(loadStart);
+
+            long aggregateStart = System.nanoTime();
+            rebuildAggregates(connection);
+            double aggregateSeconds = secondsSince(aggregateStart);
+
+            long analyzeStart = System.nanoTime();
+            statement.execute("ANALYZE students, courses, grades, student_course_stats, course_stats, grade_daily_rollups");
+            double analyzeSeconds = secondsSince(analyzeStart);
+
+            // running services reload the course catalog and drop cached statistics
+            statement.execute("SELECT pg_notify('courses_changed', '')");
+            statement.execute("SELECT pg_notify('grades_changed', id::text) FROM courses");
+            return Optional.of(new DatasetReport(options.students, options.courses, progress.grades.sum(),
+                    progress.bytes.sum(), options.threads, loadSeconds, aggregateSeconds, analyzeSeconds));
+        }
+    }
+
+    private static boolean hasData(Statement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("SELECT EXISTS (SELECT 1 FROM courses) "
+                + "OR EXISTS (SELECT 1 FROM students) OR EXISTS (SELECT 1 FROM grades)")) {
+            rs.next();
+            return rs.getBoolean(1);
+        }
+    }
+
+    private static void insertCourses(Connection connection, DatasetOptions options) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO courses (id, name, description) VALUES (?, ?, ?)")) {
+            for (int courseId = 1; courseId <= options.courses; courseId++) {
+                insert.setLong(1, courseId);
+                insert.setString(2, DatasetModel.courseName(courseId));
+                insert.setString(3, DatasetModel.courseDescription(courseId));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private static void loadStudents(DataSource dataSource, DatasetOptions options, LoadProgress progress)
+            throws SQLException, InterruptedException {
+        DatasetModel model = new DatasetModel(options);
+        // several ranges per thread, so threads that finish early pick up more work
+        int rangeSize = (int) Math.max(1, Math.min(MAX_STUDENTS_PER_RANGE,
+                ((long) options.students + options.threads * 8L - 1) / (options.threads * 8L)));
+        ExecutorService writers = Executors.newFixedThreadPool(options.threads);
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "datagen-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        reporter.scheduleAtFixedRate(() -> System.out.printf("  %,d grades, %,.0f grades/s%n",
+                progress.grades.sum(), progress.grades.sum() / secondsSince(start)), 5, 5, TimeUnit.SECONDS);
+
+        try (IdBlocks.Allocator ids = new IdBlocks.Allocator(dataSource.getConnection())) {
+            List<Future<?>> ranges = new ArrayList<>();
+            for (long first = 1; first <= options.students; first += rangeSize) {
+                long from = first;
+                long to = Math.min(options.students, first + rangeSize - 1);
+                ranges.add(writers.submit(() -> {
+                    writeRange(dataSource, model, new IdBlocks(ids), from, to, progress);
+                    return null;
+                }));
+            }
+            for (Future<?> range : ranges) {
+                range.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            throw new IllegalStateException("Generating the data set failed", e.getCause());
+        } finally {
+            writers.shutdownNow();
+            reporter.shutdownNow();
+        }
+    }
+
+    private static void writeRange(DataSource dataSource, DatasetModel model, IdBlocks ids,
+                                   long from, long to, LoadProgress progress) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            CopyManager copy = connection.unwrap(PGConnection.class).getCopyAPI();
+            StringBuilder chunk = new StringBuilder(COPY_CHUNK_SIZE + 1024);
+
+            CopyIn students = copy.copyIn(COPY_STUDENTS);
+            try {
+                for (long studentId = from; studentId <= to; studentId++) {
+                    chunk.append(studentId).append(',')
+                            .append(DatasetModel.studentName(studentId)).append(',')
+                            .append(DatasetModel.studentEmail(studentId)).append('\n');
+                    if (chunk.length() >= COPY_CHUNK_SIZE) {
+                        writeChunk(students, chunk, progress);
+                    }
+                }
+                writeChunk(students, chunk, progress);
+                students.endCopy();
+            } finally {
+                if (students.isActive()) {
+                    students.cancelCopy();
+                }
+            }
+
+            CopyIn grades = copy.copyIn(COPY_GRADES);
+            try {
+                for (long studentId = from; studentId <= to; studentId++) {
+                    model.appendGrades(studentId, ids, chunk);
+                    if (chunk.length() >= COPY_CHUNK_SIZE) {
+                        writeChunk(grades, chunk, progress);
+                    }
+                }
+                writeChunk(grades, chunk, progress);
+                progress.grades.add(grades.endCopy());
+            } finally {
+                if (grades.isActive()) {
+                    grades.cancelCopy();
+                }
+            }
+            connection.commit();
+        }
+    }
+
+    // same statements as service-b's POST /api/grades/stats/rebuild, and the daily rollups as
+    // V9__grade_daily_rollups.sql backfills them. One snapshot, taken after locking out service-b's
+    // GradeRollupJob and the grades triggers: every queued delta is already in the grades read
+    // here, so dropping them applies none twice
+    private static void rebuildAggregates(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+        connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LOCK TABLE grade_rollup_deltas, grade_daily_rollups IN EXCLUSIVE MODE");
+            statement.execute("DELETE FROM student_course_stats");
+            statement.execute("DELETE FROM course_stats");
+            statement.execute("DELETE FROM grade_daily_rollups");
+            statement.execute("DELETE FROM grade_rollup_deltas");
+            statement.execute("""
+                    INSERT INTO student_course_stats (course_id, student_id, grade_sum, grade_count)
+                    SELECT course_id, student_id, SUM(grade), COUNT(*)
+                    FROM grades
+                    GROUP BY course_id, student_id
+                    """);
+            statement.execute("""
+                    INSERT INTO course_stats (course_id, grade_sum, grade_count, student_count)
+                    SELECT c.id, COALESCE(SUM(scs.grade_sum), 0), COALESCE(SUM(scs.grade_count), 0), COUNT(scs.student_id)
+                    FROM courses c
+                    LEFT JOIN student_course_stats scs ON scs.course_id = c.id
+                    GROUP BY c.id
+                    """);
+            statement.execute("""
+                    INSERT INTO grade_daily_rollups (course_id, day, grade_sum, grade_count, histogram)
+                    SELECT course_id, day, SUM(grade * grade_count), SUM(grade_count),
+                           grade_histogram(array_agg(grade), array_agg(grade_count))
+                    FROM (
+                        SELECT course_id, created_at::date AS day, grade, COUNT(*) AS grade_count
+                        FROM grades
+                        WHERE created_at IS NOT NULL
+                        GROUP BY course_id, created_at::date, grade
+                    ) counts
+                    GROUP BY course_id, day
+                    """);
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+            connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        }
+    }
+
+    private static void writeChunk(CopyIn copyIn, StringBuilder chunk, LoadProgress progress) throws SQLException {
+        byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        progress.bytes.add(bytes.length);
+        chunk.setLength(0);
+    }
+
+    private static double secondsSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+
+    private static final class LoadProgress {
+        final LongAdder grades = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.datagen;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * The rows of the data set as a pure function of the options: every student draws from a
+ * random generator seeded with (seed, student id), so a student's grades do not depend on
+ * which thread writes them or in which order. Each student has an ability, each course a
+ * difficulty; a grade is ability - difficulty plus noise, clamped to 0..100.
+ */
+final class DatasetModel {
+    private static final String[][] NAMED_COURSES = {
+            {"Mathematics", "Advanced mathematics course"},
+            {"Physics", "General physics course"},
+            {"Computer Science", "Introduction to programming"},
+            {"Chemistry", "Organic chemistry basics"},
+            {"Biology", "Molecular biology"},
+            {"English", "English literature and composition"},
+            {"History", "World history"},
+            {"Philosophy", "Introduction to philosophy"},
+            {"Economics", "Microeconomics fundamentals"},
+            {"Statistics", "Statistical analysis and probability"}
+    };
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+    private final DatasetOptions options;
+    private final double[] popularity;
+    private final double[] cumulativePopularity;
+    private final double[] difficulty;
+    // "2025-08-31 " for each day before until, newest first
+    private final String[] dayPrefixes;
+
+    DatasetModel(DatasetOptions options) {
+        this.options = options;
+        popularity = new double[options.courses];
+        cumulativePopularity = new double[options.courses];
+        difficulty = new double[options.courses];
+        SplittableRandom courseRandom = new SplittableRandom(options.seed);
+        double total = 0;
+        for (int course = 0; course < options.courses; course++) {
+            popularity[course] = 1 / Math.pow(course + 1, options.skew);
+            total += popularity[course];
+            cumulativePopularity[course] = total;
+            difficulty[course] = courseRandom.nextDouble(-8, 8);
+        }
+        dayPrefixes = new String[options.days];
+        for (int day = 0; day < options.days; day++) {
+            dayPrefixes[day] = options.until.minusDays(day + 1L) + " ";
+        }
+    }
+
+    static String courseName(int courseId) {
+        return courseId <= NAMED_COURSES.length ? NAMED_COURSES[courseId - 1][0] : "Course " + courseId;
+    }
+
+    static String courseDescription(int courseId) {
+        return courseId <= NAMED_COURSES.length ? NAMED_COURSES[courseId - 1][1] : "Generated course";
+    }
+
+    static String studentName(long studentId) {
+        return "Student " + studentId;
+    }
+
+    static String studentEmail(long studentId) {
+        return "student" + studentId + "@university.edu";
+    }
+
+    /** Appends the CSV rows (id,student_id,course_id,grade,created_at) of one student's grades. */
+    void appendGrades(long studentId, IdBlocks ids, StringBuilder csv) throws SQLException {
+        SplittableRandom random = new SplittableRandom(options.seed * 0x9E3779B97F4A7C15L + studentId);
+        double ability = 60 + 12 * random.nextGaussian();
+        for (int course : chooseCourses(random)) {
+            int grades = options.gradesPerPair == 1 ? 1 : 1 + random.nextInt(2 * options.gradesPerPair - 1);
+            for (int i = 0; i < grades; i++) {
+                long grade = Math.round(ability - difficulty[course] + 15 * random.nextGaussian());
+                int second = random.nextInt(options.days * SECONDS_PER_DAY);
+                csv.append(ids.next()).append(',')
+                        .append(studentId).append(',')
+                        .append(course + 1).append(',')
+                        .append(Math.max(0, Math.min(100, grade))).append(',')
+                        .append(dayPrefixes[second / SECONDS_PER_DAY]);
+                appendTime(csv, second % SECONDS_PER_DAY);
+                csv.append('\n');
+            }
+        }
+    }
+
+    // course indexes (0-based) without repetition, weighted by popularity
+    private int[] chooseCourses(SplittableRandom random) {
+        int count = options.coursesPerStudent;
+        int[] chosen = new int[count];
+        if (count == options.courses) {
+            for (int course = 0; course < count; course++) {
+                chosen[course] = course;
+            }
+            return chosen;
+        }
+        if (count * 2 <= options.courses) {
+            // few courses out of many: draw by popularity and redraw repeats
+            boolean[] taken = new boolean[options.courses];
+            for (int i = 0; i < count; ) {
+                int course = drawCourse(random);
+                if (!taken[course]) {
+                    taken[course] = true;
+                    chosen[i++] = course;
+                }
+            }
+            return chosen;
+        }
+        // most of the courses: weighted sampling without replacement (Efraimidis-Spirakis),
+        // the largest keys u^(1/w) win
+        double[] keys = new double[options.courses];
+        Integer[] order = new Integer[options.courses];
+        for (int course = 0; course < options.courses; course++) {
+            keys[course] = Math.log(random.nextDouble()) / popularity[course];
+            order[course] = course;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(keys[b], keys[a]));
+        for (int i = 0; i < count; i++) {
+            chosen[i] = order[i];
+        }
+        return chosen;
+    }
+
+    private int drawCourse(SplittableRandom random) {
+        double point = random.nextDouble(cumulativePopularity[options.courses - 1]);
+        int index = Arrays.binarySearch(cumulativePopularity, point);
+        return index >= 0 ? Math.min(index + 1, options.courses - 1) : -index - 1;
+    }
+
+    private static void appendTime(StringBuilder csv, int secondOfDay) {
+        appendTwoDigits(csv, secondOfDay / 3600).append(':');
+        appendTwoDigits(csv, secondOfDay / 60 % 60).append(':');
+        appendTwoDigits(csv, secondOfDay % 60);
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder csv, int value) {
+        return csv.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.datagen;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Scale and target of a generated data set: {@code --name=value} pairs, see {@link #USAGE}.
+ * The same options produce the same students and grades whatever the thread count; only the
+ * grade ids, taken from grades_id_seq as the writers need them, differ between runs.
+ */
+public final class DatasetOptions {
+    static final String USAGE = """
+            usage: DatasetGenerator [--name=value ...]
+              --url=jdbc:postgresql://localhost:5433/grades_db
+              --user=postgres --password=postgres
+              --students=1000             students
+              --courses=10                courses; the first ten have the usual names, the rest are "Course <n>"
+              --courses-per-student=10    courses each student takes (at most --courses)
+              --grades-per-pair=10        mean grades per (student, course), uniform in [1, 2 * mean - 1]
+              --skew=0                    Zipf exponent of course popularity: 0 uniform, 1 the k-th course
+                                          is taken 1/k as often as the first
+              --days=365                  grades are dated over this many days before --until
+              --until=2025-09-01
+              --seed=42
+              --threads=<cores>           parallel COPY streams
+              --reset                     truncate students, courses, grades and the aggregates first
+              --if-empty                  do nothing when the database already holds data
+            The defaults give about 100k grades, the old V2__seed_data.sql scale.
+            """;
+
+    final String url;
+    final String user;
+    final String password;
+    final int students;
+    final int courses;
+    final int coursesPerStudent;
+    final int gradesPerPair;
+    final double skew;
+    final int days;
+    final LocalDate until;
+    final long seed;
+    final int threads;
+    final boolean reset;
+    final boolean ifEmpty;
+
+    private DatasetOptions(Map<String, String> values) {
+        url = values.getOrDefault("url", "jdbc:postgresql://localhost:5433/grades_db");
+        user = values.getOrDefault("user", "postgres");
+        password = values.getOrDefault("password", "postgres");
+        students = positive("students", Integer.parseInt(values.getOrDefault("students", "1000")));
+        courses = positive("courses", Integer.parseInt(values.getOrDefault("courses", "10")));
+        coursesPerStudent = Math.min(courses,
+                positive("courses-per-student", Integer.parseInt(values.getOrDefault("courses-per-student", "10"))));
+        gradesPerPair = positive("grades-per-pair", Integer.parseInt(values.getOrDefault("grades-per-pair", "10")));
+        skew = Double.parseDouble(values.getOrDefault("skew", "0"));
+        if (skew < 0) {
+            throw new IllegalArgumentException("skew must not be negative: " + skew);
+        }
+        days = positive("days", Integer.parseInt(values.getOrDefault("days", "365")));
+        until = LocalDate.parse(values.getOrDefault("until", "2025-09-01"));
+        seed = Long.parseLong(values.getOrDefault("seed", "42"));
+        threads = positive("threads", Integer.parseInt(values.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors()))));
+        reset = Boolean.parseBoolean(values.getOrDefault("reset", "false"));
+        ifEmpty = Boolean.parseBoolean(values.getOrDefault("if-empty", "false"));
+    }
+
+    /** {@code --name=value} pairs; a bare {@code --name} is {@code --name=true}. */
+    public static DatasetOptions parse(String... args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("expected --name=value: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                values.put(arg.substring(2), "true");
+            } else {
+                values.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        return new DatasetOptions(values);
+    }
+
+    /** Grades the options produce on average. */
+    public long expectedGrades() {
+        return (long) students * coursesPerStudent * gradesPerPair;
+    }
+
+    private static int positive(String name, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive: " + value);
+        }
+        return value;
+    }
+}
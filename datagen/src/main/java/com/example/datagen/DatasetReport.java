@@ -0,0 +1,25 @@
+package com.example.datagen;
+
+/** What one run wrote and how long its phases took. */
+public record DatasetReport(long students,
+                            int courses,
+                            long grades,
+                            long bytes,
+                            int threads,
+                            double loadSeconds,
+                            double aggregateSeconds,
+                            double analyzeSeconds) {
+
+    public double gradesPerSecond() {
+        return grades / loadSeconds;
+    }
+
+    void print() {
+        System.out.printf("%nstudents %,d, courses %,d, grades %,d, %d COPY streams%n", students, courses, grades, threads);
+        System.out.printf("%-12s %8.1f s  %,12.0f grades/s  %8.1f MB/s of CSV%n",
+                "load", loadSeconds, gradesPerSecond(), bytes / loadSeconds / (1024 * 1024));
+        System.out.printf("%-12s %8.1f s%n", "aggregates", aggregateSeconds);
+        System.out.printf("%-12s %8.1f s%n", "analyze", analyzeSeconds);
+        System.out.printf("%-12s %8.1f s%n", "total", loadSeconds + aggregateSeconds + analyzeSeconds);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.datagen;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Grade ids of one writer. They come from grades_id_seq by the rule of service-b's SequenceBlocks:
+ * a nextval() reserves (value - 50, value], and the start value 1 only itself. These are the
+ * blocks Hibernate's pooled optimizer and service-b's GradeBulkWriter reserve, so generated rows
+ * never collide with rows the service writes later.
+ */
+final class IdBlocks {
+    // grades_id_seq's INCREMENT BY (V4)
+    private static final int BLOCK_SIZE = 50;
+
+    private final Allocator allocator;
+    private long next;
+    private long upperBound;
+
+    IdBlocks(Allocator allocator) {
+        this.allocator = allocator;
+    }
+
+    long next() throws SQLException {
+        if (next == 0 || next > upperBound) {
+            upperBound = allocator.nextUpperBound();
+            next = Math.max(1, upperBound - BLOCK_SIZE + 1);
+        }
+        return next++;
+    }
+
+    /** Shared by all writers; fetches many blocks per round trip over its own connection. */
+    static final class Allocator implements AutoCloseable {
+        private static final int BLOCKS_PER_FETCH = 1000;
+
+        private final Connection connection;
+        private final PreparedStatement fetch;
+        // nextval() values, each the upper end of a block
+        private final Deque<Long> upperBounds = new ArrayDeque<>();
+
+        Allocator(Connection connection) throws SQLException {
+            this.connection = connection;
+            this.fetch = connection.prepareStatement("SELECT nextval('grades_id_seq') FROM generate_series(1, ?)");
+            fetch.setInt(1, BLOCKS_PER_FETCH);
+        }
+
+        synchronized long nextUpperBound() throws SQLException {
+            if (upperBounds.isEmpty()) {
+                try (ResultSet rs = fetch.executeQuery()) {
+                    while (rs.next()) {
+                        upperBounds.add(rs.getLong(1));
+                    }
+                }
+            }
+            return upperBounds.poll();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+}
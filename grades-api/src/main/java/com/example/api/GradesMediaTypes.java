@@ -0,0 +1,13 @@
+package com.example.api;
+
+/**
+ * Media types the grades API is served in. JSON is the default; both services also encode and
+ * decode the DTOs as Smile (binary JSON, same Jackson mapping) for callers that send
+ * {@code Accept: application/x-jackson-smile}, which is what service-a does towards service-b.
+ */
+public final class GradesMediaTypes {
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    private GradesMediaTypes() {
+    }
+}
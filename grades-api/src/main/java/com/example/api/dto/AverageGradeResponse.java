@@ -1,4 +1,4 @@
-package com.example.client.dto;
+package com.example.api.dto;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
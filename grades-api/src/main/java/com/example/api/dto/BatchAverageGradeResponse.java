@@ -0,0 +1,18 @@
+package com.example.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchAverageGradeResponse {
+    private List<AverageGradeResponse> courses;
+    private List<String> missingCourses;
+    private Long processingTimeMs;
+}
@@ -0,0 +1,20 @@
+package com.example.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchGradeDistributionResponse {
+    private List<GradeDistributionResponse> courses;
+    // every grade of the listed courses as one cohort
+    private GradeDistributionResponse combined;
+    private List<String> missingCourses;
+    private Long processingTimeMs;
+}
@@ -0,0 +1,27 @@
+package com.example.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GradeDistributionResponse {
+    private String courseName;
+    private Long totalGrades;
+    private Double averageGrade;
+    private Double standardDeviation;
+    private Double p10;
+    private Double median;
+    private Double p90;
+    private Integer passThreshold;
+    private Double passRate;
+    // number of grades per value, index = grade (0..100)
+    private List<Long> distribution;
+    private Long processingTimeMs;
+}
@@ -1,4 +1,4 @@
-package com.example.server.dto;
+package com.example.api.dto;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -11,22 +11,20 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class AverageGradeResponse {
+public class LeaderboardPage {
     private String courseName;
-    private Double averageGrade;
-    private Integer totalStudents;
-    private Integer totalGrades;
-    private List<StudentGradeInfo> topStudents;
-    private Long processingTimeMs;
+    private List<Entry> entries;
+    private String nextCursor;    // null on the last page
 
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
     @Builder
-    public static class StudentGradeInfo {
+    public static class Entry {
+        private Long rank;
         private Long studentId;
         private String studentName;
         private Double averageGrade;
-        private Integer gradeCount;
+        private Long gradeCount;
     }
 }
@@ -0,0 +1,217 @@
+package com.example.loadgen;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.SynchronizedHistogram;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.context.Context;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator: requests go out at a constant rate on a fixed schedule, whether
+ * or not earlier ones have been answered, the way independent users arrive. Latency is taken
+ * from the time a request was scheduled, not from the time it could be sent, so stalls of the
+ * target (full connection pool, GC pause, a slow generator) show up in the percentiles instead
+ * of silently lowering the request rate (coordinated omission).
+ *
+ * <pre>
+ * make load LOAD="--target=a --rate=300 --duration=60s"
+ * make load LOAD="--target=b --baseline=target/loadgen/baseline.json"
+ * </pre>
+ *
+ * Exits with 1 when a {@code --baseline} is given and p99 or throughput regressed beyond the
+ * allowed margins, with 2 on bad arguments.
+ */
+public final class LoadGenerator {
+    // microseconds, responses slower than a minute are recorded as a minute
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final String SENT_AT = "loadgen.sentAt";
+
+    private final LoadOptions options;
+    private final HttpClient client;
+    private final ConnectionProvider connectionProvider;
+    private final Histogram latency = new SynchronizedHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Histogram serviceTime = new SynchronizedHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong lastCompletionNanos = new AtomicLong();
+
+    private LoadGenerator(LoadOptions options) {
+        this.options = options;
+        // requests beyond the connections wait in the pool; that wait is part of their latency
+        this.connectionProvider = ConnectionProvider.builder("loadgen")
+                .maxConnections(options.concurrency)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(options.timeout)
+                .build();
+        this.client = HttpClient.create(connectionProvider)
+                .baseUrl(options.url)
+                .responseTimeout(options.timeout)
+                .doOnRequest((request, connection) ->
+                        request.currentContextView().<AtomicLong>get(SENT_AT).set(System.nanoTime()));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || List.of(args).contains("--help")) {
+            System.err.print(LoadOptions.USAGE);
+            System.exit(args.length == 0 ? 2 : 0);
+        }
+        LoadOptions options;
+        try {
+            options = LoadOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(LoadOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        LoadReport report = new LoadGenerator(options).run();
+        report.print();
+
+        File reportFile = new File(options.report);
+        report.write(reportFile);
+        System.out.printf("%nreport: %s%n", reportFile);
+
+        boolean passed = true;
+        if (options.baseline != null) {
+            passed = report.compareWith(LoadReport.read(new File(options.baseline)),
+                    options.maxP99Increase, options.maxThroughputDecrease);
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private LoadReport run() throws IOException {
+        List<String> paths = coursePaths();
+        SplittableRandom random = new SplittableRandom(options.seed);
+        System.out.printf("%s%s at %d req/s: %d s warmup, %d s measured, %d connections%n",
+                options.url, options.path, options.rate, options.warmup.toSeconds(),
+                options.duration.toSeconds(), options.concurrency);
+
+        long startNanos = System.nanoTime();
+        long measureFromNanos = startNanos + options.warmup.toNanos();
+        long endNanos = measureFromNanos + options.duration.toNanos();
+        long sent = 0;
+        for (long i = 0; ; i++) {
+            long intendedNanos = startNanos + i * TimeUnit.SECONDS.toNanos(1) / options.rate;
+            if (intendedNanos >= endNanos) {
+                break;
+            }
+            // a generator that falls behind sends at once: the lag counts against latency
+            for (long wait = intendedNanos - System.nanoTime(); wait > 0; wait = intendedNanos - System.nanoTime()) {
+                LockSupport.parkNanos(wait);
+            }
+            boolean measured = intendedNanos >= measureFromNanos;
+            send(paths.get(random.nextInt(paths.size())), intendedNanos, measured);
+            if (measured) {
+                sent++;
+            }
+        }
+
+        long drainDeadline = System.nanoTime() + options.timeout.toNanos() * 2;
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        if (inFlight.get() > 0) {
+            System.out.printf("%d requests still unanswered, counted as failed%n", inFlight.get());
+            failed.add(inFlight.get());
+            outcomes.computeIfAbsent("unanswered", key -> new LongAdder()).add(inFlight.get());
+        }
+        connectionProvider.disposeLater().block();
+
+        // a target that answers late stretches the run, which lowers the throughput it gets credit for
+        double seconds = Math.max(endNanos, lastCompletionNanos.get()) - measureFromNanos;
+        seconds /= TimeUnit.SECONDS.toNanos(1);
+        Map<String, Long> outcomeCounts = new TreeMap<>();
+        outcomes.forEach((outcome, count) -> outcomeCounts.put(outcome, count.sum()));
+        writePercentiles(new File(options.report.replaceFirst("\\.json$", "") + ".hgrm"));
+        return new LoadReport(options.url, options.path, options.rate, options.concurrency, seconds,
+                options.courses, sent, succeeded.sum(), failed.sum(), outcomeCounts,
+                succeeded.sum() / seconds, LoadReport.Latency.of(latency), LoadReport.Latency.of(serviceTime));
+    }
+
+    private void send(String uri, long intendedNanos, boolean measured) {
+        AtomicLong sentAtNanos = new AtomicLong(System.nanoTime());
+        inFlight.incrementAndGet();
+        client.get()
+                .uri(uri)
+                .responseSingle((response, body) -> body.then(Mono.just(response.status())))
+                .contextWrite(Context.of(SENT_AT, sentAtNanos))
+                .subscribe(
+                        status -> complete(intendedNanos, sentAtNanos.get(), measured, status),
+                        error -> fail(measured, error));
+    }
+
+    private void complete(long intendedNanos, long sentAtNanos, boolean measured, HttpResponseStatus status) {
+        long now = System.nanoTime();
+        inFlight.decrementAndGet();
+        if (!measured) {
+            return;
+        }
+        lastCompletionNanos.accumulateAndGet(now, Math::max);
+        outcomes.computeIfAbsent(String.valueOf(status.code()), key -> new LongAdder()).increment();
+        if (status.code() / 100 != 2) {
+            failed.increment();
+            return;
+        }
+        succeeded.increment();
+        latency.recordValue(micros(now - intendedNanos));
+        serviceTime.recordValue(micros(now - sentAtNanos));
+    }
+
+    private void fail(boolean measured, Throwable error) {
+        inFlight.decrementAndGet();
+        if (!measured) {
+            return;
+        }
+        lastCompletionNanos.accumulateAndGet(System.nanoTime(), Math::max);
+        outcomes.computeIfAbsent(error.getClass().getSimpleName(), key -> new LongAdder()).increment();
+        failed.increment();
+    }
+
+    private List<String> coursePaths() {
+        // the weights become repeated entries, so a uniform pick follows the mix
+        List<String> paths = new ArrayList<>();
+        options.courses.forEach((course, weight) -> {
+            String encoded = URLEncoder.encode(course, StandardCharsets.UTF_8).replace("+", "%20");
+            for (int i = 0; i < weight; i++) {
+                paths.add(options.path.replace("{course}", encoded));
+            }
+        });
+        return paths;
+    }
+
+    // HdrHistogram percentile distribution in milliseconds, for the HdrHistogram plotter
+    private void writePercentiles(File file) throws IOException {
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (PrintStream out = new PrintStream(new FileOutputStream(file), false, StandardCharsets.UTF_8)) {
+            latency.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private static long micros(long nanos) {
+        return Math.min(HIGHEST_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.loadgen;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Command line of {@link LoadGenerator}: {@code --name=value} pairs, see {@link #USAGE}. */
+final class LoadOptions {
+    static final String USAGE = """
+            usage: LoadGenerator [--name=value ...]
+              --target=a|b                 service-a (default, http://localhost:8080) or service-b (http://localhost:8081)
+              --url=<base url>             overrides the target's base url
+              --path=<template>            request path, {course} is replaced by a course from the mix
+                                           (default: the target's average grade endpoint)
+              --rate=200                   requests per second, sent on schedule whatever the responses do
+              --duration=30s               measured run
+              --warmup=5s                  run before it whose responses are not recorded
+              --concurrency=256            connections to the target; requests over it wait for one
+              --timeout=10s                response timeout, counted as an error
+              --courses=Mathematics=2,...  course mix with optional weights (default: the ten seeded courses)
+              --seed=42                    seed of the course choice
+              --report=target/loadgen/report.json
+                                           JSON report; a .hgrm percentile distribution is written next to it
+              --baseline=<report.json>     compare with an earlier report and fail (exit 1) on a regression
+              --max-p99-increase=0.20      allowed relative growth of p99 over the baseline
+              --max-throughput-decrease=0.10
+                                           allowed relative drop of throughput under the baseline
+            """;
+
+    static final String DEFAULT_COURSES = "Mathematics,Physics,Computer Science,Chemistry,Biology,"
+            + "English,History,Philosophy,Economics,Statistics";
+
+    final String target;
+    final String url;
+    final String path;
+    final int rate;
+    final Duration duration;
+    final Duration warmup;
+    final int concurrency;
+    final Duration timeout;
+    final Map<String, Integer> courses;
+    final long seed;
+    final String report;
+    final String baseline;
+    final double maxP99Increase;
+    final double maxThroughputDecrease;
+
+    private LoadOptions(Map<String, String> values) {
+        target = values.getOrDefault("target", "a");
+        if (!target.equals("a") && !target.equals("b")) {
+            throw new IllegalArgumentException("--target must be a or b: " + target);
+        }
+        url = values.getOrDefault("url", target.equals("a") ? "http://localhost:8080" : "http://localhost:8081");
+        path = values.getOrDefault("path",
+                target.equals("a") ? "/api/client/grades/average/{course}" : "/api/grades/average/{course}");
+        rate = positive("rate", Integer.parseInt(values.getOrDefault("rate", "200")));
+        duration = duration(values.getOrDefault("duration", "30s"));
+        warmup = duration(values.getOrDefault("warmup", "5s"));
+        concurrency = positive("concurrency", Integer.parseInt(values.getOrDefault("concurrency", "256")));
+        timeout = duration(values.getOrDefault("timeout", "10s"));
+        courses = courses(values.getOrDefault("courses", DEFAULT_COURSES));
+        seed = Long.parseLong(values.getOrDefault("seed", "42"));
+        report = values.getOrDefault("report", "target/loadgen/report.json");
+        baseline = values.get("baseline");
+        maxP99Increase = Double.parseDouble(values.getOrDefault("max-p99-increase", "0.20"));
+        maxThroughputDecrease = Double.parseDouble(values.getOrDefault("max-throughput-decrease", "0.10"));
+    }
+
+    static LoadOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("expected --name=value: " + arg);
+            }
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return new LoadOptions(values);
+    }
+
+    // "Mathematics=3,Physics" -> {Mathematics=3, Physics=1}
+    private static Map<String, Integer> courses(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=", 2);
+            if (parts[0].isEmpty()) {
+                continue;
+            }
+            weights.put(parts[0], parts.length == 2 ? positive("course weight", Integer.parseInt(parts[1].trim())) : 1);
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("--courses is empty");
+        }
+        return weights;
+    }
+
+    // 30s, 500ms, 2m
+    static Duration duration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    private static int positive(String name, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive: " + value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Result of one run as written to the JSON report and read back as a baseline. Latencies are
+ * in milliseconds; {@code latency} is measured from the time each request was scheduled to go
+ * out, {@code serviceTime} from the time it was written to the connection.
+ */
+record LoadReport(String url,
+                  String path,
+                  int rate,
+                  int concurrency,
+                  double durationSeconds,
+                  Map<String, Integer> courses,
+                  long sent,
+                  long succeeded,
+                  long failed,
+                  Map<String, Long> outcomes,
+                  double throughput,
+                  Latency latency,
+                  Latency serviceTime) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    record Latency(double p50, double p90, double p99, double p999, double max, double mean) {
+        // histograms record microseconds
+        static Latency of(Histogram histogram) {
+            return new Latency(
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(90) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0,
+                    histogram.getMean() / 1000.0);
+        }
+    }
+
+    void write(File file) throws IOException {
+        MAPPER.writeValue(file, this);
+    }
+
+    static LoadReport read(File file) throws IOException {
+        return MAPPER.readValue(file, LoadReport.class);
+    }
+
+    void print() {
+        System.out.printf("%n%s%s at %d req/s for %.0f s, %d connections%n", url, path, rate, durationSeconds, concurrency);
+        System.out.printf("sent %d, succeeded %d, failed %d %s, throughput %.1f req/s%n",
+                sent, succeeded, failed, outcomes, throughput);
+        System.out.printf("%-14s %10s %10s %10s %10s %10s %10s%n", "ms", "p50", "p90", "p99", "p99.9", "max", "mean");
+        printLatency("latency", latency);
+        printLatency("service time", serviceTime);
+    }
+
+    private static void printLatency(String name, Latency latency) {
+        System.out.printf("%-14s %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f%n", name,
+                latency.p50(), latency.p90(), latency.p99(), latency.p999(), latency.max(), latency.mean());
+    }
+
+    /**
+     * Prints this run next to {@code baseline} and returns false when p99 latency grew by more
+     * than {@code maxP99Increase} or throughput fell by more than {@code maxThroughputDecrease}.
+     */
+    boolean compareWith(LoadReport baseline, double maxP99Increase, double maxThroughputDecrease) {
+        System.out.printf("%n%-20s %12s %12s %8s%n", "vs baseline", "Base", "New", "Change");
+        compareLine("throughput req/s", baseline.throughput(), throughput);
+        compareLine("latency p50 ms", baseline.latency().p50(), latency.p50());
+        compareLine("latency p90 ms", baseline.latency().p90(), latency.p90());
+        compareLine("latency p99 ms", baseline.latency().p99(), latency.p99());
+        compareLine("latency p99.9 ms", baseline.latency().p999(), latency.p999());
+        compareLine("failed", baseline.failed(), failed);
+
+        boolean passed = true;
+        if (latency.p99() > baseline.latency().p99() * (1 + maxP99Increase)) {
+            System.out.printf("REGRESSION: p99 %.2f ms is more than %.0f%% above the baseline %.2f ms%n",
+                    latency.p99(), maxP99Increase * 100, baseline.latency().p99());
+            passed = false;
+        }
+        if (throughput < baseline.throughput() * (1 - maxThroughputDecrease)) {
+            System.out.printf("REGRESSION: throughput %.1f req/s is more than %.0f%% below the baseline %.1f req/s%n",
+                    throughput, maxThroughputDecrease * 100, baseline.throughput());
+            passed = false;
+        }
+        if (passed) {
+            System.out.println("no regression against the baseline");
+        }
+        return passed;
+    }
+
+    private static void compareLine(String name, double before, double after) {
+        String change = before == 0 ? "-" : String.format("%+7.1f%%", (after - before) / before * 100);
+        System.out.printf("%-20s %12.2f %12.2f %8s%n", name, before, after, change);
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.loadgen;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Starts a service repeatedly in each startup mode and measures the time from launching the
+ * JVM until the probe url first answers 200, which is what a health check or a load balancer
+ * waits for. Modes, all from the artifacts of a {@code -Pfast-start} build:
+ * <ul>
+ *   <li>{@code default}: the executable jar as docker-compose runs it</li>
+ *   <li>{@code profile}: the same with the fast-start profile (lazy beans, no Flyway at startup)</li>
+ *   <li>{@code aot}: plus the AOT-processed bean definitions</li>
+ *   <li>{@code unpacked}: the same from the plain jar in target/fast-start, dependencies in lib/</li>
+ *   <li>{@code fast-start}: plus the AppCDS archive</li>
+ * </ul>
+ *
+ * <pre>
+ * make startup STARTUP="--target=b --runs=5"
+ * </pre>
+ *
+ * The database must already be migrated: only the default mode runs Flyway. Exits with 1 when
+ * a start fails or times out, with 2 on bad arguments.
+ */
+public final class StartupBenchmark {
+    private static final Pattern STARTED = Pattern.compile("Started \\S+ in ([0-9.]+) seconds");
+    private static final long POLL_MILLIS = 20;
+
+    private final StartupOptions options;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+    private final File logDirectory;
+
+    private StartupBenchmark(StartupOptions options) {
+        this.options = options;
+        this.logDirectory = new File(options.report).getAbsoluteFile().getParentFile();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (List.of(args).contains("--help")) {
+            System.err.print(StartupOptions.USAGE);
+            System.exit(0);
+        }
+        StartupOptions options;
+        try {
+            options = StartupOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(StartupOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        StartupReport report;
+        try {
+            report = new StartupBenchmark(options).run();
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+            return;
+        }
+        report.print();
+
+        File reportFile = new File(options.report);
+        report.write(reportFile);
+        System.out.printf("%nreport: %s%n", reportFile);
+    }
+
+    private StartupReport run() throws IOException, InterruptedException {
+        logDirectory.mkdirs();
+        List<StartupReport.ModeResult> results = new ArrayList<>();
+        for (String mode : options.modes) {
+            List<String> command = command(mode);
+            System.out.printf("%s: %s%n", mode, String.join(" ", command));
+            List<StartupReport.Run> runs = new ArrayList<>();
+            for (int i = 1; i <= options.runs; i++) {
+                StartupReport.Run run = start(command, new File(logDirectory, "startup-" + mode + "-" + i + ".log"));
+                System.out.printf("  run %d: first success after %d ms%n", i, run.firstSuccessMs());
+                runs.add(run);
+            }
+            results.add(StartupReport.ModeResult.of(mode, command, runs));
+        }
+        return new StartupReport(options.target, options.url, results);
+    }
+
+    private List<String> command(String mode) {
+        File artifacts = new File(options.artifacts).getAbsoluteFile();
+        String artifactId = "service-" + options.target;
+        File[] executableJars = artifacts.listFiles((dir, name) -> name.startsWith(artifactId) && name.endsWith("-exec.jar"));
+        if (executableJars == null || executableJars.length != 1) {
+            throw new IllegalStateException("no " + artifactId + " build in " + artifacts + ", run mvn -Pfast-start install");
+        }
+        File executableJar = executableJars[0];
+        File fastStart = new File(artifacts, "fast-start");
+        File plainJar = new File(fastStart, executableJar.getName().replace("-exec.jar", "-fast-start.jar"));
+        File archive = new File(fastStart, artifactId + ".jsa");
+        if (!mode.equals("default") && !archive.exists()) {
+            throw new IllegalStateException("no " + archive + ", mode " + mode + " needs a -Pfast-start build");
+        }
+
+        // the java of this benchmark: the CDS archive only matches the JVM that wrote it
+        List<String> command = new ArrayList<>(List.of(ProcessHandle.current().info().command().orElse("java")));
+        command.addAll(options.jvmArgs);
+        switch (mode) {
+            case "default", "profile" -> command.addAll(List.of("-jar", executableJar.getPath()));
+            case "aot" -> command.addAll(List.of("-Dspring.aot.enabled=true", "-jar", executableJar.getPath()));
+            case "unpacked" -> command.addAll(List.of("-Dspring.aot.enabled=true", "-jar", plainJar.getPath()));
+            default -> command.addAll(List.of("-XX:SharedArchiveFile=" + archive.getPath(), "-Dspring.aot.enabled=true",
+                    "-jar", plainJar.getPath()));
+        }
+        String profiles = mode.equals("default") ? options.profiles
+                : options.profiles.isEmpty() ? "fast-start" : "fast-start," + options.profiles;
+        if (!profiles.isEmpty()) {
+            command.add("--spring.profiles.active=" + profiles);
+        }
+        return command;
+    }
+
+    private StartupReport.Run start(List<String> command, File log) throws IOException, InterruptedException {
+        if (probe()) {
+            throw new IllegalStateException(options.url + " already answers: stop the running service first");
+        }
+        long startNanos = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+        try {
+            long deadline = startNanos + options.timeout.toNanos();
+            while (!probe()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("exited with " + process.exitValue() + " before answering, see " + log);
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("no successful response within " + options.timeout + ", see " + log);
+                }
+                Thread.sleep(POLL_MILLIS);
+            }
+            long firstSuccessMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            return new StartupReport.Run(firstSuccessMs, startedSeconds(log));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private boolean probe() throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(options.url)).timeout(options.timeout).GET().build();
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static Double startedSeconds(File log) throws IOException {
+        Matcher matcher = STARTED.matcher(Files.readString(log.toPath(), StandardCharsets.UTF_8));
+        return matcher.find() ? Double.valueOf(matcher.group(1)) : null;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.loadgen;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Command line of {@link StartupBenchmark}: {@code --name=value} pairs, see {@link #USAGE}. */
+final class StartupOptions {
+    static final String USAGE = """
+            usage: StartupBenchmark [--name=value ...]
+              --target=b                   service-b (default) or service-a; service-a's probe needs service-b running
+              --modes=default,profile,aot,unpacked,fast-start
+                                           startup modes to compare (see StartupBenchmark), from a -Pfast-start build
+              --runs=3                     starts per mode
+              --artifacts=<dir>            the service's build output (default: ../service-<target>/target)
+              --url=<probe url>            request that has to succeed (default: the target's average grade of Mathematics)
+              --profiles=<profiles>        Spring profiles added to every mode's own, e.g. prod
+              --jvm-args=<options>         JVM options for every start, space separated
+              --timeout=120s               a start that has not answered by then fails
+              --report=target/loadgen/startup.json
+                                           JSON report; the output of each start is written next to it
+            """;
+
+    static final List<String> MODES = List.of("default", "profile", "aot", "unpacked", "fast-start");
+
+    final String target;
+    final List<String> modes;
+    final int runs;
+    final String artifacts;
+    final String url;
+    final String profiles;
+    final List<String> jvmArgs;
+    final Duration timeout;
+    final String report;
+
+    private StartupOptions(Map<String, String> values) {
+        target = values.getOrDefault("target", "b");
+        if (!target.equals("a") && !target.equals("b")) {
+            throw new IllegalArgumentException("--target must be a or b: " + target);
+        }
+        modes = List.of(values.getOrDefault("modes", String.join(",", MODES)).split(","));
+        for (String mode : modes) {
+            if (!MODES.contains(mode)) {
+                throw new IllegalArgumentException("unknown mode " + mode + ", expected one of " + MODES);
+            }
+        }
+        runs = Integer.parseInt(values.getOrDefault("runs", "3"));
+        if (runs <= 0) {
+            throw new IllegalArgumentException("runs must be positive: " + runs);
+        }
+        artifacts = values.getOrDefault("artifacts", "../service-" + target + "/target");
+        url = values.getOrDefault("url", target.equals("a")
+                ? "http://localhost:8080/api/client/grades/average/Mathematics"
+                : "http://localhost:8081/api/grades/average/Mathematics");
+        profiles = values.getOrDefault("profiles", "");
+        jvmArgs = new ArrayList<>(List.of(values.getOrDefault("jvm-args", "").trim().split("\\s+")));
+        jvmArgs.removeIf(String::isEmpty);
+        timeout = LoadOptions.duration(values.getOrDefault("timeout", "120s"));
+        report = values.getOrDefault("report", "target/loadgen/startup.json");
+    }
+
+    static StartupOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("expected --name=value: " + arg);
+            }
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return new StartupOptions(values);
+    }
+}
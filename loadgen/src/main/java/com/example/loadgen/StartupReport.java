@@ -0,0 +1,47 @@
+package com.example.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Result of a {@link StartupBenchmark} as written to the JSON report. {@code firstSuccessMs}
+ * is measured from launching the JVM to the first successful response of the probe url;
+ * {@code startedSeconds} is what Spring Boot logs as "Started ... in", which leaves out JVM
+ * startup and everything deferred to the first request.
+ */
+record StartupReport(String target, String url, List<ModeResult> modes) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    record ModeResult(String mode, List<String> command, List<Run> runs,
+                      long minMs, long medianMs, long maxMs, Double medianStartedSeconds) {
+
+        static ModeResult of(String mode, List<String> command, List<Run> runs) {
+            List<Long> times = runs.stream().map(Run::firstSuccessMs).sorted().toList();
+            List<Double> started = runs.stream().map(Run::startedSeconds).filter(s -> s != null).sorted().toList();
+            return new ModeResult(mode, command, runs, times.get(0), times.get(times.size() / 2),
+                    times.get(times.size() - 1), started.isEmpty() ? null : started.get(started.size() / 2));
+        }
+    }
+
+    // startedSeconds is null when the log had no "Started ... in" line
+    record Run(long firstSuccessMs, Double startedSeconds) {
+    }
+
+    void write(File file) throws IOException {
+        MAPPER.writeValue(file, this);
+    }
+
+    void print() {
+        System.out.printf("%n%s until %s succeeds%n", target, url);
+        System.out.printf("%-12s %10s %10s %10s %14s%n", "ms", "min", "median", "max", "started in s");
+        for (ModeResult mode : modes) {
+            System.out.printf("%-12s %10d %10d %10d %14s%n", mode.mode(), mode.minMs(), mode.medianMs(), mode.maxMs(),
+                    mode.medianStartedSeconds() == null ? "-" : String.format("%.2f", mode.medianStartedSeconds()));
+        }
+    }
+}
@@ -1,17 +1,24 @@
 package com.example.client.config;
 
+import com.example.api.GradesMediaTypes;
+import com.example.client.filter.RequestIds;
 import io.netty.channel.ChannelOption;
-import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.handler.timeout.WriteTimeoutHandler;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientRequest;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.Http2AllocationStrategy;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.time.Duration;
 import java.util.concurrent.TimeUnit;
@@ -29,36 +36,138 @@ public class WebClientConfig {
     @Value("${service-b.timeout.response}")
     private int responseTimeout;
 
+    @Value("${service-b.pool.max-connections:500}")
+    private int maxConnections;
+
+    @Value("${service-b.pool.pending-acquire-max-count:1000}")
+    private int pendingAcquireMaxCount;
+
+    @Value("${service-b.pool.pending-acquire-timeout:45000}")
+    private long pendingAcquireTimeout;
+
+    @Value("${service-b.pool.max-idle-time:0}")
+    private long maxIdleTime;
+
+    @Value("${service-b.pool.max-life-time:0}")
+    private long maxLifeTime;
+
+    @Value("${service-b.pool.evict-in-background:0}")
+    private long evictInBackground;
+
+    @Value("${service-b.pool.leasing-strategy:fifo}")
+    private String leasingStrategy;
+
+    @Value("${service-b.http2.enabled:false}")
+    private boolean http2Enabled;
+
+    @Value("${service-b.http2.max-concurrent-streams:100}")
+    private long http2MaxConcurrentStreams;
+
+    @Value("${service-b.compression:false}")
+    private boolean compression;
+
+    @Value("${service-b.wire-format:json}")
+    private String wireFormat;
+
+    // Boot's builder records http.client.requests per URI template
     @Bean
-    public WebClient webClient() {
-        HttpClient httpClient = HttpClient.create()
+    public WebClient webClient(WebClient.Builder webClientBuilder) {
+        HttpClient httpClient = HttpClient.create(connectionProvider())
+                .protocol(http2Enabled ? HttpProtocol.H2C : HttpProtocol.HTTP11)
+                // sends Accept-Encoding: gzip and inflates compressed responses
+                .compress(compression)
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectionTimeout)
+                // longest pause between reads of a response; streams override it per request
                 .responseTimeout(Duration.ofMillis(responseTimeout))
                 .doOnConnected(conn ->
-                        conn.addHandlerLast(new ReadTimeoutHandler(responseTimeout, TimeUnit.MILLISECONDS))
-                                .addHandlerLast(new WriteTimeoutHandler(connectionTimeout, TimeUnit.MILLISECONDS)));
+                        conn.addHandlerLast(new WriteTimeoutHandler(connectionTimeout, TimeUnit.MILLISECONDS)));
 
-        return WebClient.builder()
+        return webClientBuilder
                 .baseUrl(serviceBBaseUrl)
                 .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .defaultHeader(HttpHeaders.ACCEPT, acceptHeader())
+                .filter(propagateRequestId())
                 .filter(logRequest())
                 .filter(logResponse())
                 .filter(handleErrors())
                 .build();
     }
 
+    // Requests that set Accept themselves (NDJSON streams) keep it. With smile, JSON stays acceptable
+    // so a service-b without the Smile codec still answers.
+    private String acceptHeader() {
+        return switch (wireFormat.toLowerCase()) {
+            case "smile" -> GradesMediaTypes.APPLICATION_SMILE_VALUE + ", " + MediaType.APPLICATION_JSON_VALUE + ";q=0.5";
+            case "json" -> MediaType.APPLICATION_JSON_VALUE;
+            default -> throw new IllegalArgumentException(
+                    "service-b.wire-format must be json or smile, got " + wireFormat);
+        };
+    }
+
+    // Pool of connections to service-b, with reactor.netty.connection.provider.* gauges. Durations are
+    // in ms, 0 disables the limit. Over h2c a connection carries up to max-concurrent-streams requests,
+    // so max-connections then bounds connections, not in-flight requests.
+    private ConnectionProvider connectionProvider() {
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("service-b")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeout))
+                .metrics(true);
+        if (maxIdleTime > 0) {
+            builder.maxIdleTime(Duration.ofMillis(maxIdleTime));
+        }
+        if (maxLifeTime > 0) {
+            builder.maxLifeTime(Duration.ofMillis(maxLifeTime));
+        }
+        if (evictInBackground > 0) {
+            builder.evictInBackground(Duration.ofMillis(evictInBackground));
+        }
+        switch (leasingStrategy.toLowerCase()) {
+            // lifo reuses the most recently released connection, so surplus ones go idle and get evicted
+            case "lifo" -> builder.lifo();
+            case "fifo" -> builder.fifo();
+            default -> throw new IllegalArgumentException(
+                    "service-b.pool.leasing-strategy must be fifo or lifo, got " + leasingStrategy);
+        }
+        if (http2Enabled) {
+            builder.allocationStrategy(Http2AllocationStrategy.builder()
+                    .maxConnections(maxConnections)
+                    .maxConcurrentStreams(http2MaxConcurrentStreams)
+                    .build());
+        }
+        log.info("service-b connection pool: max-connections={}, pending-acquire-max-count={}, leasing={}, "
+                        + "protocol={}, compression={}, wire-format={}",
+                maxConnections, pendingAcquireMaxCount, leasingStrategy, http2Enabled ? "h2c" : "http/1.1", compression,
+                wireFormat);
+        return builder.build();
+    }
+
+    // X-Request-ID of the incoming request (Reactor context, see LoggingWebFilter) is sent on to service-b
+    private ExchangeFilterFunction propagateRequestId() {
+        return (clientRequest, next) -> Mono.deferContextual(context -> {
+            String requestId = context.getOrDefault(RequestIds.CONTEXT_KEY, null);
+            if (requestId == null || clientRequest.headers().containsKey(RequestIds.HEADER)) {
+                return next.exchange(clientRequest);
+            }
+            return next.exchange(ClientRequest.from(clientRequest)
+                    .header(RequestIds.HEADER, requestId)
+                    .build());
+        });
+    }
+
     private ExchangeFilterFunction logRequest() {
         return ExchangeFilterFunction.ofRequestProcessor(clientRequest -> {
-            log.info(">>> [WebClient] Request: {} {}", clientRequest.method(), clientRequest.url());
-            log.debug(">>> [WebClient] Headers: {}", clientRequest.headers());
+            if (log.isDebugEnabled()) {
+                log.debug(">>> [WebClient] Request: {} {} Headers: {}",
+                        clientRequest.method(), clientRequest.url(), clientRequest.headers());
+            }
             return Mono.just(clientRequest);
         });
     }
 
     private ExchangeFilterFunction logResponse() {
         return ExchangeFilterFunction.ofResponseProcessor(clientResponse -> {
-            log.info("<<< [WebClient] Response: Status {}", clientResponse.statusCode());
-            log.debug("<<< [WebClient] Headers: {}", clientResponse.headers().asHttpHeaders());
+            log.debug("<<< [WebClient] Response: Status {}", clientResponse.statusCode());
             return Mono.just(clientResponse);
         });
     }
@@ -67,10 +176,12 @@ public class WebClientConfig {
         return ExchangeFilterFunction.ofResponseProcessor(clientResponse -> {
             if (clientResponse.statusCode().isError()) {
                 log.error("!!! [WebClient] Error response: {}", clientResponse.statusCode());
+                // the body is consumed here, so hand on a copy; an empty body (e.g. 404) must not drop the response
                 return clientResponse.bodyToMono(String.class)
-                        .flatMap(errorBody -> {
+                        .defaultIfEmpty("")
+                        .map(errorBody -> {
                             log.error("!!! [WebClient] Error body: {}", errorBody);
-                            return Mono.just(clientResponse);
+                            return clientResponse.mutate().body(errorBody).build();
                         });
             }
             return Mono.just(clientResponse);
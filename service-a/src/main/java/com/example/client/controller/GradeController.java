@@ -1,14 +1,24 @@
 package com.example.client.controller;
 
-import com.example.client.dto.AverageGradeResponse;
+import com.example.api.dto.AverageGradeResponse;
+import com.example.api.dto.BatchAverageGradeResponse;
+import com.example.api.dto.BatchGradeDistributionResponse;
+import com.example.api.dto.GradeDistributionResponse;
+import com.example.api.dto.LeaderboardPage;
+import com.example.client.dto.ClientCacheStatsResponse;
 import com.example.client.service.GradeClientService;
+import com.example.client.service.ServiceBUnavailableException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -21,14 +31,91 @@ public class GradeController {
     @GetMapping("/grades/average/{courseName}")
     public Mono<ResponseEntity<AverageGradeResponse>> getAverageGrade(
             @PathVariable String courseName) {
-        log.info("Client received request for average grade of course: {}", courseName);
+        log.debug("Client received request for average grade of course: {}", courseName);
 
         return gradeClientService.getAverageGrade(courseName)
                 .map(ResponseEntity::ok)
-                .onErrorResume(error -> {
-                    log.error("Error processing request for course: {}", courseName, error);
-                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
-                });
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(error -> failure(error, "request for course: " + courseName));
+    }
+
+    @GetMapping("/grades/average")
+    public Mono<ResponseEntity<BatchAverageGradeResponse>> getAverageGrades(
+            @RequestParam(required = false) List<String> courses) {
+        List<String> courseNames = courses == null ? List.of() : courses.stream()
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .distinct()
+                .toList();
+        log.debug("Client received batch request for courses: {}", courseNames.isEmpty() ? "all" : courseNames);
+
+        return gradeClientService.getAverageGrades(courseNames)
+                .map(ResponseEntity::ok)
+                .onErrorResume(error -> failure(error, "batch request for courses: " + courseNames));
+    }
+
+    @GetMapping("/grades/course/{courseName}/leaderboard")
+    public Mono<ResponseEntity<LeaderboardPage>> getLeaderboard(
+            @PathVariable String courseName,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return gradeClientService.getLeaderboard(courseName, cursor, limit)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(IllegalArgumentException.class,
+                        error -> Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).build()))
+                .onErrorResume(error -> failure(error, "leaderboard request for course: " + courseName));
+    }
+
+    @GetMapping("/grades/course/{courseName}/distribution")
+    public Mono<ResponseEntity<GradeDistributionResponse>> getDistribution(@PathVariable String courseName) {
+        return gradeClientService.getDistribution(courseName)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(error -> failure(error, "distribution request for course: " + courseName));
+    }
+
+    @GetMapping("/grades/distribution")
+    public Mono<ResponseEntity<BatchGradeDistributionResponse>> getDistributions(
+            @RequestParam(required = false) List<String> courses) {
+        List<String> courseNames = courses == null ? List.of() : courses.stream()
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .distinct()
+                .toList();
+
+        return gradeClientService.getDistributions(courseNames)
+                .map(ResponseEntity::ok)
+                .onErrorResume(error -> failure(error, "distribution request for courses: " + courseNames));
+    }
+
+    @GetMapping(value = "/grades/course/{courseName}/students",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Mono<ResponseEntity<Flux<AverageGradeResponse.StudentGradeInfo>>> streamCourseStudents(
+            @PathVariable String courseName) {
+        return gradeClientService.streamCourseStudents(courseName)
+                .map(students -> ResponseEntity.ok(students
+                        .doOnError(error -> log.error("Student stream failed for course: {}", courseName, error))))
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(error -> failure(error, "student stream for course: " + courseName));
+    }
+
+    // an open circuit to service-b is passed on as 503 with Retry-After, anything else is a 500
+    private <T> Mono<ResponseEntity<T>> failure(Throwable error, String request) {
+        if (error instanceof ServiceBUnavailableException unavailable) {
+            log.warn("Rejected {}: {}", request, error.getMessage());
+            long retryAfterSeconds = Math.max(1, (unavailable.getRetryAfter().toMillis() + 999) / 1000);
+            return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .build());
+        }
+        log.error("Error processing {}", request, error);
+        return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+    }
+
+    @GetMapping("/cache/stats")
+    public Mono<ResponseEntity<ClientCacheStatsResponse>> getCacheStats() {
+        return Mono.just(ResponseEntity.ok(gradeClientService.getCacheStats()));
     }
 
     @GetMapping("/health")
@@ -0,0 +1,19 @@
+package com.example.client.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientCacheStatsResponse {
+    private boolean enabled;
+    private Integer size;
+    private Integer inFlight;
+    private Long hits;
+    private Long staleHits;
+    private Long misses;
+    private Long coalesced;
+    private Long staleOnError;
+}
@@ -1,64 +1,102 @@
 package com.example.client.filter;
 
-import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.Context;
 
-import java.time.Duration;
-import java.time.Instant;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * One access log line per request on the "access" logger (async appender, see logback-spring.xml).
+ * Only a sample of requests is logged; server errors and slow requests always are.
+ */
 @Component
-@Slf4j
 public class LoggingWebFilter implements WebFilter {
 
+    private static final Logger accessLog = LoggerFactory.getLogger("access");
+
+    @Value("${access-log.enabled:true}")
+    private boolean enabled;
+
+    @Value("${access-log.sample-rate:1.0}")
+    private double sampleRate;
+
+    @Value("${access-log.slow-threshold:1000}")
+    private long slowThresholdMs;
+
+    @Value("${access-log.headers:}")
+    private List<String> headers;
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
-        Instant startTime = Instant.now();
-        String requestId = generateRequestId();
-        String method = exchange.getRequest().getMethod().toString();
-        String path = exchange.getRequest().getPath().value();
-        String clientIp = getClientIp(exchange);
-
-        log.info("═══════════════════════════════════════════════════════════");
-        log.info("║ [REQUEST-{}] Incoming Request", requestId);
-        log.info("║ Method: {} | Path: {}", method, path);
-        log.info("║ Client IP: {}", clientIp);
-        log.info("║ Headers: {}", exchange.getRequest().getHeaders().toSingleValueMap());
-        log.info("═══════════════════════════════════════════════════════════");
+        String requestId = RequestIds.fromHeaderOrNew(exchange.getRequest().getHeaders().getFirst(RequestIds.HEADER));
+        exchange.getResponse().getHeaders().set(RequestIds.HEADER, requestId);
 
-        exchange.getResponse().getHeaders().add("X-Request-ID", requestId);
+        if (!enabled || !accessLog.isInfoEnabled()) {
+            return chain.filter(exchange)
+                    .contextWrite(Context.of(RequestIds.CONTEXT_KEY, requestId));
+        }
 
+        long startNanos = System.nanoTime();
         return chain.filter(exchange)
-                .doFinally(signalType -> {
-                    Instant endTime = Instant.now();
-                    Duration duration = Duration.between(startTime, endTime);
-                    int statusCode = exchange.getResponse().getStatusCode() != null ?
-                            exchange.getResponse().getStatusCode().value() : 0;
-
-                    log.info("═══════════════════════════════════════════════════════════");
-                    log.info("║ [RESPONSE-{}] Outgoing Response", requestId);
-                    log.info("║ Method: {} | Path: {}", method, path);
-                    log.info("║ Status: {} | Duration: {} ms", statusCode, duration.toMillis());
-                    log.info("║ Signal Type: {}", signalType);
-                    log.info("═══════════════════════════════════════════════════════════");
-                });
+                .doFinally(signalType -> logAccess(exchange, requestId, startNanos, signalType))
+                .contextWrite(Context.of(RequestIds.CONTEXT_KEY, requestId));
     }
 
-    private String generateRequestId() {
-        return String.format("%08x", System.nanoTime());
+    private void logAccess(ServerWebExchange exchange, String requestId, long startNanos, SignalType signalType) {
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        int statusCode = status != null ? status.value() : 0;
+
+        boolean sampled = sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+        if (!sampled && statusCode < 500 && durationMs < slowThresholdMs) {
+            return;
+        }
+
+        ServerHttpRequest request = exchange.getRequest();
+        StringBuilder line = new StringBuilder(160)
+                .append("rid=").append(requestId)
+                .append(" method=").append(request.getMethod().name())
+                .append(" path=").append(request.getPath().value())
+                .append(" status=").append(statusCode)
+                .append(" duration_ms=").append(durationMs)
+                .append(" client=").append(getClientIp(request));
+        if (signalType != SignalType.ON_COMPLETE) {
+            line.append(" signal=").append(signalType);
+        }
+        HttpHeaders requestHeaders = request.getHeaders();
+        for (String header : headers) {
+            String value = requestHeaders.getFirst(header);
+            if (value != null) {
+                line.append(' ').append(header).append("=\"").append(value.replace("\"", "\\\"")).append('"');
+            }
+        }
+        accessLog.info(line.toString());
     }
 
-    private String getClientIp(ServerWebExchange exchange) {
-        String xForwardedFor = exchange.getRequest().getHeaders().getFirst("X-Forwarded-For");
+    private String getClientIp(ServerHttpRequest request) {
+        String xForwardedFor = request.getHeaders().getFirst("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
+            int comma = xForwardedFor.indexOf(',');
+            return (comma < 0 ? xForwardedFor : xForwardedFor.substring(0, comma)).trim();
         }
 
-        if (exchange.getRequest().getRemoteAddress() != null) {
-            return exchange.getRequest().getRemoteAddress().getAddress().getHostAddress();
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress != null && remoteAddress.getAddress() != null) {
+            return remoteAddress.getAddress().getHostAddress();
         }
 
         return "unknown";
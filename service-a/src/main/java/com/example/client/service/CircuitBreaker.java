@@ -0,0 +1,189 @@
+package com.example.client.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Circuit breaker in front of service-b. CLOSED records the outcome of the last
+ * {@code sliding-window} calls and opens when at least {@code minimum-calls} of them are in and
+ * the failure rate reaches the threshold. OPEN fails calls at once with
+ * {@link ServiceBUnavailableException} for {@code open-duration}, then HALF_OPEN lets
+ * {@code half-open-calls} probes through: all succeeding closes the breaker, any failing opens
+ * it again. Cancelled calls (lost hedges, callers going away) are not counted.
+ */
+@Component
+@Slf4j
+public class CircuitBreaker {
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoClock;
+
+    @Value("${service-b.circuit-breaker.enabled:true}")
+    private boolean enabled;
+
+    @Value("${service-b.circuit-breaker.sliding-window:20}")
+    private int slidingWindow;
+
+    @Value("${service-b.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${service-b.circuit-breaker.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    @Value("${service-b.circuit-breaker.open-duration:5000}")
+    private long openDurationMs;
+
+    @Value("${service-b.circuit-breaker.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    private State state = State.CLOSED;
+    // CLOSED: ring buffer of the last outcomes (true = failure)
+    private boolean[] outcomes;
+    private int outcomeIndex;
+    private int recordedCalls;
+    private int failedCalls;
+    private long openedAtNanos;
+    // HALF_OPEN: probes still allowed to start, and probes that succeeded
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    private Counter rejected;
+
+    @Autowired
+    public CircuitBreaker(MeterRegistry meterRegistry) {
+        this(meterRegistry, System::nanoTime);
+    }
+
+    CircuitBreaker(MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+    }
+
+    @PostConstruct
+    void init() {
+        outcomes = new boolean[slidingWindow];
+        Gauge.builder("grades.client.circuit.state", this, breaker -> breaker.getState().ordinal())
+                .description("Circuit breaker to service-b: 0 closed, 1 half-open, 2 open")
+                .register(meterRegistry);
+        rejected = Counter.builder("grades.client.circuit.rejected")
+                .description("Calls to service-b failed fast by the open circuit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Subscribes to {@code call} only when the circuit allows it. Errors matching
+     * {@code isFailure} count against service-b, other outcomes as successes.
+     */
+    public <T> Mono<T> protect(Mono<T> call, Predicate<Throwable> isFailure) {
+        if (!enabled) {
+            return call;
+        }
+        return Mono.defer(() -> {
+            if (!tryAcquire()) {
+                rejected.increment();
+                return Mono.error(new ServiceBUnavailableException(
+                        "Circuit to service-b is open", remainingOpenTime()));
+            }
+            return call
+                    .doOnSuccess(value -> record(false))
+                    .doOnError(error -> record(isFailure.test(error)))
+                    .doOnCancel(this::releaseProbe);
+        });
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && openElapsed()) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (!openElapsed()) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                return false;
+            }
+            halfOpenPermits--;
+        }
+        return true;
+    }
+
+    private synchronized void record(boolean failure) {
+        switch (state) {
+            case CLOSED -> {
+                if (recordedCalls == slidingWindow) {
+                    failedCalls -= outcomes[outcomeIndex] ? 1 : 0;
+                } else {
+                    recordedCalls++;
+                }
+                outcomes[outcomeIndex] = failure;
+                failedCalls += failure ? 1 : 0;
+                outcomeIndex = (outcomeIndex + 1) % slidingWindow;
+                if (recordedCalls >= minimumCalls && (double) failedCalls / recordedCalls >= failureRateThreshold) {
+                    log.warn("{} of the last {} calls to service-b failed", failedCalls, recordedCalls);
+                    transitionTo(State.OPEN);
+                }
+            }
+            case HALF_OPEN -> {
+                if (failure) {
+                    transitionTo(State.OPEN);
+                } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                    transitionTo(State.CLOSED);
+                }
+            }
+            // a call admitted before the circuit opened: its outcome no longer matters
+            case OPEN -> { }
+        }
+    }
+
+    private synchronized void releaseProbe() {
+        if (state == State.HALF_OPEN) {
+            halfOpenPermits++;
+        }
+    }
+
+    private void transitionTo(State next) {
+        log.warn("Circuit to service-b: {} -> {}", state, next);
+        state = next;
+        switch (next) {
+            case OPEN -> openedAtNanos = nanoClock.getAsLong();
+            case HALF_OPEN -> {
+                halfOpenPermits = halfOpenCalls;
+                halfOpenSuccesses = 0;
+            }
+            case CLOSED -> {
+                outcomeIndex = 0;
+                recordedCalls = 0;
+                failedCalls = 0;
+            }
+        }
+        meterRegistry.counter("grades.client.circuit.transitions", "state", next.name().toLowerCase()).increment();
+    }
+
+    private boolean openElapsed() {
+        return nanoClock.getAsLong() - openedAtNanos >= Duration.ofMillis(openDurationMs).toNanos();
+    }
+
+    private synchronized Duration remainingOpenTime() {
+        long remaining = Duration.ofMillis(openDurationMs).toNanos() - (nanoClock.getAsLong() - openedAtNanos);
+        return Duration.ofNanos(Math.max(0, remaining));
+    }
+}
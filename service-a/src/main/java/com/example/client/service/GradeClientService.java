@@ -1,23 +1,49 @@
 package com.example.client.service;
 
-import com.example.client.dto.AverageGradeResponse;
+import com.example.api.dto.AverageGradeResponse;
+import com.example.api.dto.BatchAverageGradeResponse;
+import com.example.api.dto.BatchGradeDistributionResponse;
+import com.example.api.dto.GradeDistributionResponse;
+import com.example.api.dto.LeaderboardPage;
+import com.example.client.dto.ClientCacheStatsResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientRequestException;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClientRequest;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class GradeClientService {
     private final WebClient webClient;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryBudget retryBudget;
 
     @Value("${service-b.retry.max-attempts}")
     private int maxRetryAttempts;
@@ -31,34 +57,135 @@ public class GradeClientService {
     @Value("${service-b.retry.backoff.multiplier}")
     private double backoffMultiplier;
 
+    @Value("${service-b.hedging.enabled:false}")
+    private boolean hedgingEnabled;
+
+    @Value("${service-b.hedging.delay:100}")
+    private long hedgingDelay;
+
+    @Value("${service-b.timeout.stream-idle:600000}")
+    private long streamIdleTimeout;
+
+    @Value("${service-b.cache.enabled}")
+    private boolean cacheEnabled;
+
+    @Value("${service-b.cache.ttl}")
+    private long cacheTtl;
+
+    @Value("${service-b.cache.stale-while-revalidate}")
+    private long staleWhileRevalidate;
+
+    @Value("${service-b.cache.stale-if-error}")
+    private long staleIfError;
+
+    @Value("${service-b.cache.stale-if-error-timeout}")
+    private long staleIfErrorTimeout;
+
+    @Value("${service-b.cache.maximum-size:10000}")
+    private long cacheMaximumSize;
+
+    private Cache<String, CachedResponse> responseCache;
+    private final Map<String, Mono<AverageGradeResponse>> inFlightRequests = new ConcurrentHashMap<>();
+    private final ClientCacheStats cacheStats = new ClientCacheStats();
+
+    @PostConstruct
+    void init() {
+        // an entry older than the longest stale window can no longer be served
+        responseCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfterWrite(Duration.ofMillis(cacheTtl + Math.max(staleWhileRevalidate, staleIfError)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responseCache, "serviceBResponses");
+        cacheStats.bindTo(meterRegistry);
+    }
+
+    /**
+     * Fresh entries (younger than ttl) are served from memory. Within the
+     * stale-while-revalidate window the stale entry is served immediately and refreshed in
+     * the background. Beyond it the caller waits for service-b, but with stale-if-error a
+     * failed or slow call still falls back to the stale entry. Concurrent calls for the
+     * same course share one in-flight request. Empty when the course does not exist.
+     */
     public Mono<AverageGradeResponse> getAverageGrade(String courseName) {
-        log.info("Requesting average grade for course: {}", courseName);
+        if (!cacheEnabled) {
+            return fetchShared(courseName);
+        }
 
-        return webClient.get()
+        CachedResponse cached = responseCache.getIfPresent(courseName);
+        long age = cached != null ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - cached.fetchedAtNanos()) : -1;
+
+        if (cached != null && age < cacheTtl) {
+            cacheStats.hits.increment();
+            return Mono.just(cached.response());
+        }
+        if (cached != null && age < cacheTtl + staleWhileRevalidate) {
+            cacheStats.staleHits.increment();
+            log.debug("Serving stale response for course: {} ({} ms old), refreshing", courseName, age);
+            fetchShared(courseName).subscribe(response -> { }, error -> { });
+            return Mono.just(cached.response());
+        }
+
+        cacheStats.misses.increment();
+        if (cached != null && staleIfError > 0 && age < cacheTtl + staleIfError) {
+            Mono<AverageGradeResponse> shared = fetchShared(courseName);
+            // keeps the request running to refresh the cache even if this caller falls back
+            shared.subscribe(response -> { }, error -> { });
+            return shared
+                    .timeout(Duration.ofMillis(staleIfErrorTimeout))
+                    .onErrorResume(error -> {
+                        cacheStats.staleOnError.increment();
+                        log.warn("Serving stale response for course: {} ({} ms old) after: {}",
+                                courseName, age, error.toString());
+                        return Mono.just(cached.response());
+                    });
+        }
+        return fetchShared(courseName);
+    }
+
+    public ClientCacheStatsResponse getCacheStats() {
+        return new ClientCacheStatsResponse(cacheEnabled, (int) responseCache.estimatedSize(),
+                inFlightRequests.size(), cacheStats.hits.sum(), cacheStats.staleHits.sum(), cacheStats.misses.sum(),
+                cacheStats.coalesced.sum(), cacheStats.staleOnError.sum());
+    }
+
+    private Mono<AverageGradeResponse> fetchShared(String courseName) {
+        Mono<AverageGradeResponse> existing = inFlightRequests.get(courseName);
+        if (existing != null) {
+            cacheStats.coalesced.increment();
+            return existing;
+        }
+        return inFlightRequests.computeIfAbsent(courseName, this::newSharedFetch);
+    }
+
+    // The entry is released before the result reaches subscribers: a caller arriving after
+    // completion must start a new request instead of getting the finished one replayed.
+    private Mono<AverageGradeResponse> newSharedFetch(String courseName) {
+        AtomicReference<Mono<AverageGradeResponse>> self = new AtomicReference<>();
+        Runnable release = () -> inFlightRequests.remove(courseName, self.get());
+        Mono<AverageGradeResponse> shared = fetchAverageGrade(courseName)
+                .doOnNext(response -> {
+                    responseCache.put(courseName, new CachedResponse(response, System.nanoTime()));
+                    release.run();
+                })
+                .doOnTerminate(release)
+                .doOnCancel(release)
+                .share();
+        self.set(shared);
+        return shared;
+    }
+
+    private Mono<AverageGradeResponse> fetchAverageGrade(String courseName) {
+        log.debug("Requesting average grade for course: {}", courseName);
+
+        return callServiceB(webClient.get()
                 .uri("/api/grades/average/{courseName}", courseName)
                 .retrieve()
-                .bodyToMono(AverageGradeResponse.class)
-                .timeout(Duration.ofSeconds(30))
-                .retryWhen(Retry.backoff(maxRetryAttempts, Duration.ofMillis(initialBackoff))
-                        .maxBackoff(Duration.ofMillis(maxBackoff))
-                        .filter(this::shouldRetry)
-                        .doBeforeRetry(retrySignal -> {
-                            log.warn("Retrying request for course: {} (attempt {}/{}). Reason: {}",
-                                    courseName,
-                                    retrySignal.totalRetries() + 1,
-                                    maxRetryAttempts,
-                                    retrySignal.failure().getMessage());
-                        })
-                        .onRetryExhaustedThrow((retryBackoffSpec, retrySignal) -> {
-                            log.error("Max retry attempts ({}) exceeded for course: {}",
-                                    maxRetryAttempts, courseName);
-                            return new RuntimeException(
-                                    "Failed to fetch average grade after " + maxRetryAttempts + " attempts",
-                                    retrySignal.failure()
-                            );
-                        }))
-                .doOnSuccess(response -> {
-                    log.info("Successfully received response for course: {}. Processing time: {} ms",
+                .bodyToMono(AverageGradeResponse.class), "course: " + courseName, true)
+                // unknown course: not cached, so a course created later is picked up at once
+                .onErrorResume(WebClientResponseException.NotFound.class, error -> Mono.empty())
+                .doOnNext(response -> {
+                    log.debug("Successfully received response for course: {}. Processing time: {} ms",
                             courseName, response.getProcessingTimeMs());
                 })
                 .doOnError(error -> {
@@ -66,7 +193,157 @@ public class GradeClientService {
                 });
     }
 
+    /**
+     * Statistics of several courses in one call to service-b (all courses when the list is
+     * empty). The returned courses also refresh the per-course cache.
+     */
+    public Mono<BatchAverageGradeResponse> getAverageGrades(List<String> courseNames) {
+        log.debug("Requesting average grades for courses: {}", courseNames.isEmpty() ? "all" : courseNames);
+
+        return callServiceB(webClient.get()
+                // URI templates keep the http.client.requests uri tag bounded
+                .uri(courseNames.isEmpty()
+                        ? "/api/grades/average"
+                        : "/api/grades/average?courses={courses}", String.join(",", courseNames))
+                .retrieve()
+                .bodyToMono(BatchAverageGradeResponse.class), "courses: " + courseNames, true)
+                .doOnSuccess(response -> {
+                    log.debug("Successfully received {} courses. Processing time: {} ms",
+                            response.getCourses().size(), response.getProcessingTimeMs());
+                    if (cacheEnabled) {
+                        long now = System.nanoTime();
+                        response.getCourses().forEach(course ->
+                                responseCache.put(course.getCourseName(), new CachedResponse(course, now)));
+                    }
+                })
+                .doOnError(error -> {
+                    log.error("Failed to fetch average grades for courses: {}", courseNames, error);
+                });
+    }
+
+    /** Grade distribution of a course. Empty when the course does not exist. */
+    public Mono<GradeDistributionResponse> getDistribution(String courseName) {
+        return callServiceB(webClient.get()
+                .uri("/api/grades/course/{courseName}/distribution", courseName)
+                .retrieve()
+                .bodyToMono(GradeDistributionResponse.class), "distribution of course: " + courseName, true)
+                .onErrorResume(WebClientResponseException.NotFound.class, error -> Mono.empty());
+    }
+
+    /** Distributions of several courses (all when the list is empty) and of them combined. */
+    public Mono<BatchGradeDistributionResponse> getDistributions(List<String> courseNames) {
+        return callServiceB(webClient.get()
+                .uri(courseNames.isEmpty()
+                        ? "/api/grades/distribution"
+                        : "/api/grades/distribution?courses={courses}", String.join(",", courseNames))
+                .retrieve()
+                .bodyToMono(BatchGradeDistributionResponse.class), "distributions of courses: " + courseNames, true);
+    }
+
+    /**
+     * One page of a course's full ranking; {@code cursor} is the {@code nextCursor} of the
+     * previous page (null for the first). Empty when the course does not exist. Pages are not
+     * cached: a cursor is only meaningful against the current ranking.
+     */
+    public Mono<LeaderboardPage> getLeaderboard(String courseName, String cursor, Integer limit) {
+        return callServiceB(webClient.get()
+                // all parameters always present (blank = default) to keep the uri tag a single template
+                .uri("/api/grades/course/{courseName}/leaderboard?cursor={cursor}&limit={limit}",
+                        courseName, cursor == null ? "" : cursor, limit == null ? "" : limit)
+                .retrieve()
+                .bodyToMono(LeaderboardPage.class), "leaderboard of course: " + courseName, true)
+                .onErrorResume(WebClientResponseException.NotFound.class, error -> Mono.empty())
+                .onErrorMap(WebClientResponseException.BadRequest.class,
+                        error -> new IllegalArgumentException("Invalid leaderboard cursor: " + cursor, error));
+    }
+
+    /**
+     * Proxies service-b's NDJSON stream of a course's students element by element: nothing is
+     * buffered, and demand from our client is passed on to service-b's connection. Empty when
+     * the course does not exist. Retries cover only establishing the stream, never a stream
+     * that has started. Rows may pause for as long as our client does not read, so the stream
+     * gets {@code service-b.timeout.stream-idle} instead of the response timeout.
+     */
+    public Mono<Flux<AverageGradeResponse.StudentGradeInfo>> streamCourseStudents(String courseName) {
+        return callServiceB(webClient.get()
+                .uri("/api/grades/course/{courseName}/students", courseName)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .httpRequest(request -> request.<HttpClientRequest>getNativeRequest().responseTimeout(Duration.ofMillis(streamIdleTimeout)))
+                .retrieve()
+                .toEntityFlux(AverageGradeResponse.StudentGradeInfo.class), "students of course: " + courseName, false)
+                .mapNotNull(ResponseEntity::getBody)
+                .onErrorResume(WebClientResponseException.NotFound.class, error -> Mono.empty());
+    }
+
+    /**
+     * One logical call to service-b: each attempt (optionally hedged) goes through the circuit
+     * breaker with a 30s timeout, and failed attempts are retried with backoff while the retry
+     * budget allows. {@code hedge} is only for idempotent requests whose result is a single value.
+     */
+    private <T> Mono<T> callServiceB(Mono<T> request, String target, boolean hedge) {
+        Mono<T> attempt = circuitBreaker.protect(
+                (hedge ? hedged(request) : request).timeout(Duration.ofSeconds(30)),
+                this::isServiceBFailure);
+        return Mono.defer(() -> {
+            retryBudget.deposit();
+            return attempt.retryWhen(retrySpec(target));
+        });
+    }
+
+    // Sends a second identical request if the first has not answered within the hedging delay;
+    // the first to finish wins and the other is cancelled. Hedges draw on the retry budget.
+    <T> Mono<T> hedged(Mono<T> request) {
+        if (!hedgingEnabled) {
+            return request;
+        }
+        Mono<T> hedgeRequest = Mono.delay(Duration.ofMillis(hedgingDelay))
+                .flatMap(tick -> {
+                    if (!retryBudget.tryWithdraw("hedge")) {
+                        return Mono.never();
+                    }
+                    meterRegistry.counter("grades.client.hedges", "result", "sent").increment();
+                    return request.doOnSuccess(value ->
+                            meterRegistry.counter("grades.client.hedges", "result", "won").increment());
+                });
+        return Mono.firstWithSignal(request, hedgeRequest);
+    }
+
+    private Retry retrySpec(String target) {
+        return Retry.backoff(maxRetryAttempts, Duration.ofMillis(initialBackoff))
+                .maxBackoff(Duration.ofMillis(maxBackoff))
+                .filter(error -> shouldRetry(error) && retryBudget.tryWithdraw("retry"))
+                .doBeforeRetry(retrySignal -> {
+                    meterRegistry.counter("grades.client.retries",
+                            "exception", retrySignal.failure().getClass().getSimpleName()).increment();
+                    log.warn("Retrying request for {} (attempt {}/{}). Reason: {}",
+                            target,
+                            retrySignal.totalRetries() + 1,
+                            maxRetryAttempts,
+                            retrySignal.failure().getMessage());
+                })
+                .onRetryExhaustedThrow((retryBackoffSpec, retrySignal) -> {
+                    meterRegistry.counter("grades.client.retries.exhausted").increment();
+                    log.error("Max retry attempts ({}) exceeded for {}", maxRetryAttempts, target);
+                    return new RuntimeException(
+                            "Failed to fetch average grade after " + maxRetryAttempts + " attempts",
+                            retrySignal.failure()
+                    );
+                });
+    }
+
+    // Outcomes that count against service-b in the circuit breaker; 4xx means it is healthy
+    private boolean isServiceBFailure(Throwable throwable) {
+        return throwable instanceof WebClientRequestException
+                || throwable instanceof TimeoutException
+                || throwable instanceof WebClientResponseException responseException
+                && responseException.getStatusCode().is5xxServerError();
+    }
+
     private boolean shouldRetry(Throwable throwable) {
+        if (throwable instanceof ServiceBUnavailableException) {
+            return false;
+        }
+
         if (throwable instanceof WebClientRequestException) {
             log.warn("Network error occurred, will retry: {}", throwable.getMessage());
             return true;
@@ -74,6 +351,12 @@ public class GradeClientService {
 
         if (throwable instanceof WebClientResponseException responseException) {
             int statusCode = responseException.getStatusCode().value();
+            // shed by service-b's concurrency limiter: retry unless it asks for more than our longest backoff
+            long retryAfter = statusCode == 503 ? retryAfterMillis(responseException) : 0;
+            if (retryAfter > maxBackoff) {
+                log.warn("Service B is overloaded (Retry-After {} ms), will not retry", retryAfter);
+                return false;
+            }
             boolean shouldRetry = statusCode >= 500;
             if (shouldRetry) {
                 log.warn("Server error (status {}), will retry", statusCode);
@@ -87,6 +370,19 @@ public class GradeClientService {
         return false;
     }
 
+    private static long retryAfterMillis(WebClientResponseException responseException) {
+        String retryAfter = responseException.getHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+        if (retryAfter == null) {
+            return 0;
+        }
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException e) {
+            // HTTP-date form, not sent by service-b
+            return 0;
+        }
+    }
+
     public Mono<String> checkServiceBHealth() {
         return webClient.get()
                 .uri("/api/grades/health")
@@ -96,4 +392,29 @@ public class GradeClientService {
                 .doOnSuccess(response -> log.info("Service B health check: OK"))
                 .doOnError(error -> log.error("Service B health check: FAILED", error));
     }
+
+    private record CachedResponse(AverageGradeResponse response, long fetchedAtNanos) {
+    }
+
+    private static class ClientCacheStats {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder staleHits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+        private final LongAdder staleOnError = new LongAdder();
+
+        private void bindTo(MeterRegistry registry) {
+            register(registry, "hit", hits);
+            register(registry, "stale", staleHits);
+            register(registry, "miss", misses);
+            register(registry, "coalesced", coalesced);
+            register(registry, "stale_on_error", staleOnError);
+        }
+
+        private static void register(MeterRegistry registry, String result, LongAdder counter) {
+            FunctionCounter.builder("grades.client.cache.requests", counter, LongAdder::sum)
+                    .tag("result", result)
+                    .register(registry);
+        }
+    }
 }
@@ -0,0 +1,59 @@
+package com.example.client.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Token bucket that caps retries and hedged requests at a fraction of the traffic to
+ * service-b: every original call deposits {@code ratio} tokens (up to {@code max-tokens}),
+ * every extra request takes one. While service-b fails, the calls it receives stay within
+ * {@code 1 + ratio} times the original ones instead of {@code max-attempts} times.
+ */
+@Component
+@RequiredArgsConstructor
+public class RetryBudget {
+    private final MeterRegistry meterRegistry;
+
+    @Value("${service-b.retry.budget.ratio:0.2}")
+    private double ratio;
+
+    @Value("${service-b.retry.budget.max-tokens:20}")
+    private double maxTokens;
+
+    // thousandths of a token, so repeated deposits of the ratio add up exactly
+    private long milliTokens;
+    private long depositMilliTokens;
+    private long maxMilliTokens;
+
+    @PostConstruct
+    void init() {
+        depositMilliTokens = Math.round(ratio * 1000);
+        maxMilliTokens = Math.round(maxTokens * 1000);
+        milliTokens = maxMilliTokens;
+        Gauge.builder("grades.client.retry.budget.tokens", this, RetryBudget::getTokens)
+                .description("Retries and hedges service-a may still send to service-b")
+                .register(meterRegistry);
+    }
+
+    public synchronized void deposit() {
+        milliTokens = Math.min(maxMilliTokens, milliTokens + depositMilliTokens);
+    }
+
+    /** Takes a token for one extra request; false (and counted) when the budget is spent. */
+    public synchronized boolean tryWithdraw(String purpose) {
+        if (milliTokens < 1000) {
+            meterRegistry.counter("grades.client.retry.budget.exhausted", "purpose", purpose).increment();
+            return false;
+        }
+        milliTokens -= 1000;
+        return true;
+    }
+
+    public synchronized double getTokens() {
+        return milliTokens / 1000.0;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.client.service;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/** service-b is not called because the circuit is open; {@code retryAfter} is when it may be tried again. */
+@Getter
+public class ServiceBUnavailableException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public ServiceBUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.client.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CircuitBreakerTest {
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(5);
+
+    private long nanoTime;
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        breaker = new CircuitBreaker(new SimpleMeterRegistry(), () -> nanoTime);
+        ReflectionTestUtils.setField(breaker, "enabled", true);
+        ReflectionTestUtils.setField(breaker, "slidingWindow", 10);
+        ReflectionTestUtils.setField(breaker, "minimumCalls", 4);
+        ReflectionTestUtils.setField(breaker, "failureRateThreshold", 0.5);
+        ReflectionTestUtils.setField(breaker, "openDurationMs", OPEN_DURATION.toMillis());
+        ReflectionTestUtils.setField(breaker, "halfOpenCalls", 3);
+        breaker.init();
+    }
+
+    @Test
+    void staysClosedUntilMinimumCallsAreIn() {
+        fail(3);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        fail(1);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void opensAtTheFailureRateOfTheSlidingWindow() {
+        succeed(6);
+        fail(4);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        // the window now holds 5 successes and 5 failures
+        fail(1);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void errorsThatAreNotFailuresCountAsSuccesses() {
+        for (int i = 0; i < 10; i++) {
+            call(Mono.error(new IllegalArgumentException("404")), error -> false)
+                    .onErrorResume(e -> Mono.empty())
+                    .block();
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void openCircuitFailsFastWithTheRemainingOpenTime() {
+        fail(4);
+        nanoTime += Duration.ofSeconds(2).toNanos();
+        AtomicInteger subscribed = new AtomicInteger();
+
+        assertThatThrownBy(() -> call(Mono.fromCallable(subscribed::incrementAndGet)).block())
+                .isInstanceOfSatisfying(ServiceBUnavailableException.class,
+                        error -> assertThat(error.getRetryAfter()).isEqualTo(Duration.ofSeconds(3)));
+        assertThat(subscribed).hasValue(0);
+    }
+
+    @Test
+    void halfOpenAdmitsExactlyTheConfiguredProbes() {
+        openAndWait();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        List<Disposable> probes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            probes.add(call(Mono.never()).subscribe());
+        }
+        assertThatThrownBy(() -> call(Mono.just(1)).block()).isInstanceOf(ServiceBUnavailableException.class);
+
+        // a cancelled probe gives its permit back
+        probes.get(0).dispose();
+        assertThat(call(Mono.just(1)).block()).isEqualTo(1);
+        probes.forEach(Disposable::dispose);
+    }
+
+    @Test
+    void successfulProbesCloseTheCircuit() {
+        openAndWait();
+        succeed(2);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        succeed(1);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        // the window starts empty: three failures are below the minimum calls
+        fail(3);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void failedProbeOpensTheCircuitForAnotherOpenDuration() {
+        openAndWait();
+        succeed(1);
+        fail(1);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        nanoTime += OPEN_DURATION.toNanos() - 1;
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        nanoTime += 1;
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    }
+
+    @Test
+    void cancelledCallsAreNotCounted() {
+        for (int i = 0; i < 10; i++) {
+            call(Mono.never()).subscribe().dispose();
+        }
+        fail(3);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private void openAndWait() {
+        fail(4);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        nanoTime += OPEN_DURATION.toNanos();
+    }
+
+    private void succeed(int calls) {
+        for (int i = 0; i < calls; i++) {
+            call(Mono.just(1)).block();
+        }
+    }
+
+    private void fail(int calls) {
+        for (int i = 0; i < calls; i++) {
+            call(Mono.<Integer>error(new IllegalStateException("503"))).onErrorResume(e -> Mono.empty()).block();
+        }
+    }
+
+    private <T> Mono<T> call(Mono<T> call) {
+        return call(call, error -> true);
+    }
+
+    private <T> Mono<T> call(Mono<T> call, Predicate<Throwable> isFailure) {
+        return breaker.protect(call, isFailure);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.client.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/** {@link GradeClientService#hedged} on virtual time: Mono.delay and the answers run on the test's clock. */
+class HedgingTest {
+    private static final Duration HEDGING_DELAY = Duration.ofMillis(100);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger sent = new AtomicInteger();
+    private final AtomicBoolean[] cancelled = {new AtomicBoolean(), new AtomicBoolean()};
+    private RetryBudget retryBudget;
+    private GradeClientService service;
+
+    @BeforeEach
+    void setUp() {
+        retryBudget = new RetryBudget(meterRegistry);
+        ReflectionTestUtils.setField(retryBudget, "ratio", 0.2);
+        ReflectionTestUtils.setField(retryBudget, "maxTokens", 1.0);
+        retryBudget.init();
+        service = new GradeClientService(mock(WebClient.class), meterRegistry,
+                new CircuitBreaker(meterRegistry), retryBudget);
+        ReflectionTestUtils.setField(service, "hedgingEnabled", true);
+        ReflectionTestUtils.setField(service, "hedgingDelay", HEDGING_DELAY.toMillis());
+    }
+
+    @Test
+    void fastAnswerSendsNoHedge() {
+        StepVerifier.withVirtualTime(() -> service.hedged(requests(Duration.ofMillis(50), Duration.ofMillis(50))))
+                .thenAwait(Duration.ofMillis(50))
+                .expectNext("request 1")
+                .verifyComplete();
+
+        assertThat(sent).hasValue(1);
+        assertThat(retryBudget.getTokens()).isEqualTo(1.0);
+        assertThat(hedges("sent")).isZero();
+    }
+
+    @Test
+    void slowFirstRequestLosesToTheHedgeAndIsCancelled() {
+        // the first request would answer after 1 s, the hedge 100 ms after being sent
+        StepVerifier.withVirtualTime(() -> service.hedged(requests(Duration.ofSeconds(1), Duration.ofMillis(100))))
+                .thenAwait(HEDGING_DELAY.plusMillis(100))
+                .expectNext("request 2")
+                .verifyComplete();
+
+        assertThat(sent).hasValue(2);
+        assertThat(cancelled[0]).isTrue();
+        assertThat(cancelled[1]).isFalse();
+        assertThat(retryBudget.getTokens()).isZero();
+        assertThat(hedges("sent")).isEqualTo(1);
+        assertThat(hedges("won")).isEqualTo(1);
+    }
+
+    @Test
+    void firstRequestAnsweringAfterTheHedgeWasSentCancelsTheHedge() {
+        StepVerifier.withVirtualTime(() -> service.hedged(requests(Duration.ofMillis(150), Duration.ofSeconds(1))))
+                .thenAwait(Duration.ofMillis(150))
+                .expectNext("request 1")
+                .verifyComplete();
+
+        assertThat(sent).hasValue(2);
+        assertThat(cancelled[1]).isTrue();
+        assertThat(cancelled[0]).isFalse();
+        assertThat(hedges("sent")).isEqualTo(1);
+        assertThat(hedges("won")).isZero();
+    }
+
+    @Test
+    void noHedgeWithoutRetryBudget() {
+        assertThat(retryBudget.tryWithdraw("retry")).isTrue();
+
+        StepVerifier.withVirtualTime(() -> service.hedged(requests(Duration.ofSeconds(1), Duration.ofMillis(1))))
+                .thenAwait(Duration.ofSeconds(1))
+                .expectNext("request 1")
+                .verifyComplete();
+
+        assertThat(sent).hasValue(1);
+        assertThat(hedges("sent")).isZero();
+    }
+
+    // the n-th subscription is the n-th request sent to service-b and answers after latencies[n]
+    private Mono<String> requests(Duration... latencies) {
+        List<Duration> latency = List.of(latencies);
+        return Mono.defer(() -> {
+            int index = sent.getAndIncrement();
+            return Mono.delay(latency.get(index))
+                    .map(tick -> "request " + (index + 1))
+                    .doOnCancel(() -> cancelled[index].set(true));
+        });
+    }
+
+    private double hedges(String result) {
+        return meterRegistry.counter("grades.client.hedges", "result", result).count();
+    }
+}
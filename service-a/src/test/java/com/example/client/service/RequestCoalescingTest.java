@@ -0,0 +1,80 @@
+package com.example.client.service;
+
+import com.example.api.dto.AverageGradeResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Coalescing of concurrent {@link GradeClientService#getAverageGrade} calls, against a stubbed service-b. */
+class RequestCoalescingTest {
+    private final AtomicInteger sent = new AtomicInteger();
+    private final List<Sinks.One<ClientResponse>> pending = new ArrayList<>();
+    private GradeClientService service;
+
+    @BeforeEach
+    void setUp() {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    sent.incrementAndGet();
+                    Sinks.One<ClientResponse> response = Sinks.one();
+                    pending.add(response);
+                    return response.asMono();
+                })
+                .build();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        service = new GradeClientService(webClient, meterRegistry,
+                new CircuitBreaker(meterRegistry), new RetryBudget(meterRegistry));
+        // every call goes to service-b: only coalescing can save a request
+        ReflectionTestUtils.setField(service, "cacheEnabled", false);
+        service.init();
+    }
+
+    @Test
+    void concurrentCallsShareOneRequest() {
+        List<AverageGradeResponse> received = new ArrayList<>();
+        service.getAverageGrade("Mathematics").subscribe(received::add);
+        service.getAverageGrade("Mathematics").subscribe(received::add);
+        assertThat(sent).hasValue(1);
+
+        answer(0, 1);
+
+        assertThat(received).extracting(AverageGradeResponse::getProcessingTimeMs).containsExactly(1L, 1L);
+    }
+
+    @Test
+    void callArrivingAsTheResultIsDeliveredStartsANewRequest() {
+        List<AverageGradeResponse> received = new ArrayList<>();
+        // the second call comes from the first caller's onNext, before the shared request has completed
+        service.getAverageGrade("Mathematics").subscribe(first -> {
+            received.add(first);
+            service.getAverageGrade("Mathematics").subscribe(received::add);
+        });
+
+        answer(0, 1);
+        assertThat(sent).hasValue(2);
+        answer(1, 2);
+
+        assertThat(received).extracting(AverageGradeResponse::getProcessingTimeMs).containsExactly(1L, 2L);
+    }
+
+    private void answer(int request, long processingTimeMs) {
+        pending.get(request).tryEmitValue(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body("{\"courseName\":\"Mathematics\",\"averageGrade\":4.0,\"processingTimeMs\":" + processingTimeMs + "}")
+                .build());
+    }
+}
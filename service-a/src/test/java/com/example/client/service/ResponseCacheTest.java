@@ -0,0 +1,71 @@
+package com.example.client.service;
+
+import com.example.api.dto.AverageGradeResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Bounds of the {@link GradeClientService} response cache, against a stubbed service-b. */
+class ResponseCacheTest {
+    private final AtomicInteger sent = new AtomicInteger();
+    private GradeClientService service;
+
+    @BeforeEach
+    void setUp() {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    sent.incrementAndGet();
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body("{\"courseName\":\"Mathematics\",\"averageGrade\":4.0}")
+                            .build());
+                })
+                .build();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        service = new GradeClientService(webClient, meterRegistry,
+                new CircuitBreaker(meterRegistry), new RetryBudget(meterRegistry));
+        ReflectionTestUtils.setField(service, "cacheEnabled", true);
+        ReflectionTestUtils.setField(service, "cacheTtl", 60_000L);
+        ReflectionTestUtils.setField(service, "staleWhileRevalidate", 0L);
+        ReflectionTestUtils.setField(service, "staleIfError", 0L);
+    }
+
+    @Test
+    void freshEntryIsServedFromTheCache() {
+        ReflectionTestUtils.setField(service, "cacheMaximumSize", 10L);
+        service.init();
+
+        service.getAverageGrade("Mathematics").block();
+        AverageGradeResponse cached = service.getAverageGrade("Mathematics").block();
+
+        assertThat(cached.getCourseName()).isEqualTo("Mathematics");
+        assertThat(sent).hasValue(1);
+        assertThat(service.getCacheStats().getHits()).isEqualTo(1L);
+    }
+
+    @Test
+    void cacheHoldsAtMostMaximumSizeCourses() {
+        ReflectionTestUtils.setField(service, "cacheMaximumSize", 2L);
+        service.init();
+
+        for (int i = 0; i < 50; i++) {
+            service.getAverageGrade("Course " + i).block();
+        }
+
+        // Caffeine evicts on its maintenance cycle: run it before reading the size
+        ((Cache<?, ?>) ReflectionTestUtils.getField(service, "responseCache")).cleanUp();
+        assertThat(service.getCacheStats().getSize()).isLessThanOrEqualTo(2);
+    }
+}
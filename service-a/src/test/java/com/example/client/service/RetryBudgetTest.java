@@ -0,0 +1,82 @@
+package com.example.client.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryBudgetTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RetryBudget budget;
+
+    @BeforeEach
+    void setUp() {
+        budget = new RetryBudget(meterRegistry);
+        ReflectionTestUtils.setField(budget, "ratio", 0.2);
+        ReflectionTestUtils.setField(budget, "maxTokens", 3.0);
+        budget.init();
+    }
+
+    @Test
+    void startsFullAndRunsDry() {
+        assertThat(budget.getTokens()).isEqualTo(3.0);
+        for (int i = 0; i < 3; i++) {
+            assertThat(budget.tryWithdraw("retry")).isTrue();
+        }
+
+        assertThat(budget.tryWithdraw("retry")).isFalse();
+        assertThat(budget.tryWithdraw("hedge")).isFalse();
+        assertThat(meterRegistry.counter("grades.client.retry.budget.exhausted", "purpose", "retry").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("grades.client.retry.budget.exhausted", "purpose", "hedge").count()).isEqualTo(1);
+    }
+
+    @Test
+    void refillsByTheRatioPerOriginalCall() {
+        drain();
+
+        // 0.2 per call: four calls leave the budget just short of one extra request, the fifth completes it
+        for (int i = 0; i < 4; i++) {
+            budget.deposit();
+        }
+        assertThat(budget.tryWithdraw("retry")).isFalse();
+        budget.deposit();
+        assertThat(budget.getTokens()).isEqualTo(1.0);
+        assertThat(budget.tryWithdraw("retry")).isTrue();
+        assertThat(budget.getTokens()).isZero();
+    }
+
+    @Test
+    void refillStopsAtMaxTokens() {
+        drain();
+        for (int i = 0; i < 100; i++) {
+            budget.deposit();
+        }
+
+        assertThat(budget.getTokens()).isEqualTo(3.0);
+    }
+
+    @Test
+    void extraRequestsStayWithinTheRatioOfOriginalCalls() {
+        drain();
+        int extra = 0;
+        for (int call = 0; call < 1000; call++) {
+            budget.deposit();
+            // every original call would like to retry twice
+            for (int retry = 0; retry < 2; retry++) {
+                if (budget.tryWithdraw("retry")) {
+                    extra++;
+                }
+            }
+        }
+
+        assertThat(extra).isEqualTo(200);
+    }
+
+    private void drain() {
+        while (budget.tryWithdraw("retry")) {
+            // empty the bucket
+        }
+    }
+}
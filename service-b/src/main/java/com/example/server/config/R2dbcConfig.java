@@ -0,0 +1,28 @@
+package com.example.server.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Spring Boot skips the JDBC DataSource when an R2DBC ConnectionFactory is present. JPA,
+ * Flyway, bulk ingestion and the NOTIFY listener still need it, so it is declared here
+ * (by {@link ReadReplicaConfig} when a replica is configured).
+ */
+@Configuration
+@Profile("r2dbc")
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class R2dbcConfig {
+
+    @Bean
+    @ConditionalOnExpression("!(" + ReadReplicaConfig.REPLICA_CONFIGURED + ")")
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+}
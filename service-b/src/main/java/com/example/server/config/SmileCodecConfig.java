@@ -0,0 +1,34 @@
+package com.example.server.config;
+
+import com.example.api.GradesMediaTypes;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Smile codecs ({@link GradesMediaTypes#APPLICATION_SMILE_VALUE}) for the controllers, requested by service-a,
+ * built from Boot's Jackson builder so they map DTOs exactly like the JSON codecs. JSON stays
+ * first in the codec list and is what callers get unless they ask for Smile. service-a builds
+ * its Smile codecs the same way, so both ends agree on the wire format.
+ */
+@Configuration
+public class SmileCodecConfig {
+
+    @Bean
+    public CodecCustomizer smileCodecCustomizer(Jackson2ObjectMapperBuilder jacksonObjectMapperBuilder) {
+        ObjectMapper smileMapper = jacksonObjectMapperBuilder.factory(new SmileFactory()).build();
+        // without explicit mime types the codecs would fall back to the JSON ones
+        MimeType smile = MimeTypeUtils.parseMimeType(GradesMediaTypes.APPLICATION_SMILE_VALUE);
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, smile));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, smile));
+        };
+    }
+}
@@ -1,13 +1,41 @@
 package com.example.server.controller;
 
-import com.example.server.dto.AverageGradeResponse;
+import com.example.api.dto.AverageGradeResponse;
+import com.example.api.dto.BatchAverageGradeResponse;
+import com.example.api.dto.BatchGradeDistributionResponse;
+import com.example.api.dto.GradeDistributionResponse;
+import com.example.api.dto.LeaderboardPage;
+import com.example.server.dto.BulkIngestResponse;
+import com.example.server.dto.CacheStatsResponse;
+import com.example.server.dto.StatsConsistencyReport;
+import com.example.server.dto.StudentGradeStats;
+import com.example.server.dto.TimeWindow;
+import com.example.server.service.BlockingCallExecutor;
+import com.example.server.service.CourseCatalog;
+import com.example.server.service.CourseStatisticsCache;
+import com.example.server.service.ExportStreamsExhaustedException;
+import com.example.server.service.GradeBulkIngestService;
+import com.example.server.service.GradeDistributionService;
 import com.example.server.service.GradeService;
+import com.example.server.service.LeaderboardService;
+import com.example.server.service.ReactiveGradeService;
+import com.example.server.service.StatsConsistencyChecker;
+import com.example.server.service.StudentStatisticsExportService;
+import com.example.server.service.WindowedGradeStatisticsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/grades")
@@ -15,16 +43,41 @@ import reactor.core.scheduler.Schedulers;
 @Slf4j
 public class GradeController {
     private final GradeService gradeService;
+    private final BlockingCallExecutor blockingCallExecutor;
+    private final CourseCatalog courseCatalog;
+    private final StatsConsistencyChecker statsConsistencyChecker;
+    private final GradeBulkIngestService gradeBulkIngestService;
+    private final CourseStatisticsCache courseStatisticsCache;
+    private final StudentStatisticsExportService studentStatisticsExportService;
+    private final LeaderboardService leaderboardService;
+    private final GradeDistributionService gradeDistributionService;
+    private final WindowedGradeStatisticsService windowedGradeStatisticsService;
+    private final Optional<ReactiveGradeService> reactiveGradeService;
 
+    /**
+     * Statistics of a course over all its grades, or over those created within a window:
+     * {@code ?from=2025-02-01&to=2025-06-01} (ISO dates or date-times, {@code to} defaults to
+     * now) or {@code ?last=30d}. Windowed statistics have the same fields and bypass the cache.
+     */
     @GetMapping("/average/{courseName}")
     public Mono<ResponseEntity<AverageGradeResponse>> getAverageGrade(
-            @PathVariable String courseName) {
-        log.info("Received request for average grade of course: {}", courseName);
+            @PathVariable String courseName,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String last) {
+        log.debug("Received request for average grade of course: {}", courseName);
 
-        return Mono.fromCallable(() -> gradeService.calculateAverageGradeByCourse(courseName))
-                .subscribeOn(Schedulers.boundedElastic())
+        // unknown names are answered from the catalog, before the cache and the database
+        return Mono.fromCallable(() -> TimeWindow.parse(from, to, last, LocalDateTime.now()))
+                .flatMap(window -> window
+                        .map(w -> windowedGradeStatisticsService.getAverageGrade(courseName, w))
+                        .orElseGet(() -> Mono.justOrEmpty(courseCatalog.findId(courseName))
+                                .flatMap(courseId -> courseStatisticsCache.get(courseName,
+                                        () -> calculateAverageGrade(courseId, courseName)))))
                 .map(ResponseEntity::ok)
-                .doOnSuccess(response -> log.info("Successfully calculated average for course: {}", courseName))
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .doOnSuccess(response -> log.debug("Successfully calculated average for course: {}", courseName))
+                .onErrorResume(IllegalArgumentException.class, error -> Mono.just(ResponseEntity.badRequest().build()))
                 .doOnError(error -> log.error("Error calculating average for course: {}", courseName, error))
                 .onErrorResume(error -> {
                     log.error("Failed to process request for course: {}", courseName, error);
@@ -32,8 +85,178 @@ public class GradeController {
                 });
     }
 
+    // r2dbc profile: end-to-end non-blocking; otherwise JPA on the BlockingCallExecutor
+    private Mono<AverageGradeResponse> calculateAverageGrade(long courseId, String courseName) {
+        return reactiveGradeService
+                .map(service -> service.calculateAverageGradeByCourse(courseId, courseName))
+                .orElseGet(() -> blockingCallExecutor.call(() -> gradeService.calculateAverageGradeByCourse(courseId, courseName))
+                        .flatMap(Mono::justOrEmpty));
+    }
+
+    /**
+     * Statistics of several courses in one response: {@code ?courses=A,B,C}, or every course
+     * when the parameter is omitted.
+     */
+    @GetMapping("/average")
+    public Mono<ResponseEntity<BatchAverageGradeResponse>> getAverageGrades(
+            @RequestParam(required = false) List<String> courses) {
+        List<String> courseNames = courses == null ? List.of() : courses.stream()
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .distinct()
+                .toList();
+        log.debug("Received batch request for average grades of courses: {}",
+                courseNames.isEmpty() ? "all" : courseNames);
+
+        Mono<BatchAverageGradeResponse> batch = reactiveGradeService
+                .map(service -> service.calculateAverageGrades(courseNames))
+                .orElseGet(() -> blockingCallExecutor.call(() -> gradeService.calculateAverageGrades(courseNames)));
+
+        return batch
+                .map(ResponseEntity::ok)
+                .onErrorResume(error -> {
+                    log.error("Failed to process batch request for courses: {}", courseNames, error);
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
+    }
+
+    /**
+     * All students of a course in rank order, as NDJSON ({@code Accept: application/x-ndjson})
+     * or server-sent events ({@code text/event-stream}). Rows are written as they are read
+     * from the database cursor; a slow client slows the cursor down instead of buffering.
+     * {@code from} / {@code to} / {@code last} rank the students by their grades of that window.
+     * 503 with Retry-After while {@code grades.export.max-concurrent-streams} streams are running.
+     */
+    @GetMapping(value = "/course/{courseName}/students",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Mono<ResponseEntity<Flux<StudentGradeStats>>> streamCourseStudents(
+            @PathVariable String courseName,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String last) {
+        return Mono.fromCallable(() -> TimeWindow.parse(from, to, last, LocalDateTime.now()))
+                .flatMap(window -> window
+                        .map(w -> studentStatisticsExportService.streamStudentStatistics(courseName, w))
+                        .orElseGet(() -> studentStatisticsExportService.streamStudentStatistics(courseName)))
+                .map(students -> ResponseEntity.ok(students
+                        .doOnError(error -> !(error instanceof ExportStreamsExhaustedException),
+                                error -> log.error("Student stream failed for course: {}", courseName, error))))
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(IllegalArgumentException.class, error -> Mono.just(ResponseEntity.badRequest().build()))
+                .onErrorResume(error -> {
+                    log.error("Failed to open student stream for course: {}", courseName, error);
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
+    }
+
+    /**
+     * Full ranking of a course, one page at a time: pass the {@code nextCursor} of a page as
+     * {@code cursor} to get the following one. Every page costs the same, however deep.
+     */
+    @GetMapping("/course/{courseName}/leaderboard")
+    public Mono<ResponseEntity<LeaderboardPage>> getLeaderboard(
+            @PathVariable String courseName,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return leaderboardService.getPage(courseName, cursor, limit)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(IllegalArgumentException.class, error -> Mono.just(ResponseEntity.badRequest().build()))
+                .onErrorResume(error -> {
+                    log.error("Failed to read leaderboard of course: {}", courseName, error);
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
+    }
+
+    /**
+     * Grade distribution of a course: median, p10/p90, standard deviation, pass rate and the
+     * number of grades per value, from one 101-bucket histogram. Takes the same window
+     * parameters as the average.
+     */
+    @GetMapping("/course/{courseName}/distribution")
+    public Mono<ResponseEntity<GradeDistributionResponse>> getDistribution(
+            @PathVariable String courseName,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String last) {
+        return Mono.fromCallable(() -> TimeWindow.parse(from, to, last, LocalDateTime.now()))
+                .flatMap(window -> window
+                        .map(w -> windowedGradeStatisticsService.getCourseDistribution(courseName, w))
+                        .orElseGet(() -> gradeDistributionService.getCourseDistribution(courseName)))
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(IllegalArgumentException.class, error -> Mono.just(ResponseEntity.badRequest().build()))
+                .onErrorResume(error -> {
+                    log.error("Failed to calculate grade distribution of course: {}", courseName, error);
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
+    }
+
+    /**
+     * Distributions of several courses ({@code ?courses=A,B,C}, all when omitted) and of all
+     * their grades combined.
+     */
+    @GetMapping("/distribution")
+    public Mono<ResponseEntity<BatchGradeDistributionResponse>> getDistributions(
+            @RequestParam(required = false) List<String> courses) {
+        List<String> courseNames = courses == null ? List.of() : courses.stream()
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .distinct()
+                .toList();
+
+        return gradeDistributionService.getDistributions(courseNames)
+                .map(ResponseEntity::ok)
+                .onErrorResume(error -> {
+                    log.error("Failed to calculate grade distributions of courses: {}", courseNames, error);
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
+    }
+
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public Mono<ResponseEntity<BulkIngestResponse>> bulkIngest(ServerHttpRequest request) {
+        return gradeBulkIngestService.ingest(request.getBody(), request.getHeaders().getContentType())
+                .map(response -> response.getError() == null
+                        ? ResponseEntity.ok(response)
+                        : ResponseEntity.badRequest().body(response));
+    }
+
+    @GetMapping("/stats/consistency")
+    public Mono<ResponseEntity<StatsConsistencyReport>> checkStatsConsistency() {
+        return blockingCallExecutor.call(statsConsistencyChecker::check)
+                .map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/stats/rebuild")
+    public Mono<ResponseEntity<StatsConsistencyReport>> rebuildStats() {
+        log.info("Received request to rebuild grade aggregates");
+
+        return blockingCallExecutor.call(statsConsistencyChecker::rebuild)
+                .map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/cache/stats")
+    public Mono<ResponseEntity<CacheStatsResponse>> cacheStats() {
+        return Mono.just(ResponseEntity.ok(courseStatisticsCache.stats()));
+    }
+
+    @DeleteMapping("/cache")
+    public Mono<ResponseEntity<Void>> clearCache() {
+        courseStatisticsCache.invalidateAll();
+        return Mono.just(ResponseEntity.noContent().build());
+    }
+
     @GetMapping("/health")
     public Mono<ResponseEntity<String>> health() {
         return Mono.just(ResponseEntity.ok("Service B is running"));
     }
+
+    // raised by a student stream before its first row, while the status can still be changed
+    @ExceptionHandler(ExportStreamsExhaustedException.class)
+    public ResponseEntity<Void> exportStreamsExhausted(ExportStreamsExhaustedException error) {
+        log.warn("Rejected student stream: {}", error.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, error.getRetryAfter().toSeconds())))
+                .build();
+    }
 }
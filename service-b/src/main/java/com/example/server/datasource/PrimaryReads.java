@@ -0,0 +1,43 @@
+package com.example.server.datasource;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Marks reads that must see every committed write: {@link ReadWriteRoutingDataSource} sends
+ * their read-only transactions to the primary even while the replica is usable. Cache fills
+ * are such reads, since a value loaded from a replica that has not yet replayed the write
+ * behind an invalidation would be kept for the whole TTL. Reactive callers put
+ * {@link #required()} on the subscriber context; the blocking call that runs the transaction
+ * takes it onto its thread with {@link #call(ContextView, Callable)}.
+ */
+public final class PrimaryReads {
+    private static final String CONTEXT_KEY = PrimaryReads.class.getName();
+    private static final ThreadLocal<Boolean> REQUIRED = new ThreadLocal<>();
+
+    private PrimaryReads() {
+    }
+
+    public static Context required() {
+        return Context.of(CONTEXT_KEY, true);
+    }
+
+    /** Runs {@code call} with primary reads on this thread when {@code context} requires them. */
+    public static <T> T call(ContextView context, Callable<T> call) throws Exception {
+        if (!context.getOrDefault(CONTEXT_KEY, false) || isRequired()) {
+            return call.call();
+        }
+        REQUIRED.set(true);
+        try {
+            return call.call();
+        } finally {
+            REQUIRED.remove();
+        }
+    }
+
+    static boolean isRequired() {
+        return REQUIRED.get() != null;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.server.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+/**
+ * Hands out replica connections to read-only Spring transactions while the replica is usable
+ * ({@link ReplicaLagMonitor}), primary connections to everything else: read-write transactions,
+ * code outside a transaction (Flyway, the columnar engine's snapshot reads, the student
+ * export cursor), read-only transactions that must see every write ({@link PrimaryReads}) and
+ * read-only transactions when the replica is down or lagging. A replica
+ * connection that cannot be obtained falls back to the primary at once, without waiting for
+ * the next lag check.
+ * <p>
+ * The read-only flag is only known once the transaction has begun, so this must sit behind a
+ * LazyConnectionDataSourceProxy, which fetches the target connection at the first statement.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractDataSource {
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaLagMonitor replicaMonitor;
+    private final Counter readWrite;
+    private final Counter primaryRequired;
+    private final Counter readOnlyOnReplica;
+    private final Counter replicaUnavailable;
+    private final Counter replicaLagging;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor replicaMonitor,
+                                      MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.replicaMonitor = replicaMonitor;
+        this.readWrite = routed(meterRegistry, "primary", "read-write");
+        this.primaryRequired = routed(meterRegistry, "primary", "primary-required");
+        this.readOnlyOnReplica = routed(meterRegistry, "replica", "read-only");
+        this.replicaUnavailable = routed(meterRegistry, "primary", "replica-unavailable");
+        this.replicaLagging = routed(meterRegistry, "primary", "replica-lagging");
+    }
+
+    private static Counter routed(MeterRegistry meterRegistry, String pool, String reason) {
+        return Counter.builder("grades.datasource.connections.routed")
+                .description("Connections handed out, by pool and the reason it was chosen")
+                .tag("pool", pool)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    // Hikari pools answer SQLFeatureNotSupportedException here; it is passed on, not taken for a replica failure
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection route(ConnectionSource source) throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            readWrite.increment();
+            return source.from(primary);
+        }
+        if (PrimaryReads.isRequired()) {
+            primaryRequired.increment();
+            return source.from(primary);
+        }
+        switch (replicaMonitor.getStatus()) {
+            case LAGGING -> {
+                replicaLagging.increment();
+                return source.from(primary);
+            }
+            case UNAVAILABLE -> {
+                replicaUnavailable.increment();
+                return source.from(primary);
+            }
+            default -> {
+                try {
+                    Connection connection = source.from(replica);
+                    readOnlyOnReplica.increment();
+                    return connection;
+                } catch (SQLFeatureNotSupportedException e) {
+                    throw e;
+                } catch (SQLException e) {
+                    replicaMonitor.markUnavailable(e);
+                    replicaUnavailable.increment();
+                    return source.from(primary);
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection from(DataSource dataSource) throws SQLException;
+    }
+}
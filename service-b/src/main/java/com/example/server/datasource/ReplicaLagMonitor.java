@@ -0,0 +1,206 @@
+package com.example.server.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides every {@code check-interval} whether read-only transactions may use the replica.
+ * Each check samples the primary's current WAL position, then asks the replica how far it has
+ * replayed. The replay position falls between two samples; interpolating between their times
+ * gives the moment up to which the replica holds the primary's changes, and the lag is the age
+ * of that moment (at least the age of the oldest sample, while it has replayed none). Without
+ * interpolation a replica that keeps up under steady writes would lag a whole check interval.
+ * This needs no clock agreement between the servers and, unlike
+ * pg_last_xact_replay_timestamp(), does not grow while the primary is idle. A stand-in that is
+ * not in recovery (a second independent server, or the primary itself) has no lag.
+ *
+ * <p>A decision holds until the next check, so the check interval has to be shorter than the
+ * tolerated lag.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements SmartLifecycle {
+    private static final String PRIMARY_LSN_SQL = "SELECT pg_current_wal_lsn()::text";
+    // NULL when the server is not a standby
+    private static final String REPLAY_LSN_SQL = "SELECT pg_last_wal_replay_lsn()::text";
+    // one sample per check while the replica replays none of them; the oldest go first
+    private static final int MAX_SAMPLES = 10_000;
+
+    public enum Status { AVAILABLE, LAGGING, UNAVAILABLE }
+
+    private record LsnSample(long nanoTime, long lsn) {
+    }
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final Duration maxLag;
+    private final Duration checkInterval;
+    private final LongSupplier nanoClock;
+    private final Deque<LsnSample> samples = new ArrayDeque<>();
+
+    // unavailable until the first check has reached the replica
+    private volatile Status status = Status.UNAVAILABLE;
+    private volatile double lagSeconds = Double.NaN;
+    private volatile double lagBytes = Double.NaN;
+    private volatile boolean running;
+    private ScheduledExecutorService executor;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, Duration maxLag, Duration checkInterval,
+                             MeterRegistry meterRegistry) {
+        this(primary, replica, maxLag, checkInterval, meterRegistry, System::nanoTime);
+    }
+
+    ReplicaLagMonitor(DataSource primary, DataSource replica, Duration maxLag, Duration checkInterval,
+                      MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        if (checkInterval.isNegative() || checkInterval.isZero() || checkInterval.compareTo(maxLag) >= 0) {
+            throw new IllegalArgumentException("grades.replica.check-interval (" + checkInterval
+                    + ") must be positive and shorter than grades.replica.max-lag (" + maxLag + ")");
+        }
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLag = maxLag;
+        this.checkInterval = checkInterval;
+        this.nanoClock = nanoClock;
+        Gauge.builder("grades.replica.lag", this, monitor -> monitor.lagSeconds)
+                .description("Replication lag of the read replica at the last check")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("grades.replica.lag.bytes", this, monitor -> monitor.lagBytes)
+                .description("WAL the read replica had yet to replay at the last check")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("grades.replica.usable", this, monitor -> monitor.status == Status.AVAILABLE ? 1 : 0)
+                .description("1 while read-only transactions are routed to the replica")
+                .register(meterRegistry);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /** A replica connection failed outside a check: stop routing to it until the next check succeeds. */
+    public void markUnavailable(SQLException cause) {
+        if (status != Status.UNAVAILABLE) {
+            status = Status.UNAVAILABLE;
+            log.warn("Read replica unavailable, reading from the primary: {}", cause.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::check, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Routing read-only transactions to the read replica while it lags less than {}", maxLag);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    void check() {
+        long primaryLsn;
+        try {
+            primaryLsn = parseLsn(queryForString(primary, PRIMARY_LSN_SQL));
+        } catch (SQLException e) {
+            // without the primary nothing can be compared; keep the last decision
+            log.debug("Replica lag check skipped, primary unavailable: {}", e.getMessage());
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        samples.addLast(new LsnSample(now, primaryLsn));
+        if (samples.size() > MAX_SAMPLES) {
+            samples.removeFirst();
+        }
+
+        String replayLsn;
+        try {
+            replayLsn = queryForString(replica, REPLAY_LSN_SQL);
+        } catch (SQLException e) {
+            lagSeconds = Double.NaN;
+            lagBytes = Double.NaN;
+            if (status != Status.UNAVAILABLE) {
+                log.warn("Read replica unavailable, reading from the primary: {}", e.getMessage());
+            }
+            status = Status.UNAVAILABLE;
+            return;
+        }
+
+        Duration lag = replayLsn == null ? Duration.ZERO : lag(parseLsn(replayLsn), now);
+        lagSeconds = lag.toNanos() / 1e9;
+        // pg_wal_lsn_diff(primary, replay)
+        lagBytes = replayLsn == null ? 0 : Math.max(0, primaryLsn - parseLsn(replayLsn));
+        Status checked = lag.compareTo(maxLag) > 0 ? Status.LAGGING : Status.AVAILABLE;
+        if (checked != status) {
+            if (checked == Status.LAGGING) {
+                log.warn("Read replica lags {} (more than {}), reading from the primary", lag, maxLag);
+            } else {
+                log.info("Read replica available (lag {}), routing read-only transactions to it", lag);
+            }
+        }
+        status = checked;
+    }
+
+    // drops the samples before the newest one the replica has replayed, which then comes first
+    private Duration lag(long replayLsn, long now) {
+        LsnSample first = samples.peekFirst();
+        if (replayLsn < first.lsn()) {
+            return Duration.ofNanos(now - first.nanoTime());
+        }
+        LsnSample replayed = samples.pollFirst();
+        while (!samples.isEmpty() && samples.peekFirst().lsn() <= replayLsn) {
+            replayed = samples.pollFirst();
+        }
+        LsnSample next = samples.peekFirst();
+        samples.addFirst(replayed);
+        if (next == null) {
+            return Duration.ofNanos(now - replayed.nanoTime());
+        }
+        // WAL assumed to grow evenly between two samples; next.lsn() > replayLsn >= replayed.lsn()
+        double replayedShare = (double) (replayLsn - replayed.lsn()) / (next.lsn() - replayed.lsn());
+        long replayedUpTo = replayed.nanoTime() + Math.round(replayedShare * (next.nanoTime() - replayed.nanoTime()));
+        return Duration.ofNanos(now - replayedUpTo);
+    }
+
+    private static String queryForString(DataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    // pg_lsn text form: high and low 32 bits in hex, "16/B374D848"
+    static long parseLsn(String lsn) {
+        int slash = lsn.indexOf('/');
+        return (Long.parseLong(lsn.substring(0, slash), 16) << 32) | Long.parseLong(lsn.substring(slash + 1), 16);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkIngestResponse {
+    private String mode;
+    private Long rows;
+    private Integer batches;
+    private Long durationMs;
+    private Double rowsPerSecond;
+    private BatchLatency batchLatency;
+    private String error;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class BatchLatency {
+        private Double minMs;
+        private Double avgMs;
+        private Double p95Ms;
+        private Double maxMs;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheStatsResponse {
+    private boolean enabled;
+    private Long size;
+    private Long hitCount;
+    private Long missCount;
+    private Double hitRate;
+    private Long loadSuccessCount;
+    private Long loadFailureCount;
+    private Long evictionCount;
+    private Long invalidationCount;
+}
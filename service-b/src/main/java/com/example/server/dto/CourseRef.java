@@ -0,0 +1,6 @@
+package com.example.server.dto;
+
+public interface CourseRef {
+    Long getId();
+    String getName();
+}
@@ -0,0 +1,14 @@
+package com.example.server.dto;
+
+public interface CourseStatisticsRow {
+    Long getCourseId();
+    String getCourseName();
+    Double getCourseAverageGrade();
+    Long getCourseGradeCount();
+    Long getCourseStudentCount();
+    Long getStudentRank();
+    Long getStudentId();
+    String getStudentName();
+    Double getAverageGrade();
+    Long getGradeCount();
+}
@@ -0,0 +1,11 @@
+package com.example.server.dto;
+
+public interface CourseStatsMismatch {
+    Long getCourseId();
+    Long getExpectedGradeSum();
+    Long getActualGradeSum();
+    Long getExpectedGradeCount();
+    Long getActualGradeCount();
+    Long getExpectedStudentCount();
+    Long getActualStudentCount();
+}
@@ -0,0 +1,7 @@
+package com.example.server.dto;
+
+public interface GradeHistogramRow {
+    Long getCourseId();
+    Integer getGrade();
+    Long getGradeCount();
+}
@@ -0,0 +1,17 @@
+package com.example.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeRecord {
+    private Long studentId;
+    private Long courseId;
+    private Integer grade;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,9 @@
+package com.example.server.dto;
+
+public interface LeaderboardRow {
+    Long getCourseId();
+    Long getStudentId();
+    String getStudentName();
+    Long getGradeSum();
+    Long getGradeCount();
+}
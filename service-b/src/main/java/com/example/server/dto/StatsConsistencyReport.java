@@ -0,0 +1,20 @@
+package com.example.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StatsConsistencyReport {
+    private boolean consistent;
+    private boolean rebuilt;
+    private List<CourseStatsMismatch> courseMismatches;
+    private Long studentMismatches;
+    private Long processingTimeMs;
+}
@@ -0,0 +1,92 @@
+package com.example.server.dto;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
+/**
+ * Half-open range [from, to) of grades.created_at. Whole days before {@code today} are read
+ * from grade_daily_rollups, the partial days at either end (and today, still being written)
+ * from the raw grades:
+ * <pre>
+ * from ... headEnd | rollupFrom ... rollupTo | tailStart ... to
+ *   raw grades     |   grade_daily_rollups   |   raw grades
+ * </pre>
+ * When the window holds no whole day before today, the rollup part is empty and the head
+ * covers all of it.
+ */
+public record TimeWindow(LocalDateTime from, LocalDateTime to) {
+    // well inside what timestamp columns and the JDBC drivers take
+    private static final int MIN_YEAR = 1;
+    private static final int MAX_YEAR = 9999;
+
+    public TimeWindow {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Time window is empty: from " + from + " is not before to " + to);
+        }
+        if (from.getYear() < MIN_YEAR || to.getYear() > MAX_YEAR) {
+            throw new IllegalArgumentException("Time window must lie within the years " + MIN_YEAR + " to " + MAX_YEAR
+                    + ": from " + from + " to " + to);
+        }
+    }
+
+    /**
+     * Window of the {@code from} / {@code to} request parameters (ISO date or date-time; a
+     * date is its midnight, {@code to} defaults to now) or of {@code last} (a duration such as
+     * {@code 30d} or {@code 12h}, ending now). Empty when none is given.
+     */
+    public static Optional<TimeWindow> parse(String from, String to, String last, LocalDateTime now) {
+        if (last != null) {
+            if (from != null || to != null) {
+                throw new IllegalArgumentException("last cannot be combined with from / to");
+            }
+            Duration duration = DurationStyle.detectAndParse(last);
+            try {
+                return Optional.of(new TimeWindow(now.minus(duration), now));
+            } catch (DateTimeException | ArithmeticException e) {
+                // reaches back beyond LocalDateTime.MIN, e.g. last=9999999999d
+                throw new IllegalArgumentException("last is out of range: " + last, e);
+            }
+        }
+        if (from == null && to == null) {
+            return Optional.empty();
+        }
+        if (from == null) {
+            throw new IllegalArgumentException("to requires from");
+        }
+        return Optional.of(new TimeWindow(parseTime(from), to != null ? parseTime(to) : now));
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        try {
+            return value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Expected an ISO date or date-time: " + value, e);
+        }
+    }
+
+    /** Boundaries of the raw and rollup parts of the window, for the current date {@code today}. */
+    public Parts split(LocalDate today) {
+        LocalDate firstFullDay = from.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? from.toLocalDate()
+                : from.toLocalDate().plusDays(1);
+        LocalDate rollupTo = to.toLocalDate().isBefore(today) ? to.toLocalDate() : today;
+        if (!firstFullDay.isBefore(rollupTo)) {
+            return new Parts(to, rollupTo, rollupTo, to);
+        }
+        return new Parts(firstFullDay.atStartOfDay(), firstFullDay, rollupTo, rollupTo.atStartOfDay());
+    }
+
+    /**
+     * Raw grades in [from, headEnd) and [tailStart, to), rollups of the days in
+     * [rollupFrom, rollupTo); each part may be empty.
+     */
+    public record Parts(LocalDateTime headEnd, LocalDate rollupFrom, LocalDate rollupTo, LocalDateTime tailStart) {
+    }
+}
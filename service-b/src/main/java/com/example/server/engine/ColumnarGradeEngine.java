@@ -0,0 +1,424 @@
+package com.example.server.engine;
+
+import com.example.server.dto.CourseStatisticsRow;
+import com.example.server.notification.PgNotificationListener;
+import com.example.server.repository.GradeColumnReader;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * The grades table held in memory as primitive columns per course ({@link CourseColumns}),
+ * active with the {@code columnar} profile. Course statistics are computed from the columns
+ * on a dedicated fork/join pool instead of being read from the aggregate tables.
+ * <p>
+ * A single updater thread loads every grade at startup and then catches up per course on
+ * grades_changed notifications: rows with ids above the course's highest loaded id are
+ * appended, and the result is compared with the course_stats totals of the same snapshot.
+ * A mismatch (an insert that committed out of id order) reloads the whole course, and so
+ * does a grades_rewritten notification, sent for updates and deletes, which may leave the
+ * totals as they were. Names of ranked students are kept until a students_changed
+ * notification names the student, or until the next full load. Until
+ * the first load finishes {@link #isReady()} is false (gauge {@code grades.engine.ready}); a
+ * failed full load is retried with exponential backoff from
+ * {@code grades.engine.load-retry.initial-backoff} up to {@code max-backoff}. With
+ * {@code grades.partitions.parallelism} above 1 the full load reads that many partitions of
+ * grades at once, in one snapshot.
+ */
+@Component
+// subscribes to notifications before the listener starts, also under lazy initialization
+@Lazy(false)
+@Profile("columnar")
+@Slf4j
+public class ColumnarGradeEngine implements DisposableBean {
+    static final String GRADES_CHANGED_CHANNEL = "grades_changed";
+    static final String GRADES_REWRITTEN_CHANNEL = "grades_rewritten";
+    static final String STUDENTS_CHANGED_CHANNEL = "students_changed";
+    private static final String LOAD_TIMER = "grades.engine.load";
+
+    private final GradeColumnReader reader;
+    private final MeterRegistry meterRegistry;
+    private final ForkJoinPool pool;
+    private final int splitThreshold;
+    private final int fetchSize;
+    private final int partitionParallelism;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final ScheduledExecutorService updater = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "grades-engine-updater");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<Long> pendingCourses = ConcurrentHashMap.newKeySet();
+    private final Set<Long> rewrittenCourses = ConcurrentHashMap.newKeySet();
+    private final List<LongConsumer> courseUpdateHandlers = new CopyOnWriteArrayList<>();
+    private final List<Runnable> reloadHandlers = new CopyOnWriteArrayList<>();
+
+    // written by the updater thread only
+    private Map<Long, CourseColumns.Builder> builders = new HashMap<>();
+    private volatile Map<Long, CourseColumns> courses = new ConcurrentHashMap<>();
+    // student id -> name, replaced with every full load
+    private volatile Map<Long, String> studentNames = new ConcurrentHashMap<>();
+    // bumped by every students_changed: names read while it moved may be older than the change
+    private final AtomicLong studentChanges = new AtomicLong();
+    private volatile boolean ready;
+    // written by the updater thread only: the pending retry of a failed full load and its delay
+    private ScheduledFuture<?> loadRetry;
+    private Duration backoff;
+
+    public ColumnarGradeEngine(@Value("${grades.engine.parallelism:0}") int parallelism,
+                               @Value("${grades.engine.split-threshold:262144}") int splitThreshold,
+                               @Value("${grades.engine.fetch-size:10000}") int fetchSize,
+                               @Value("${grades.partitions.parallelism:1}") int partitionParallelism,
+                               @Value("${grades.engine.load-retry.initial-backoff:1s}") Duration initialBackoff,
+                               @Value("${grades.engine.load-retry.max-backoff:1m}") Duration maxBackoff,
+                               GradeColumnReader reader,
+                               PgNotificationListener notificationListener,
+                               MeterRegistry meterRegistry) {
+        this.reader = reader;
+        this.meterRegistry = meterRegistry;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.splitThreshold = splitThreshold;
+        this.fetchSize = fetchSize;
+        this.partitionParallelism = partitionParallelism;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.backoff = initialBackoff;
+
+        Gauge.builder("grades.engine.rows", this, ColumnarGradeEngine::rowCount)
+                .description("Grades held by the columnar engine")
+                .register(meterRegistry);
+        Gauge.builder("grades.engine.ready", this, engine -> engine.ready ? 1 : 0)
+                .description("1 once the columnar engine has loaded the grades, 0 while statistics come from SQL")
+                .register(meterRegistry);
+
+        notificationListener.subscribe(GRADES_CHANGED_CHANNEL, this::onGradesChanged);
+        notificationListener.subscribe(GRADES_REWRITTEN_CHANNEL, this::onGradesRewritten);
+        notificationListener.subscribe(STUDENTS_CHANGED_CHANNEL, this::onStudentsChanged);
+        // notifications sent while the connection was down are lost
+        notificationListener.onReconnect(() -> updater.execute(this::loadAll));
+        updater.execute(this::loadAll);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Runs on the updater thread after a course's grades have been brought up to date, so
+     * that caches of derived results are not refilled from the columns before they change.
+     */
+    public void onCourseUpdated(LongConsumer handler) {
+        courseUpdateHandlers.add(handler);
+    }
+
+    /** Runs on the updater thread after every course has been (re)loaded. */
+    public void onReload(Runnable handler) {
+        reloadHandlers.add(handler);
+    }
+
+    /**
+     * Rows in the shape of {@code GradeRepository.COURSE_STATISTICS_QUERY}: per course (in
+     * the iteration order of {@code courseIdsByName}) the top {@code topN} students by
+     * average, or a single row with empty student columns when the course has no grades.
+     */
+    public List<CourseStatisticsRow> findCourseStatistics(Map<String, Long> courseIdsByName, int topN) {
+        Map<Long, CourseColumns> snapshot = courses;
+        List<CourseRanking> rankings = new ArrayList<>(courseIdsByName.size());
+        Set<Long> topStudentIds = new HashSet<>();
+        for (Map.Entry<String, Long> course : courseIdsByName.entrySet()) {
+            CourseRanking ranking = rank(course.getValue(), course.getKey(),
+                    snapshot.getOrDefault(course.getValue(), CourseColumns.EMPTY), topN);
+            rankings.add(ranking);
+            for (int i = 0; i < ranking.topCount(); i++) {
+                topStudentIds.add(ranking.topStudentIds()[i]);
+            }
+        }
+
+        Map<Long, String> names = studentNames;
+        topStudentIds.removeAll(names.keySet());
+        if (!topStudentIds.isEmpty()) {
+            long changes = studentChanges.get();
+            Map<Long, String> found = reader.findStudentNames(topStudentIds);
+            if (studentChanges.get() == changes) {
+                names.putAll(found);
+            } else {
+                names = new HashMap<>(names);
+                names.putAll(found);
+            }
+        }
+        List<CourseStatisticsRow> rows = new ArrayList<>();
+        for (CourseRanking ranking : rankings) {
+            ranking.addRows(rows, names);
+        }
+        return rows;
+    }
+
+    /** Number of grades of each value (index = grade) in the course; all zero when it has none. */
+    public long[] findGradeCounts(long courseId, int maxGrade) {
+        CourseColumns columns = courses.getOrDefault(courseId, CourseColumns.EMPTY);
+        long[] counts = new long[maxGrade + 1];
+        short[] grades = columns.grades();
+        for (int i = 0; i < columns.size(); i++) {
+            counts[grades[i]]++;
+        }
+        return counts;
+    }
+
+    private CourseRanking rank(long courseId, String courseName, CourseColumns columns, int topN) {
+        StudentTotalsTask.Totals totals = pool.invoke(new StudentTotalsTask(columns, splitThreshold));
+        long[] sums = totals.sums();
+        int[] counts = totals.counts();
+
+        // worst of the current top N on top of the heap: lowest average, then highest student id
+        Comparator<Integer> worstFirst = Comparator
+                .<Integer>comparingDouble(i -> (double) sums[i] / counts[i])
+                .thenComparing(i -> columns.studentIds()[i], Comparator.reverseOrder());
+        PriorityQueue<Integer> top = new PriorityQueue<>(topN + 1, worstFirst);
+        int studentCount = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            studentCount++;
+            if (topN <= 0) {
+                continue;
+            }
+            top.add(i);
+            if (top.size() > topN) {
+                top.poll();
+            }
+        }
+
+        int topCount = top.size();
+        long[] topStudentIds = new long[topCount];
+        long[] topSums = new long[topCount];
+        int[] topCounts = new int[topCount];
+        for (int rank = topCount - 1; rank >= 0; rank--) {
+            int student = top.poll();
+            topStudentIds[rank] = columns.studentIds()[student];
+            topSums[rank] = sums[student];
+            topCounts[rank] = counts[student];
+        }
+        return new CourseRanking(courseId, courseName, columns.gradeSum(), columns.size(), studentCount,
+                topCount, topStudentIds, topSums, topCounts);
+    }
+
+    // on the listener thread, before later handlers of the channel (cache eviction) run
+    private void onStudentsChanged(String payload) {
+        studentChanges.incrementAndGet();
+        if (payload.isEmpty()) {
+            studentNames = new ConcurrentHashMap<>();
+        } else {
+            studentNames.remove(Long.parseLong(payload));
+        }
+    }
+
+    private void onGradesRewritten(String payload) {
+        // before queueing: a catch-up already queued for the course must see it
+        rewrittenCourses.add(Long.parseLong(payload));
+        onGradesChanged(payload);
+    }
+
+    private void onGradesChanged(String payload) {
+        long courseId = Long.parseLong(payload);
+        // a burst of writes to one course queues a single catch-up
+        if (pendingCourses.add(courseId)) {
+            updater.execute(() -> {
+                pendingCourses.remove(courseId);
+                catchUp(courseId);
+            });
+        }
+    }
+
+    private void loadAll() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Map<Long, CourseColumns.Builder> loaded;
+            if (partitionParallelism > 1) {
+                // a course's grades are all in one partition: the partitions' builders never overlap
+                loaded = new HashMap<>();
+                for (Map<Long, CourseColumns.Builder> partition : reader.inSnapshotPerPartition(
+                        partitionParallelism, fetchSize, (snapshot, name) -> {
+                            CourseBuilders builders = new CourseBuilders();
+                            snapshot.readPartitionGrades(name, builders);
+                            return builders.result;
+                        })) {
+                    loaded.putAll(partition);
+                }
+            } else {
+                loaded = reader.inSnapshot(fetchSize, snapshot -> {
+                    CourseBuilders builders = new CourseBuilders();
+                    snapshot.readAllGrades(builders);
+                    return builders.result;
+                });
+            }
+
+            Map<Long, CourseColumns> published = new ConcurrentHashMap<>(loaded.size() * 2);
+            loaded.forEach((courseId, builder) -> published.put(courseId, builder.build()));
+            builders = loaded;
+            courses = published;
+            studentNames = new ConcurrentHashMap<>();
+            ready = true;
+            long nanos = sample.stop(meterRegistry.timer(LOAD_TIMER, "scope", "all"));
+            log.info("Columnar engine loaded {} grades of {} courses in {} ms",
+                    rowCount(), published.size(), nanos / 1_000_000);
+            backoff = initialBackoff;
+            if (loadRetry != null) {
+                loadRetry.cancel(false);
+                loadRetry = null;
+            }
+            reloadHandlers.forEach(Runnable::run);
+        } catch (SQLException | RuntimeException e) {
+            scheduleLoadRetry(e);
+        }
+    }
+
+    // one retry pending at a time; a load queued meanwhile (reconnect) does not reset the backoff
+    private void scheduleLoadRetry(Exception cause) {
+        if (loadRetry != null) {
+            log.error("Columnar engine failed to load grades; a retry is already scheduled", cause);
+            return;
+        }
+        log.error("Columnar engine failed to load grades, retrying in {}", backoff, cause);
+        try {
+            loadRetry = updater.schedule(() -> {
+                loadRetry = null;
+                loadAll();
+            }, backoff.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignored) {
+            // shutting down
+        }
+        Duration doubled = backoff.multipliedBy(2);
+        backoff = doubled.compareTo(maxBackoff) > 0 ? maxBackoff : doubled;
+    }
+
+    private void catchUp(long courseId) {
+        boolean rewritten = rewrittenCourses.remove(courseId);
+        if (!ready) {
+            // statistics still come from SQL, which already sees the change
+            courseUpdateHandlers.forEach(handler -> handler.accept(courseId));
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            String scope = reader.inSnapshot(fetchSize, snapshot -> {
+                if (!rewritten) {
+                    CourseColumns.Builder builder = builders.computeIfAbsent(courseId, id -> new CourseColumns.Builder());
+                    snapshot.readCourseGradesAfter(courseId, builder.maxGradeId(),
+                            (gradeId, ignored, studentId, grade) -> builder.append(gradeId, studentId, grade));
+
+                    GradeColumnReader.CourseTotals totals = snapshot.readCourseTotals(courseId);
+                    if (totals.gradeCount() == builder.size() && totals.gradeSum() == builder.gradeSum()) {
+                        courses.put(courseId, builder.build());
+                        return "catch-up";
+                    }
+                }
+
+                CourseColumns.Builder reloaded = new CourseColumns.Builder();
+                snapshot.readCourseGrades(courseId,
+                        (gradeId, ignored, studentId, grade) -> reloaded.append(gradeId, studentId, grade));
+                builders.put(courseId, reloaded);
+                courses.put(courseId, reloaded.build());
+                return "course";
+            });
+            sample.stop(meterRegistry.timer(LOAD_TIMER, "scope", scope));
+            log.debug("Columnar engine updated course {} ({})", courseId, scope);
+        } catch (SQLException | RuntimeException e) {
+            // the builder may hold part of the batch: drop the course so the next catch-up reloads it
+            builders.remove(courseId);
+            log.error("Columnar engine failed to update course {}", courseId, e);
+        }
+        courseUpdateHandlers.forEach(handler -> handler.accept(courseId));
+    }
+
+    private long rowCount() {
+        long rows = 0;
+        for (CourseColumns columns : courses.values()) {
+            rows += columns.size();
+        }
+        return rows;
+    }
+
+    @Override
+    public void destroy() {
+        updater.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    private static final class CourseBuilders implements GradeColumnReader.GradeRowHandler {
+        final Map<Long, CourseColumns.Builder> result = new HashMap<>();
+        private CourseColumns.Builder last;
+        private long lastCourseId = -1;
+
+        @Override
+        public void accept(long gradeId, long courseId, long studentId, int grade) {
+            // rows of one course mostly arrive together; skip the map lookup for them
+            if (courseId != lastCourseId) {
+                last = result.computeIfAbsent(courseId, id -> new CourseColumns.Builder());
+                lastCourseId = courseId;
+            }
+            last.append(gradeId, studentId, grade);
+        }
+    }
+
+    private record CourseRanking(long courseId, String courseName, long gradeSum, long gradeCount,
+                                 long studentCount, int topCount, long[] topStudentIds, long[] topSums,
+                                 int[] topCounts) {
+
+        void addRows(List<CourseStatisticsRow> rows, Map<Long, String> names) {
+            double courseAverage = gradeCount == 0 ? 0 : (double) gradeSum / gradeCount;
+            if (topCount == 0) {
+                rows.add(new StatisticsRow(courseId, courseName, courseAverage, gradeCount, studentCount,
+                        null, null, null, null, null));
+                return;
+            }
+            for (int i = 0; i < topCount; i++) {
+                rows.add(new StatisticsRow(courseId, courseName, courseAverage, gradeCount, studentCount,
+                        (long) i + 1, topStudentIds[i], names.get(topStudentIds[i]),
+                        (double) topSums[i] / topCounts[i], (long) topCounts[i]));
+            }
+        }
+    }
+
+    @lombok.Value
+    private static class StatisticsRow implements CourseStatisticsRow {
+        Long courseId;
+        String courseName;
+        Double courseAverageGrade;
+        Long courseGradeCount;
+        Long courseStudentCount;
+        Long studentRank;
+        Long studentId;
+        String studentName;
+        Double averageGrade;
+        Long gradeCount;
+    }
+}
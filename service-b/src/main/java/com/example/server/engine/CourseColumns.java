@@ -0,0 +1,70 @@
+package com.example.server.engine;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Grades of one course as two parallel primitive columns: the student of each grade (as an
+ * index into {@link #studentIds}, dense per course) and the grade itself. Instances are
+ * immutable views; {@link Builder} appends past their {@code size} and publishes a new view,
+ * so readers never see a half-written row and never block the writer.
+ */
+record CourseColumns(int[] students, short[] grades, int size, long[] studentIds, int studentCount,
+                     long gradeSum, long maxGradeId) {
+
+    static final CourseColumns EMPTY = new CourseColumns(new int[0], new short[0], 0, new long[0], 0, 0, 0);
+
+    /** Single-writer builder; every {@link #build()} shares the arrays built so far. */
+    static final class Builder {
+        private int[] students = new int[1024];
+        private short[] grades = new short[1024];
+        private int size;
+        private long[] studentIds = new long[256];
+        private final Map<Long, Integer> studentIndexes = new HashMap<>();
+        private long gradeSum;
+        private long maxGradeId;
+
+        void append(long gradeId, long studentId, int grade) {
+            if (size == grades.length) {
+                int capacity = grades.length + (grades.length >> 1);
+                students = Arrays.copyOf(students, capacity);
+                grades = Arrays.copyOf(grades, capacity);
+            }
+            students[size] = studentIndex(studentId);
+            grades[size] = (short) grade;
+            size++;
+            gradeSum += grade;
+            maxGradeId = Math.max(maxGradeId, gradeId);
+        }
+
+        long gradeSum() {
+            return gradeSum;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long maxGradeId() {
+            return maxGradeId;
+        }
+
+        CourseColumns build() {
+            return new CourseColumns(students, grades, size, studentIds, studentIndexes.size(), gradeSum, maxGradeId);
+        }
+
+        private int studentIndex(long studentId) {
+            Integer index = studentIndexes.get(studentId);
+            if (index == null) {
+                index = studentIndexes.size();
+                if (index == studentIds.length) {
+                    studentIds = Arrays.copyOf(studentIds, studentIds.length * 2);
+                }
+                studentIds[index] = studentId;
+                studentIndexes.put(studentId, index);
+            }
+            return index;
+        }
+    }
+}
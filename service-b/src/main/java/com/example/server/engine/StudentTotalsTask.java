@@ -0,0 +1,64 @@
+package com.example.server.engine;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Per-student grade sums and counts of a course, computed by splitting the grade columns
+ * in halves until a range is at most {@code threshold} rows. Leaves scan their range into
+ * arrays indexed by the course-local student index; siblings are merged by adding them.
+ */
+final class StudentTotalsTask extends RecursiveTask<StudentTotalsTask.Totals> {
+    private final CourseColumns columns;
+    private final int from;
+    private final int to;
+    private final int threshold;
+
+    StudentTotalsTask(CourseColumns columns, int threshold) {
+        this(columns, 0, columns.size(), threshold);
+    }
+
+    private StudentTotalsTask(CourseColumns columns, int from, int to, int threshold) {
+        this.columns = columns;
+        this.from = from;
+        this.to = to;
+        this.threshold = threshold;
+    }
+
+    @Override
+    protected Totals compute() {
+        if (to - from <= threshold) {
+            return scan();
+        }
+        int middle = (from + to) >>> 1;
+        StudentTotalsTask left = new StudentTotalsTask(columns, from, middle, threshold);
+        left.fork();
+        Totals right = new StudentTotalsTask(columns, middle, to, threshold).compute();
+        return left.join().add(right);
+    }
+
+    private Totals scan() {
+        Totals totals = new Totals(columns.studentCount());
+        int[] students = columns.students();
+        short[] grades = columns.grades();
+        for (int i = from; i < to; i++) {
+            int student = students[i];
+            totals.sums[student] += grades[i];
+            totals.counts[student]++;
+        }
+        return totals;
+    }
+
+    record Totals(long[] sums, int[] counts) {
+        Totals(int studentCount) {
+            this(new long[studentCount], new int[studentCount]);
+        }
+
+        Totals add(Totals other) {
+            for (int i = 0; i < sums.length; i++) {
+                sums[i] += other.sums[i];
+                counts[i] += other.counts[i];
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.server.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+@Entity
+@Table(name = "course_stats")
+@Immutable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CourseStats {
+    @Id
+    @Column(name = "course_id")
+    private Long courseId;
+
+    @Column(name = "grade_sum", nullable = false)
+    private Long gradeSum;
+
+    @Column(name = "grade_count", nullable = false)
+    private Long gradeCount;
+
+    @Column(name = "student_count", nullable = false)
+    private Long studentCount;
+}
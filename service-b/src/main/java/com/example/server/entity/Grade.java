@@ -14,7 +14,8 @@ import java.time.LocalDateTime;
 @Builder
 public class Grade {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "grades_id_seq")
+    @SequenceGenerator(name = "grades_id_seq", sequenceName = "grades_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
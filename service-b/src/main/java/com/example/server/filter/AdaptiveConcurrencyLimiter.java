@@ -0,0 +1,73 @@
+package com.example.server.filter;
+
+import java.util.function.LongSupplier;
+
+/**
+ * AIMD limit on concurrent requests. A request finishing within the latency threshold while
+ * the limit was at least half used raises the limit by 1/limit (about +1 per limit's worth of
+ * requests, like TCP congestion avoidance). A request that is slower or fails multiplies it by
+ * the backoff ratio, at most once per threshold interval so that one slow burst does not
+ * collapse the limit to the minimum.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final LongSupplier nanoClock;
+
+    private double limit;
+    private int inFlight;
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      long latencyThresholdNanos, double backoffRatio) {
+        this(initialLimit, minLimit, maxLimit, latencyThresholdNanos, backoffRatio, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos,
+                               double backoffRatio, LongSupplier nanoClock) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.backoffRatio = backoffRatio;
+        this.nanoClock = nanoClock;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.lastDecreaseNanos = nanoClock.getAsLong() - latencyThresholdNanos;
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /** Ends an admitted request and adjusts the limit from its latency and outcome. */
+    public synchronized void release(long latencyNanos, boolean failed) {
+        int inFlightBefore = inFlight--;
+        long now = nanoClock.getAsLong();
+        if (failed || latencyNanos > latencyThresholdNanos) {
+            if (now - lastDecreaseNanos >= latencyThresholdNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecreaseNanos = now;
+            }
+        } else if (inFlightBefore * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    /** Ends an admitted request without a usable sample (the client went away). */
+    public synchronized void releaseIgnored() {
+        inFlight--;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
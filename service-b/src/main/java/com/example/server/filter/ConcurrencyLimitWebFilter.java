@@ -0,0 +1,126 @@
+package com.example.server.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Admission control for /api/**: at most {@link AdaptiveConcurrencyLimiter#getLimit()} requests
+ * run at once, the rest are shed at once with 503 and Retry-After instead of queueing on
+ * boundedElastic and the connection pools. Runs inside LoggingWebFilter, so shed requests are
+ * still access-logged with their request id. Long-lived streams, uploads and the aggregate
+ * rebuild (an operator action that would otherwise shrink the limit for everyone) are excluded.
+ */
+@Component
+@Order(0)
+@RequiredArgsConstructor
+public class ConcurrencyLimitWebFilter implements WebFilter {
+    private final MeterRegistry meterRegistry;
+
+    @Value("${grades.limiter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${grades.limiter.initial-limit:32}")
+    private int initialLimit;
+
+    @Value("${grades.limiter.min-limit:4}")
+    private int minLimit;
+
+    @Value("${grades.limiter.max-limit:256}")
+    private int maxLimit;
+
+    @Value("${grades.limiter.latency-threshold:500ms}")
+    private Duration latencyThreshold;
+
+    @Value("${grades.limiter.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Value("${grades.limiter.retry-after:1s}")
+    private Duration retryAfter;
+
+    @Value("${grades.limiter.exclude:}")
+    private List<String> exclude;
+
+    private AdaptiveConcurrencyLimiter limiter;
+    private List<PathPattern> excludedPatterns;
+    private Counter accepted;
+    private Counter rejected;
+
+    @PostConstruct
+    void init() {
+        limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+                latencyThreshold.toNanos(), backoffRatio);
+        excludedPatterns = exclude.stream()
+                .map(String::trim)
+                .filter(pattern -> !pattern.isEmpty())
+                .map(PathPatternParser.defaultInstance::parse)
+                .toList();
+
+        Gauge.builder("grades.limiter.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("grades.limiter.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Requests currently admitted")
+                .register(meterRegistry);
+        accepted = meterRegistry.counter("grades.limiter.requests", "result", "accepted");
+        rejected = meterRegistry.counter("grades.limiter.requests", "result", "rejected");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!enabled || !isLimited(exchange.getRequest().getPath().pathWithinApplication())) {
+            return chain.filter(exchange);
+        }
+        if (!limiter.tryAcquire()) {
+            rejected.increment();
+            exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+                    String.valueOf(Math.max(1, retryAfter.toSeconds())));
+            return exchange.getResponse().setComplete();
+        }
+
+        accepted.increment();
+        long startNanos = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signalType -> {
+                    if (signalType == SignalType.CANCEL) {
+                        limiter.releaseIgnored();
+                        return;
+                    }
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    boolean failed = signalType == SignalType.ON_ERROR || status != null && status.is5xxServerError();
+                    limiter.release(System.nanoTime() - startNanos, failed);
+                });
+    }
+
+    private boolean isLimited(PathContainer path) {
+        if (!path.value().startsWith("/api/")) {
+            return false;
+        }
+        for (PathPattern pattern : excludedPatterns) {
+            if (pattern.matches(path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
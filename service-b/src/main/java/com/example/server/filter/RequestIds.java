@@ -0,0 +1,44 @@
+package com.example.server.filter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request IDs for the X-Request-ID header: an incoming ID is kept if it looks sane,
+ * otherwise a new one is made from a per-process random prefix and a counter
+ * (one String per request, no formatter).
+ */
+public final class RequestIds {
+
+    public static final String HEADER = "X-Request-ID";
+
+    private static final int MAX_LENGTH = 64;
+    private static final String PREFIX = Integer.toHexString(ThreadLocalRandom.current().nextInt() | 0x10000000) + "-";
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private RequestIds() {
+    }
+
+    public static String fromHeaderOrNew(String header) {
+        return isValid(header) ? header : next();
+    }
+
+    public static String next() {
+        return PREFIX + Long.toString(SEQUENCE.incrementAndGet(), 36);
+    }
+
+    private static boolean isValid(String id) {
+        if (id == null || id.isEmpty() || id.length() > MAX_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            boolean allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.';
+            if (!allowed) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
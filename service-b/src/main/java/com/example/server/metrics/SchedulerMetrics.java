@@ -0,0 +1,66 @@
+package com.example.server.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.function.ToIntFunction;
+
+/**
+ * Load of Schedulers.boundedElastic(), where the blocking JPA/JDBC calls run: busy workers
+ * and tasks queued behind them. Reactor creates one single-thread executor per worker; they
+ * are collected through an executor decorator and summed when the gauges are read.
+ */
+@Component
+public class SchedulerMetrics implements MeterBinder, DisposableBean {
+    private static final String DECORATOR_KEY = SchedulerMetrics.class.getName();
+    private static final String BOUNDED_ELASTIC = "boundedElastic";
+
+    private final Set<ScheduledThreadPoolExecutor> executors = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Schedulers.addExecutorServiceDecorator(DECORATOR_KEY, this::track);
+
+        Gauge.builder("reactor.scheduler.tasks.queued", this, metrics -> metrics.sum(executor -> executor.getQueue().size()))
+                .tag("scheduler", BOUNDED_ELASTIC)
+                .description("Tasks waiting for a busy worker")
+                .register(registry);
+        Gauge.builder("reactor.scheduler.tasks.active", this, metrics -> metrics.sum(ScheduledThreadPoolExecutor::getActiveCount))
+                .tag("scheduler", BOUNDED_ELASTIC)
+                .description("Workers currently running a task")
+                .register(registry);
+        Gauge.builder("reactor.scheduler.workers", this, metrics -> metrics.sum(executor -> 1))
+                .tag("scheduler", BOUNDED_ELASTIC)
+                .description("Live workers (threads) of the scheduler")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        Schedulers.removeExecutorServiceDecorator(DECORATOR_KEY);
+    }
+
+    // Schedulers.boundedElastic() and any Schedulers.newBoundedElastic(...) report as "boundedElastic(...)"
+    private ScheduledExecutorService track(Scheduler scheduler, ScheduledExecutorService executor) {
+        if (executor instanceof ScheduledThreadPoolExecutor pool && scheduler.toString().startsWith(BOUNDED_ELASTIC)) {
+            executors.add(pool);
+        }
+        return executor;
+    }
+
+    private double sum(ToIntFunction<ScheduledThreadPoolExecutor> value) {
+        // idle workers are evicted by Reactor and their executors shut down
+        executors.removeIf(ScheduledThreadPoolExecutor::isShutdown);
+        return executors.stream().mapToInt(value).sum();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.server.migration;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * With {@code grades.migration.deferred=true} (and spring.flyway disabled, as in the fast-start
+ * profile) the Flyway migration runs on a background thread once the application is ready,
+ * instead of before the EntityManagerFactory is built. Only for a database whose current schema
+ * the running code can already serve, e.g. a pending migration that adds an index or a table;
+ * an empty database is migrated with {@link MigrationJob} before the service starts.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DeferredMigration {
+    private final DataSource dataSource;
+
+    @Value("${grades.migration.deferred:false}")
+    private boolean deferred;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (!deferred) {
+            return;
+        }
+        Thread thread = new Thread(this::runMigration, "flyway-deferred");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void runMigration() {
+        long startNanos = System.nanoTime();
+        try {
+            Flyway flyway = Migrations.configure().dataSource(dataSource).load();
+            MigrateResult result = flyway.migrate();
+            log.info("Deferred migration finished in {} ms: {} migrations applied, schema version {}",
+                    (System.nanoTime() - startNanos) / 1_000_000, result.migrationsExecuted,
+                    flyway.info().current().getVersion());
+        } catch (RuntimeException e) {
+            log.error("Deferred migration failed", e);
+        }
+    }
+}
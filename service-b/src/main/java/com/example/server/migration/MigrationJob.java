@@ -0,0 +1,44 @@
+package com.example.server.migration;
+
+import ch.qos.logback.classic.Level;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Migrates the database and exits, without starting the application: the schema step of the
+ * fast-start mode, where service-b itself skips Flyway. Connects with the DB_* environment
+ * variables of application.yml.
+ *
+ * <pre>
+ * java -cp fast-start/service-b-1.0.0-fast-start.jar com.example.server.migration.MigrationJob
+ * java -cp service-b-1.0.0-exec.jar -Dloader.main=com.example.server.migration.MigrationJob \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher
+ * </pre>
+ */
+@Slf4j
+public final class MigrationJob {
+    private MigrationJob() {
+    }
+
+    public static void main(String[] args) {
+        // no logback-spring.xml outside Spring Boot: logback would print Flyway's debug output
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+
+        String url = "jdbc:postgresql://" + env("DB_HOST", "localhost") + ":" + env("DB_PORT", "5432")
+                + "/" + env("DB_NAME", "grades_db");
+        Flyway flyway = Migrations.configure()
+                .dataSource(url, env("DB_USER", "postgres"), env("DB_PASSWORD", "postgres"))
+                .load();
+        MigrateResult result = flyway.migrate();
+        log.info("Migrated {}: {} migrations applied, schema version {}",
+                url, result.migrationsExecuted, flyway.info().current().getVersion());
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.server.migration;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+
+/**
+ * Flyway configured as {@code spring.flyway} in application.yml configures it, for migrations
+ * run outside Spring Boot's auto-configuration. Keep the two in step.
+ */
+final class Migrations {
+    private Migrations() {
+    }
+
+    static FluentConfiguration configure() {
+        return Flyway.configure()
+                .baselineOnMigrate(true)
+                .locations("classpath:db/migration")
+                // V2 (the old seed) was removed; databases that applied it stay valid
+                .ignoreMigrationPatterns("*:missing");
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.server.notification;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Receives PostgreSQL LISTEN/NOTIFY messages on a dedicated connection (outside the Hikari
+ * pool) and dispatches payloads to the handlers of each channel. Handlers must subscribe
+ * during context initialization; reconnect handlers run after a lost connection has been
+ * re-established, since notifications sent in between are lost.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PgNotificationListener implements SmartLifecycle {
+    private final DataSourceProperties dataSourceProperties;
+    private final Map<String, List<Consumer<String>>> handlers = new ConcurrentHashMap<>();
+    private final List<Runnable> reconnectHandlers = new CopyOnWriteArrayList<>();
+
+    @Value("${grades.notifications.poll-timeout:500ms}")
+    private Duration pollTimeout;
+
+    @Value("${grades.notifications.reconnect-delay:5s}")
+    private Duration reconnectDelay;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public void subscribe(String channel, Consumer<String> handler) {
+        handlers.computeIfAbsent(channel, key -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    public void onReconnect(Runnable handler) {
+        reconnectHandlers.add(handler);
+    }
+
+    @Override
+    public void start() {
+        if (handlers.isEmpty()) {
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listen, "pg-notification-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        boolean reconnect = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    for (String channel : handlers.keySet()) {
+                        statement.execute("LISTEN " + channel);
+                    }
+                }
+                log.info("Listening for database notifications on {}", handlers.keySet());
+                if (reconnect) {
+                    reconnectHandlers.forEach(Runnable::run);
+                }
+                reconnect = true;
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollTimeout.toMillis());
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification);
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Notification connection lost, reconnecting in {}: {}", reconnectDelay, e.getMessage());
+                    sleep(reconnectDelay);
+                }
+            }
+        }
+    }
+
+    private void dispatch(PGNotification notification) {
+        log.debug("Notification on {}: {}", notification.getName(), notification.getParameter());
+        for (Consumer<String> handler : handlers.getOrDefault(notification.getName(), List.of())) {
+            try {
+                handler.accept(notification.getParameter());
+            } catch (RuntimeException e) {
+                log.error("Notification handler failed for channel {}", notification.getName(), e);
+            }
+        }
+    }
+
+    private void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
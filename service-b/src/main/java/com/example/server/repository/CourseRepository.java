@@ -1,12 +1,18 @@
 package com.example.server.repository;
 
+import com.example.server.dto.CourseRef;
 import com.example.server.entity.Course;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CourseRepository extends JpaRepository<Course, Long> {
     Optional<Course> findByName(String name);
+
+    @Query("SELECT c.id AS id, c.name AS name FROM Course c")
+    List<CourseRef> findAllRefs();
 }
@@ -0,0 +1,91 @@
+package com.example.server.repository;
+
+import com.example.server.dto.CourseStatsMismatch;
+import com.example.server.entity.CourseStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CourseStatsRepository extends JpaRepository<CourseStats, Long> {
+
+    @Query(value = """
+            SELECT c.id AS "courseId",
+                   COALESCE(l.grade_sum, 0) AS "expectedGradeSum",
+                   cs.grade_sum AS "actualGradeSum",
+                   COALESCE(l.grade_count, 0) AS "expectedGradeCount",
+                   cs.grade_count AS "actualGradeCount",
+                   COALESCE(l.student_count, 0) AS "expectedStudentCount",
+                   cs.student_count AS "actualStudentCount"
+            FROM courses c
+            LEFT JOIN (
+                SELECT course_id,
+                       SUM(grade) AS grade_sum,
+                       COUNT(*) AS grade_count,
+                       COUNT(DISTINCT student_id) AS student_count
+                FROM grades
+                GROUP BY course_id
+            ) l ON l.course_id = c.id
+            LEFT JOIN course_stats cs ON cs.course_id = c.id
+            WHERE COALESCE(l.grade_sum, 0) IS DISTINCT FROM COALESCE(cs.grade_sum, 0)
+               OR COALESCE(l.grade_count, 0) IS DISTINCT FROM COALESCE(cs.grade_count, 0)
+               OR COALESCE(l.student_count, 0) IS DISTINCT FROM COALESCE(cs.student_count, 0)
+            ORDER BY c.id
+            """, nativeQuery = true)
+    List<CourseStatsMismatch> findCourseStatsMismatches();
+
+    @Query(value = """
+            SELECT COUNT(*)
+            FROM (
+                SELECT course_id, student_id, SUM(grade) AS grade_sum, COUNT(*) AS grade_count
+                FROM grades
+                GROUP BY course_id, student_id
+            ) l
+            FULL JOIN student_course_stats scs
+                ON scs.course_id = l.course_id AND scs.student_id = l.student_id
+            WHERE l.grade_sum IS DISTINCT FROM scs.grade_sum
+               OR l.grade_count IS DISTINCT FROM scs.grade_count
+            """, nativeQuery = true)
+    Long countStudentCourseStatsMismatches();
+
+    // GROUP BY course_id over the hash-partitioned grades: aggregate each partition on its own
+    // (smaller hash tables, Parallel Append across partitions) instead of the whole table at once
+    @Modifying
+    @Query(value = "SET LOCAL enable_partitionwise_aggregate = on", nativeQuery = true)
+    void enablePartitionwiseAggregate();
+
+    // Blocks grade writes (and their triggers) until the rebuilding transaction commits
+    @Modifying
+    @Query(value = "LOCK TABLE grades IN SHARE MODE", nativeQuery = true)
+    void lockGrades();
+
+    @Modifying
+    @Query(value = "DELETE FROM student_course_stats", nativeQuery = true)
+    void deleteAllStudentCourseStats();
+
+    @Modifying
+    @Query(value = "DELETE FROM course_stats", nativeQuery = true)
+    void deleteAllCourseStats();
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO student_course_stats (course_id, student_id, grade_sum, grade_count)
+            SELECT course_id, student_id, SUM(grade), COUNT(*)
+            FROM grades
+            GROUP BY course_id, student_id
+            """, nativeQuery = true)
+    int rebuildStudentCourseStats();
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO course_stats (course_id, grade_sum, grade_count, student_count)
+            SELECT c.id, COALESCE(SUM(scs.grade_sum), 0), COALESCE(SUM(scs.grade_count), 0), COUNT(scs.student_id)
+            FROM courses c
+            LEFT JOIN student_course_stats scs ON scs.course_id = c.id
+            GROUP BY c.id
+            """, nativeQuery = true)
+    int rebuildCourseStats();
+}
@@ -0,0 +1,209 @@
+package com.example.server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Raw grade rows for the columnar engine, read over plain JDBC so that millions of rows are
+ * never materialized as entities. Everything read inside one {@link #inSnapshot} call sees
+ * the same REPEATABLE READ snapshot, which lets the engine compare what it loaded with the
+ * course_stats totals of that same instant. {@link #inSnapshotPerPartition} reads the
+ * partitions of grades on several connections that all import that one snapshot.
+ */
+@Repository
+@RequiredArgsConstructor
+public class GradeColumnReader {
+    private static final String ALL_GRADES_SQL = "SELECT id, course_id, student_id, grade FROM grades";
+    private static final String PARTITION_GRADES_SQL = "SELECT id, course_id, student_id, grade FROM %s";
+    // id range scan on the primary key: cheap when catching up on the latest inserts
+    private static final String COURSE_GRADES_AFTER_SQL =
+            "SELECT id, course_id, student_id, grade FROM grades WHERE id > ? AND course_id = ?";
+    private static final String COURSE_GRADES_SQL =
+            "SELECT id, course_id, student_id, grade FROM grades WHERE course_id = ?";
+    private static final String COURSE_TOTALS_SQL =
+            "SELECT grade_sum, grade_count FROM course_stats WHERE course_id = ?";
+    private static final String STUDENT_NAMES_SQL = "SELECT id, name FROM students WHERE id IN (:ids)";
+
+    private final DataSource dataSource;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final GradePartitions gradePartitions;
+
+    @FunctionalInterface
+    public interface GradeRowHandler {
+        void accept(long gradeId, long courseId, long studentId, int grade);
+    }
+
+    @FunctionalInterface
+    public interface SnapshotCallback<T> {
+        T doInSnapshot(Snapshot snapshot) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface PartitionCallback<T> {
+        T doInPartition(Snapshot snapshot, String partition) throws SQLException;
+    }
+
+    /** Grade sum and count of a course from course_stats; zero when it has no grades. */
+    public record CourseTotals(long gradeSum, long gradeCount) {
+    }
+
+    public <T> T inSnapshot(int fetchSize, SnapshotCallback<T> callback) throws SQLException {
+        return inSnapshot(null, fetchSize, callback);
+    }
+
+    /**
+     * Runs the callback once per partition of grades, on up to {@code parallelism} connections
+     * at a time (plus the one holding the snapshot), and returns the results in partition
+     * order. Every connection imports the snapshot of one REPEATABLE READ transaction
+     * (pg_export_snapshot), so together they see the table as of a single instant.
+     */
+    public <T> List<T> inSnapshotPerPartition(int parallelism, int fetchSize, PartitionCallback<T> callback)
+            throws SQLException {
+        List<String> partitions = gradePartitions.names();
+        return inSnapshot(fetchSize, snapshot -> {
+            String snapshotId = snapshot.export();
+            ExecutorService readers = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, partitions.size())),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "grades-partition-reader");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            try {
+                List<Future<T>> reads = new ArrayList<>(partitions.size());
+                for (String partition : partitions) {
+                    reads.add(readers.submit(() -> inSnapshot(snapshotId, fetchSize,
+                            imported -> callback.doInPartition(imported, partition))));
+                }
+                List<T> results = new ArrayList<>(partitions.size());
+                for (Future<T> read : reads) {
+                    results.add(read.get());
+                }
+                return results;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while reading grade partitions", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof SQLException sqlException) {
+                    throw sqlException;
+                }
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IllegalStateException("Reading grade partitions failed", e.getCause());
+            } finally {
+                readers.shutdownNow();
+            }
+        });
+    }
+
+    private <T> T inSnapshot(String importedSnapshotId, int fetchSize, SnapshotCallback<T> callback)
+            throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try {
+                if (importedSnapshotId != null) {
+                    try (PreparedStatement statement = connection.prepareStatement(
+                            "SET TRANSACTION SNAPSHOT '" + importedSnapshotId.replace("'", "''") + "'")) {
+                        statement.execute();
+                    }
+                }
+                return callback.doInSnapshot(new Snapshot(connection, fetchSize, gradePartitions));
+            } finally {
+                connection.rollback();
+                connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+                connection.setReadOnly(false);
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    public Map<Long, String> findStudentNames(Collection<Long> studentIds) {
+        Map<Long, String> names = new HashMap<>(studentIds.size() * 2);
+        if (!studentIds.isEmpty()) {
+            jdbcTemplate.query(STUDENT_NAMES_SQL, Map.of("ids", studentIds),
+                    (RowCallbackHandler) rs -> names.put(rs.getLong(1), rs.getString(2)));
+        }
+        return names;
+    }
+
+    @RequiredArgsConstructor
+    public static final class Snapshot {
+        private final Connection connection;
+        private final int fetchSize;
+        private final GradePartitions gradePartitions;
+
+        public void readAllGrades(GradeRowHandler handler) throws SQLException {
+            try (PreparedStatement statement = connection.prepareStatement(ALL_GRADES_SQL)) {
+                read(statement, handler);
+            }
+        }
+
+        public void readPartitionGrades(String partition, GradeRowHandler handler) throws SQLException {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    String.format(PARTITION_GRADES_SQL, gradePartitions.checkName(partition)))) {
+                read(statement, handler);
+            }
+        }
+
+        public void readCourseGrades(long courseId, GradeRowHandler handler) throws SQLException {
+            try (PreparedStatement statement = connection.prepareStatement(COURSE_GRADES_SQL)) {
+                statement.setLong(1, courseId);
+                read(statement, handler);
+            }
+        }
+
+        public void readCourseGradesAfter(long courseId, long afterGradeId, GradeRowHandler handler)
+                throws SQLException {
+            try (PreparedStatement statement = connection.prepareStatement(COURSE_GRADES_AFTER_SQL)) {
+                statement.setLong(1, afterGradeId);
+                statement.setLong(2, courseId);
+                read(statement, handler);
+            }
+        }
+
+        public CourseTotals readCourseTotals(long courseId) throws SQLException {
+            try (PreparedStatement statement = connection.prepareStatement(COURSE_TOTALS_SQL)) {
+                statement.setLong(1, courseId);
+                try (ResultSet rs = statement.executeQuery()) {
+                    return rs.next() ? new CourseTotals(rs.getLong(1), rs.getLong(2)) : new CourseTotals(0, 0);
+                }
+            }
+        }
+
+        String export() throws SQLException {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT pg_export_snapshot()");
+                 ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getString(1);
+            }
+        }
+
+        private void read(PreparedStatement statement, GradeRowHandler handler) throws SQLException {
+            statement.setFetchSize(fetchSize);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    handler.accept(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getInt(4));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.server.repository;
+
+import com.example.server.dto.GradeHistogramRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * The partitions of grades (V8__partition_grades.sql), for all-courses aggregations that read
+ * them one statement per partition on several connections at once instead of one statement
+ * over the whole table. grades is hash-partitioned by course_id, so all grades of a course
+ * are in one partition and per-partition results are combined without merging any course.
+ */
+@Repository
+@RequiredArgsConstructor
+public class GradePartitions {
+    // regclass::text is quoted (and schema-qualified when needed), ready for use in SQL
+    private static final String PARTITIONS_SQL = """
+            SELECT i.inhrelid::regclass::text
+            FROM pg_inherits i
+            WHERE i.inhparent = 'grades'::regclass
+            ORDER BY 1
+            """;
+    // GradeRepository.GRADE_HISTOGRAM_QUERY for every course of one partition
+    private static final String PARTITION_HISTOGRAM_SQL =
+            "SELECT course_id, grade, COUNT(*) FROM %s GROUP BY course_id, grade";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile List<String> names;
+
+    /**
+     * Read once: partitions only change with a migration. Just grades when the table is not
+     * partitioned, so per-partition reads fall back to one statement over the whole table.
+     */
+    public List<String> names() {
+        List<String> partitions = names;
+        if (partitions == null) {
+            partitions = List.copyOf(jdbcTemplate.queryForList(PARTITIONS_SQL, String.class));
+            if (partitions.isEmpty()) {
+                partitions = List.of("grades");
+            }
+            names = partitions;
+        }
+        return partitions;
+    }
+
+    public List<GradeHistogramRow> findGradeHistograms(String partition) {
+        return jdbcTemplate.query(String.format(PARTITION_HISTOGRAM_SQL, checkName(partition)),
+                (rs, rowNum) -> new HistogramRow(rs.getLong(1), rs.getInt(2), rs.getLong(3)));
+    }
+
+    // partition names end up in SQL text: only accept those read from the catalog
+    String checkName(String partition) {
+        if (!names().contains(partition)) {
+            throw new IllegalArgumentException("Not a partition of grades: " + partition);
+        }
+        return partition;
+    }
+
+    @lombok.Value
+    private static class HistogramRow implements GradeHistogramRow {
+        Long courseId;
+        Integer grade;
+        Long gradeCount;
+    }
+}
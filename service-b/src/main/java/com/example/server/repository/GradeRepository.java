@@ -1,12 +1,16 @@
 package com.example.server.repository;
 
-import com.example.server.dto.StudentGradeStats;
+import com.example.server.dto.CourseStatisticsRow;
+import com.example.server.dto.GradeHistogramRow;
+import com.example.server.dto.LeaderboardRow;
 import com.example.server.entity.Grade;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,22 +18,219 @@ public interface GradeRepository extends JpaRepository<Grade, Long> {
     List<Grade> findByStudentId(Long studentId);
     List<Grade> findByCourseId(Long courseId);
 
-    @Query("SELECT new com.example.server.dto.StudentGradeStats(" +
-           "s.id, s.name, AVG(g.grade), COUNT(g)) " +
-           "FROM Grade g " +
-           "JOIN g.student s " +
-           "JOIN g.course c " +
-           "WHERE c.name = :courseName " +
-           "GROUP BY s.id, s.name " +
-           "ORDER BY AVG(g.grade) DESC")
-    List<StudentGradeStats> findStudentStatsByCourseName(@Param("courseName") String courseName);
+    // Course totals (O(1) from course_stats) and the top-N students (index scan on
+    // idx_student_course_stats_leaderboard) per course in one statement. Courses are selected by
+    // id (names are resolved by CourseCatalog). A course without grades
+    // yields a single row with empty student columns. Shared with ReactiveCourseStatisticsRepository.
+    // Student names here and below come from a correlated subquery rather than a join: once a
+    // prepared statement switches to a generic plan the LIMIT is unknown, and the planner would
+    // hash-join the whole students table for a few dozen rows.
+    String COURSE_STATISTICS_SELECT = """
+            SELECT c.id AS "courseId",
+                   c.name AS "courseName",
+                   COALESCE(CAST(cs.grade_sum AS float8) / NULLIF(cs.grade_count, 0), 0) AS "courseAverageGrade",
+                   COALESCE(cs.grade_count, 0) AS "courseGradeCount",
+                   COALESCE(cs.student_count, 0) AS "courseStudentCount",
+                   t.student_rank AS "studentRank",
+                   t.student_id AS "studentId",
+                   (SELECT s.name FROM students s WHERE s.id = t.student_id) AS "studentName",
+                   t.average_grade AS "averageGrade",
+                   t.grade_count AS "gradeCount"
+            FROM courses c
+            LEFT JOIN course_stats cs ON cs.course_id = c.id
+            LEFT JOIN LATERAL (
+                SELECT scs.student_id,
+                       CAST(scs.grade_sum AS float8) / scs.grade_count AS average_grade,
+                       scs.grade_count,
+                       ROW_NUMBER() OVER (ORDER BY CAST(scs.grade_sum AS float8) / scs.grade_count DESC,
+                                                   scs.student_id) AS student_rank
+                FROM student_course_stats scs
+                WHERE scs.course_id = c.id
+                ORDER BY CAST(scs.grade_sum AS float8) / scs.grade_count DESC, scs.student_id
+                LIMIT :topN
+            ) t ON true
+            """;
 
-    @Query("SELECT AVG(g.grade) FROM Grade g JOIN g.course c WHERE c.name = :courseName")
-    Double findAverageGradeByCourseName(@Param("courseName") String courseName);
+    String COURSE_STATISTICS_QUERY = COURSE_STATISTICS_SELECT + """
+            WHERE c.id = :courseId
+            ORDER BY t.student_rank
+            """;
 
-    @Query("SELECT COUNT(g) FROM Grade g JOIN g.course c WHERE c.name = :courseName")
-    Long countByCourseName(@Param("courseName") String courseName);
+    // Rows are grouped by course (ordered by name), each group ordered by rank
+    String COURSES_STATISTICS_QUERY = COURSE_STATISTICS_SELECT + """
+            WHERE c.id IN (:courseIds)
+            ORDER BY c.name, t.student_rank
+            """;
 
-    @Query("SELECT COUNT(DISTINCT g.student.id) FROM Grade g JOIN g.course c WHERE c.name = :courseName")
-    Long countDistinctStudentsByCourseName(@Param("courseName") String courseName);
+    String ALL_COURSES_STATISTICS_QUERY = COURSE_STATISTICS_SELECT + """
+            ORDER BY c.name, t.student_rank
+            """;
+
+    // Every student of a course in rank order, read through a cursor (StudentStatisticsCursorReader,
+    // ReactiveCourseStatisticsRepository). Walks idx_student_course_stats_leaderboard, so rows arrive
+    // without a sort and the first ones are sent before the rest are read.
+    String COURSE_STUDENTS_QUERY = """
+            SELECT scs.student_id AS "studentId",
+                   (SELECT s.name FROM students s WHERE s.id = scs.student_id) AS "studentName",
+                   CAST(scs.grade_sum AS float8) / scs.grade_count AS "averageGrade",
+                   scs.grade_count AS "gradeCount"
+            FROM student_course_stats scs
+            WHERE scs.course_id = :courseId
+            ORDER BY CAST(scs.grade_sum AS float8) / scs.grade_count DESC, scs.student_id
+            """;
+
+    // COURSE_STUDENTS_QUERY limited to grades created in [from, to): aggregated from the raw
+    // grades of the window over idx_grades_course_created (the aggregate tables hold all-time
+    // totals), so the rows are sorted before the first one is sent
+    String COURSE_STUDENTS_WINDOW_QUERY = """
+            SELECT w.student_id AS "studentId",
+                   (SELECT s.name FROM students s WHERE s.id = w.student_id) AS "studentName",
+                   CAST(w.grade_sum AS float8) / w.grade_count AS "averageGrade",
+                   w.grade_count AS "gradeCount"
+            FROM (
+                SELECT g.student_id, SUM(g.grade) AS grade_sum, COUNT(*) AS grade_count
+                FROM grades g
+                WHERE g.course_id = :courseId AND g.created_at >= :from AND g.created_at < :to
+                GROUP BY g.student_id
+            ) w
+            ORDER BY CAST(w.grade_sum AS float8) / w.grade_count DESC, w.student_id
+            """;
+
+    // COURSE_STATISTICS_QUERY over the grades created in [from, to): totals, student count and
+    // top-N students of one course from a single pass over the window's raw grades
+    // (idx_grades_course_created), since the aggregate tables and daily rollups cannot count
+    // distinct students of a window. Same row shape, so GradeService maps both.
+    String COURSE_WINDOW_STATISTICS_QUERY = """
+            WITH w AS (
+                SELECT g.student_id, SUM(g.grade) AS grade_sum, COUNT(*) AS grade_count
+                FROM grades g
+                WHERE g.course_id = :courseId AND g.created_at >= :from AND g.created_at < :to
+                GROUP BY g.student_id
+            ),
+            totals AS (
+                SELECT SUM(w.grade_sum) AS grade_sum, COALESCE(SUM(w.grade_count), 0) AS grade_count,
+                       COUNT(*) AS student_count
+                FROM w
+            )
+            SELECT c.id AS "courseId",
+                   c.name AS "courseName",
+                   COALESCE(CAST(tt.grade_sum AS float8) / NULLIF(tt.grade_count, 0), 0) AS "courseAverageGrade",
+                   CAST(tt.grade_count AS bigint) AS "courseGradeCount",
+                   tt.student_count AS "courseStudentCount",
+                   t.student_rank AS "studentRank",
+                   t.student_id AS "studentId",
+                   (SELECT s.name FROM students s WHERE s.id = t.student_id) AS "studentName",
+                   t.average_grade AS "averageGrade",
+                   t.grade_count AS "gradeCount"
+            FROM courses c
+            CROSS JOIN totals tt
+            LEFT JOIN LATERAL (
+                SELECT w.student_id,
+                       CAST(w.grade_sum AS float8) / w.grade_count AS average_grade,
+                       w.grade_count,
+                       ROW_NUMBER() OVER (ORDER BY CAST(w.grade_sum AS float8) / w.grade_count DESC,
+                                                   w.student_id) AS student_rank
+                FROM w
+                ORDER BY CAST(w.grade_sum AS float8) / w.grade_count DESC, w.student_id
+                LIMIT :topN
+            ) t ON true
+            WHERE c.id = :courseId
+            ORDER BY t.student_rank
+            """;
+
+    // Leaderboard pages in rank order with keyset (seek) pagination: the next page starts after
+    // the last row's (average, student_id) instead of skipping OFFSET rows. The two branches
+    // of the next-page query are both exact index seeks on idx_student_course_stats_leaderboard
+    // (rest of the tie group, then lower averages), so a deep page costs the same as the first.
+    // A course without students yields one row with empty student columns.
+    String LEADERBOARD_SELECT = """
+            SELECT c.id AS "courseId",
+                   t.student_id AS "studentId",
+                   (SELECT s.name FROM students s WHERE s.id = t.student_id) AS "studentName",
+                   t.grade_sum AS "gradeSum",
+                   t.grade_count AS "gradeCount"
+            FROM courses c
+            LEFT JOIN LATERAL (
+            """;
+
+    String LEADERBOARD_ORDER = """
+            ) t ON true
+            WHERE c.id = :courseId
+            ORDER BY CAST(t.grade_sum AS float8) / t.grade_count DESC, t.student_id
+            """;
+
+    String LEADERBOARD_FIRST_PAGE_QUERY = LEADERBOARD_SELECT + """
+                SELECT scs.student_id, scs.grade_sum, scs.grade_count
+                FROM student_course_stats scs
+                WHERE scs.course_id = c.id
+                ORDER BY CAST(scs.grade_sum AS float8) / scs.grade_count DESC, scs.student_id
+                LIMIT :limit
+            """ + LEADERBOARD_ORDER;
+
+    String LEADERBOARD_NEXT_PAGE_QUERY = LEADERBOARD_SELECT + """
+                SELECT p.student_id, p.grade_sum, p.grade_count
+                FROM (
+                    (SELECT scs.student_id, scs.grade_sum, scs.grade_count
+                     FROM student_course_stats scs
+                     WHERE scs.course_id = c.id
+                       AND CAST(scs.grade_sum AS float8) / scs.grade_count
+                           = CAST(:afterGradeSum AS float8) / :afterGradeCount
+                       AND scs.student_id > :afterStudentId
+                     ORDER BY scs.student_id
+                     LIMIT :limit)
+                    UNION ALL
+                    (SELECT scs.student_id, scs.grade_sum, scs.grade_count
+                     FROM student_course_stats scs
+                     WHERE scs.course_id = c.id
+                       AND CAST(scs.grade_sum AS float8) / scs.grade_count
+                           < CAST(:afterGradeSum AS float8) / :afterGradeCount
+                     ORDER BY CAST(scs.grade_sum AS float8) / scs.grade_count DESC, scs.student_id
+                     LIMIT :limit)
+                ) p
+                ORDER BY CAST(p.grade_sum AS float8) / p.grade_count DESC, p.student_id
+                LIMIT :limit
+            """ + LEADERBOARD_ORDER;
+
+    // Grade histogram of each course: at most 101 rows per course (grades are 0..100), from
+    // which GradeHistogram derives percentiles and the distribution without sorting any rows.
+    // grades is hash-partitioned by course_id (V8): filtering on course_id itself, not on a
+    // joined courses.name, lets PostgreSQL read only the partitions of the listed courses,
+    // with a generic plan too (run-time pruning), and use their (course_id, grade) index.
+    String GRADE_HISTOGRAM_QUERY = """
+            SELECT g.course_id AS "courseId", g.grade AS "grade", COUNT(*) AS "gradeCount"
+            FROM grades g
+            WHERE g.course_id IN (:courseIds)
+            GROUP BY g.course_id, g.grade
+            """;
+
+    @Query(value = COURSE_STATISTICS_QUERY, nativeQuery = true)
+    List<CourseStatisticsRow> findCourseStatisticsByCourseId(@Param("courseId") long courseId,
+                                                             @Param("topN") int topN);
+
+    @Query(value = COURSE_WINDOW_STATISTICS_QUERY, nativeQuery = true)
+    List<CourseStatisticsRow> findCourseStatisticsInWindow(@Param("courseId") long courseId,
+                                                           @Param("from") LocalDateTime from,
+                                                           @Param("to") LocalDateTime to,
+                                                           @Param("topN") int topN);
+
+    @Query(value = COURSES_STATISTICS_QUERY, nativeQuery = true)
+    List<CourseStatisticsRow> findCourseStatisticsByCourseIds(@Param("courseIds") Collection<Long> courseIds,
+                                                              @Param("topN") int topN);
+
+    @Query(value = ALL_COURSES_STATISTICS_QUERY, nativeQuery = true)
+    List<CourseStatisticsRow> findAllCourseStatistics(@Param("topN") int topN);
+
+    @Query(value = GRADE_HISTOGRAM_QUERY, nativeQuery = true)
+    List<GradeHistogramRow> findGradeHistograms(@Param("courseIds") Collection<Long> courseIds);
+
+    @Query(value = LEADERBOARD_FIRST_PAGE_QUERY, nativeQuery = true)
+    List<LeaderboardRow> findLeaderboardFirstPage(@Param("courseId") long courseId,
+                                                  @Param("limit") int limit);
+
+    @Query(value = LEADERBOARD_NEXT_PAGE_QUERY, nativeQuery = true)
+    List<LeaderboardRow> findLeaderboardPageAfter(@Param("courseId") long courseId,
+                                                  @Param("afterGradeSum") long afterGradeSum,
+                                                  @Param("afterGradeCount") long afterGradeCount,
+                                                  @Param("afterStudentId") long afterStudentId,
+                                                  @Param("limit") int limit);
 }
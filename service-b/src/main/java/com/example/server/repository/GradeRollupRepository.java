@@ -0,0 +1,146 @@
+package com.example.server.repository;
+
+import com.example.server.dto.GradeHistogramRow;
+import com.example.server.dto.TimeWindow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * grade_daily_rollups (V9__grade_daily_rollups.sql): the grade histogram of a time window merged
+ * from the rollups of its whole days plus the raw grades of its partial days, and the refresh of
+ * the rollups from the deltas queued in grade_rollup_deltas.
+ */
+@Repository
+@RequiredArgsConstructor
+public class GradeRollupRepository {
+    // one refresh at a time across service-b instances: the merge reads the rollup rows it rewrites
+    private static final String TRY_LOCK_SQL = "SELECT pg_try_advisory_xact_lock(hashtext('grade_daily_rollups'))";
+
+    // Takes the queued deltas (V11__grade_rollup_deltas.sql) and adds them to the rollups of
+    // their days: sums, counts and histogram buckets, without reading the raw grades; days left
+    // without grades are removed. Deltas of transactions that commit later are not visible to
+    // the DELETE and stay queued for the next run.
+    private static final String REFRESH_SQL = """
+            WITH taken AS (
+                DELETE FROM grade_rollup_deltas
+                RETURNING course_id, day, grade, grade_count
+            ),
+            counts AS (
+                SELECT course_id, day, grade, CAST(SUM(grade_count) AS bigint) AS grade_count
+                FROM taken
+                GROUP BY course_id, day, grade
+            ),
+            deltas AS (
+                SELECT course_id, day,
+                       CAST(SUM(grade * grade_count) AS bigint) AS grade_sum,
+                       CAST(SUM(grade_count) AS bigint) AS grade_count,
+                       grade_histogram(array_agg(grade), array_agg(grade_count)) AS histogram
+                FROM counts
+                GROUP BY course_id, day
+            ),
+            merged AS (
+                SELECT d.course_id, d.day,
+                       COALESCE(r.grade_sum, 0) + d.grade_sum AS grade_sum,
+                       COALESCE(r.grade_count, 0) + d.grade_count AS grade_count,
+                       CASE WHEN r.histogram IS NULL THEN d.histogram
+                            ELSE grade_histogram_add(r.histogram, d.histogram) END AS histogram
+                FROM deltas d
+                LEFT JOIN grade_daily_rollups r ON r.course_id = d.course_id AND r.day = d.day
+            ),
+            upserted AS (
+                INSERT INTO grade_daily_rollups AS r (course_id, day, grade_sum, grade_count, histogram)
+                SELECT course_id, day, grade_sum, grade_count, histogram
+                FROM merged
+                WHERE grade_count > 0
+                ORDER BY course_id, day
+                ON CONFLICT (course_id, day) DO UPDATE
+                    SET grade_sum = EXCLUDED.grade_sum,
+                        grade_count = EXCLUDED.grade_count,
+                        histogram = EXCLUDED.histogram
+                RETURNING r.course_id
+            ),
+            removed AS (
+                DELETE FROM grade_daily_rollups r
+                USING merged m
+                WHERE r.course_id = m.course_id AND r.day = m.day AND m.grade_count = 0
+                RETURNING r.course_id
+            )
+            SELECT COUNT(*) FROM deltas
+            """;
+
+    // The window's raw grades: [from, headEnd) and [tailStart, to) of one course
+    private static final String RAW_GRADES_WHERE = """
+            WHERE g.course_id = :courseId
+              AND (g.created_at >= :from AND g.created_at < :headEnd
+                   OR g.created_at >= :tailStart AND g.created_at < :to)
+            """;
+
+    private static final String ROLLUPS_WHERE = """
+            WHERE r.course_id = :courseId AND r.day >= :rollupFrom AND r.day < :rollupTo
+            """;
+
+    // Same rows as GradeRepository.GRADE_HISTOGRAM_QUERY, restricted to the window
+    private static final String WINDOW_HISTOGRAM_SQL = """
+            SELECT w.grade, SUM(w.grade_count)
+            FROM (
+                SELECT CAST(b.position - 1 AS integer) AS grade, b.grade_count
+                FROM grade_daily_rollups r
+                CROSS JOIN LATERAL unnest(r.histogram) WITH ORDINALITY b(grade_count, position)
+            """ + ROLLUPS_WHERE + """
+                UNION ALL
+                SELECT g.grade, COUNT(*)
+                FROM grades g
+            """ + RAW_GRADES_WHERE + """
+                GROUP BY g.grade
+            ) w
+            GROUP BY w.grade
+            HAVING SUM(w.grade_count) > 0
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Number of (course, day) rollups updated; 0 when there was nothing queued or another
+     * instance is refreshing.
+     */
+    @Transactional
+    public int applyQueuedDeltas() {
+        Boolean locked = jdbcTemplate.getJdbcTemplate().queryForObject(TRY_LOCK_SQL, Boolean.class);
+        if (!Boolean.TRUE.equals(locked)) {
+            return 0;
+        }
+        Integer days = jdbcTemplate.getJdbcTemplate().queryForObject(REFRESH_SQL, Integer.class);
+        return days != null ? days : 0;
+    }
+
+    public List<GradeHistogramRow> findWindowHistogram(long courseId, TimeWindow window, LocalDate today) {
+        return jdbcTemplate.query(WINDOW_HISTOGRAM_SQL, windowParameters(courseId, window, today),
+                (rs, rowNum) -> new HistogramRow(courseId, rs.getInt(1), rs.getLong(2)));
+    }
+
+    private static MapSqlParameterSource windowParameters(long courseId, TimeWindow window, LocalDate today) {
+        TimeWindow.Parts parts = window.split(today);
+        return new MapSqlParameterSource(Map.of(
+                "courseId", courseId,
+                "from", window.from(),
+                "headEnd", parts.headEnd(),
+                "rollupFrom", parts.rollupFrom(),
+                "rollupTo", parts.rollupTo(),
+                "tailStart", parts.tailStart(),
+                "to", window.to()));
+    }
+
+    @lombok.Value
+    private static class HistogramRow implements GradeHistogramRow {
+        Long courseId;
+        Integer grade;
+        Long gradeCount;
+    }
+}
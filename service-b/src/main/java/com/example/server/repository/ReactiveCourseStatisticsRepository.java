@@ -0,0 +1,189 @@
+package com.example.server.repository;
+
+import com.example.server.dto.CourseStatisticsRow;
+import com.example.server.dto.GradeHistogramRow;
+import com.example.server.dto.LeaderboardRow;
+import com.example.server.dto.StudentGradeStats;
+import com.example.server.dto.TimeWindow;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+/**
+ * R2DBC counterpart of the {@link GradeRepository} course statistics queries: the same
+ * statements, executed without blocking a thread.
+ */
+@Repository
+@Profile("r2dbc")
+@RequiredArgsConstructor
+public class ReactiveCourseStatisticsRepository {
+    // Spring Data's repository metric (and tag keys), so JPA and R2DBC queries share one timer
+    private static final String REPOSITORY_METRIC = "spring.data.repository.invocations";
+
+    private final DatabaseClient databaseClient;
+    private final MeterRegistry meterRegistry;
+
+    public Flux<CourseStatisticsRow> findCourseStatisticsByCourseId(long courseId, int topN) {
+        return timed("findCourseStatisticsByCourseId", databaseClient.sql(GradeRepository.COURSE_STATISTICS_QUERY)
+                .bind("courseId", courseId)
+                .bind("topN", topN)
+                .map(ReactiveCourseStatisticsRepository::toRow)
+                .all());
+    }
+
+    public Flux<CourseStatisticsRow> findCourseStatisticsByCourseIds(Collection<Long> courseIds, int topN) {
+        return timed("findCourseStatisticsByCourseIds", databaseClient.sql(GradeRepository.COURSES_STATISTICS_QUERY)
+                .bind("courseIds", courseIds)
+                .bind("topN", topN)
+                .map(ReactiveCourseStatisticsRepository::toRow)
+                .all());
+    }
+
+    public Flux<CourseStatisticsRow> findAllCourseStatistics(int topN) {
+        return timed("findAllCourseStatistics", databaseClient.sql(GradeRepository.ALL_COURSES_STATISTICS_QUERY)
+                .bind("topN", topN)
+                .map(ReactiveCourseStatisticsRepository::toRow)
+                .all());
+    }
+
+    public Flux<GradeHistogramRow> findGradeHistograms(Collection<Long> courseIds) {
+        return timed("findGradeHistograms", databaseClient.sql(GradeRepository.GRADE_HISTOGRAM_QUERY)
+                .bind("courseIds", courseIds)
+                .map(row -> (GradeHistogramRow) new HistogramRow(
+                        row.get("courseId", Long.class),
+                        row.get("grade", Integer.class),
+                        row.get("gradeCount", Long.class)))
+                .all());
+    }
+
+    public Flux<LeaderboardRow> findLeaderboardFirstPage(long courseId, int limit) {
+        return timed("findLeaderboardFirstPage", databaseClient.sql(GradeRepository.LEADERBOARD_FIRST_PAGE_QUERY)
+                .bind("courseId", courseId)
+                .bind("limit", limit)
+                .map(ReactiveCourseStatisticsRepository::toLeaderboardRow)
+                .all());
+    }
+
+    public Flux<LeaderboardRow> findLeaderboardPageAfter(long courseId, long afterGradeSum, long afterGradeCount,
+                                                         long afterStudentId, int limit) {
+        return timed("findLeaderboardPageAfter", databaseClient.sql(GradeRepository.LEADERBOARD_NEXT_PAGE_QUERY)
+                .bind("courseId", courseId)
+                .bind("afterGradeSum", afterGradeSum)
+                .bind("afterGradeCount", afterGradeCount)
+                .bind("afterStudentId", afterStudentId)
+                .bind("limit", limit)
+                .map(ReactiveCourseStatisticsRepository::toLeaderboardRow)
+                .all());
+    }
+
+    /**
+     * Every student of the course in rank order. The driver fetches {@code fetchSize} rows
+     * at a time from a portal and only asks for more as the subscriber requests them.
+     */
+    public Flux<StudentGradeStats> streamStudentStatistics(long courseId, int fetchSize) {
+        return timed("streamStudentStatistics", databaseClient.sql(GradeRepository.COURSE_STUDENTS_QUERY)
+                .bind("courseId", courseId)
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(ReactiveCourseStatisticsRepository::toStudentStats)
+                .all());
+    }
+
+    /** The same, counting only grades created within {@code window}. */
+    public Flux<StudentGradeStats> streamStudentStatistics(long courseId, TimeWindow window, int fetchSize) {
+        return timed("streamStudentStatisticsInWindow", databaseClient.sql(GradeRepository.COURSE_STUDENTS_WINDOW_QUERY)
+                .bind("courseId", courseId)
+                .bind("from", window.from())
+                .bind("to", window.to())
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(ReactiveCourseStatisticsRepository::toStudentStats)
+                .all());
+    }
+
+    private <T> Flux<T> timed(String method, Flux<T> query) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return query
+                    .doOnComplete(() -> stop(sample, method, "SUCCESS", "None"))
+                    .doOnError(error -> stop(sample, method, "ERROR", error.getClass().getSimpleName()))
+                    .doOnCancel(() -> stop(sample, method, "CANCELED", "None"));
+        });
+    }
+
+    private void stop(Timer.Sample sample, String method, String state, String exception) {
+        sample.stop(Timer.builder(REPOSITORY_METRIC)
+                .tag("repository", ReactiveCourseStatisticsRepository.class.getSimpleName())
+                .tag("method", method)
+                .tag("state", state)
+                .tag("exception", exception)
+                .register(meterRegistry));
+    }
+
+    private static CourseStatisticsRow toRow(Readable row) {
+        return new StatisticsRow(
+                row.get("courseId", Long.class),
+                row.get("courseName", String.class),
+                row.get("courseAverageGrade", Double.class),
+                row.get("courseGradeCount", Long.class),
+                row.get("courseStudentCount", Long.class),
+                row.get("studentRank", Long.class),
+                row.get("studentId", Long.class),
+                row.get("studentName", String.class),
+                row.get("averageGrade", Double.class),
+                row.get("gradeCount", Long.class));
+    }
+
+    private static StudentGradeStats toStudentStats(Readable row) {
+        return new StudentGradeStats(
+                row.get("studentId", Long.class),
+                row.get("studentName", String.class),
+                row.get("averageGrade", Double.class),
+                row.get("gradeCount", Long.class));
+    }
+
+    private static LeaderboardRow toLeaderboardRow(Readable row) {
+        return new LeaderboardRowValue(
+                row.get("courseId", Long.class),
+                row.get("studentId", Long.class),
+                row.get("studentName", String.class),
+                row.get("gradeSum", Long.class),
+                row.get("gradeCount", Long.class));
+    }
+
+    @Value
+    private static class StatisticsRow implements CourseStatisticsRow {
+        Long courseId;
+        String courseName;
+        Double courseAverageGrade;
+        Long courseGradeCount;
+        Long courseStudentCount;
+        Long studentRank;
+        Long studentId;
+        String studentName;
+        Double averageGrade;
+        Long gradeCount;
+    }
+
+    @Value
+    private static class HistogramRow implements GradeHistogramRow {
+        Long courseId;
+        Integer grade;
+        Long gradeCount;
+    }
+
+    @Value
+    private static class LeaderboardRowValue implements LeaderboardRow {
+        Long courseId;
+        Long studentId;
+        String studentName;
+        Long gradeSum;
+        Long gradeCount;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.server.repository;
+
+/**
+ * The ids one nextval() reserves from a sequence that advances by {@link #BLOCK_SIZE} (students,
+ * courses and grades since V4), by the rule of Hibernate's pooled optimizer for
+ * {@code allocationSize = 50}: the value is the upper end of its block, (value - 50, value].
+ * The sequence's start value 1 has no block below it and reserves id 1 alone; Hibernate takes
+ * 1..51 in that case by calling nextval() once more. {@link GradeBulkWriter} bypasses Hibernate
+ * and uses this rule (as does datagen's IdBlocks), so no id is below 1 or handed out twice.
+ */
+final class SequenceBlocks {
+    static final int BLOCK_SIZE = 50;
+
+    private SequenceBlocks() {
+    }
+
+    /** First id reserved by {@code value}; the last one is {@code value} itself. */
+    static long firstId(long value) {
+        return Math.max(1, value - BLOCK_SIZE + 1);
+    }
+}
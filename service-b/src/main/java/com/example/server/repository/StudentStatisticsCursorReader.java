@@ -0,0 +1,135 @@
+package com.example.server.repository;
+
+import com.example.server.dto.StudentGradeStats;
+import com.example.server.dto.TimeWindow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Streams {@link GradeRepository#COURSE_STUDENTS_QUERY} over JDBC. PostgreSQL only uses a
+ * server-side cursor inside a transaction with a fetch size, so the connection is taken
+ * out of auto-commit for the lifetime of the Flux; a row is read only when the subscriber
+ * requests one, and at most {@code fetchSize} rows are held in memory.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StudentStatisticsCursorReader {
+    private static final String COURSE_STUDENTS_SQL =
+            NamedParameterUtils.parseSqlStatementIntoString(GradeRepository.COURSE_STUDENTS_QUERY);
+    private static final String COURSE_STUDENTS_WINDOW_SQL =
+            NamedParameterUtils.parseSqlStatementIntoString(GradeRepository.COURSE_STUDENTS_WINDOW_QUERY);
+
+    private final DataSource dataSource;
+
+    /**
+     * Cold Flux: the connection is borrowed on subscription and returned on completion,
+     * error or cancellation. Blocking reads run on boundedElastic.
+     */
+    public Flux<StudentGradeStats> streamByCourseId(long courseId, int fetchSize) {
+        return stream(fetchSize, COURSE_STUDENTS_SQL, statement -> statement.setLong(1, courseId));
+    }
+
+    /** The same, counting only grades created within {@code window}. */
+    public Flux<StudentGradeStats> streamByCourseId(long courseId, TimeWindow window, int fetchSize) {
+        return stream(fetchSize, COURSE_STUDENTS_WINDOW_SQL, statement -> {
+            statement.setLong(1, courseId);
+            statement.setTimestamp(2, Timestamp.valueOf(window.from()));
+            statement.setTimestamp(3, Timestamp.valueOf(window.to()));
+        });
+    }
+
+    private Flux<StudentGradeStats> stream(int fetchSize, String sql, ParameterSetter parameters) {
+        return Flux.<StudentGradeStats, Cursor>using(
+                        () -> Cursor.open(dataSource, sql, parameters, fetchSize),
+                        cursor -> Flux.generate(sink -> {
+                            try {
+                                if (cursor.resultSet.next()) {
+                                    sink.next(toStats(cursor.resultSet));
+                                } else {
+                                    sink.complete();
+                                }
+                            } catch (SQLException e) {
+                                sink.error(e);
+                            }
+                        }),
+                        Cursor::close)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static StudentGradeStats toStats(ResultSet rs) throws SQLException {
+        return new StudentGradeStats(
+                rs.getLong("studentId"),
+                rs.getString("studentName"),
+                rs.getDouble("averageGrade"),
+                rs.getLong("gradeCount"));
+    }
+
+    @FunctionalInterface
+    private interface ParameterSetter {
+        void setValues(PreparedStatement statement) throws SQLException;
+    }
+
+    private static final class Cursor {
+        private final Connection connection;
+        private final PreparedStatement statement;
+        private final ResultSet resultSet;
+
+        private Cursor(Connection connection, PreparedStatement statement, ResultSet resultSet) {
+            this.connection = connection;
+            this.statement = statement;
+            this.resultSet = resultSet;
+        }
+
+        static Cursor open(DataSource dataSource, String sql, ParameterSetter parameters, int fetchSize)
+                throws SQLException {
+            Connection connection = dataSource.getConnection();
+            try {
+                connection.setAutoCommit(false);
+                connection.setReadOnly(true);
+                PreparedStatement statement = connection.prepareStatement(sql);
+                statement.setFetchSize(fetchSize);
+                parameters.setValues(statement);
+                return new Cursor(connection, statement, statement.executeQuery());
+            } catch (SQLException | RuntimeException e) {
+                release(connection);
+                throw e;
+            }
+        }
+
+        void close() {
+            try {
+                resultSet.close();
+                statement.close();
+            } catch (SQLException ignored) {
+                // the connection is released below either way
+            }
+            release(connection);
+        }
+
+        private static void release(Connection connection) {
+            try {
+                connection.rollback();
+                connection.setReadOnly(false);
+                connection.setAutoCommit(true);
+            } catch (SQLException ignored) {
+                // Hikari resets the connection state when it is returned
+            } finally {
+                try {
+                    connection.close();
+                } catch (SQLException ignored) {
+                    // nothing left to clean up
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.server.service;
+
+import com.example.server.datasource.PrimaryReads;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Where the blocking JPA/JDBC calls of the request path run.
+ * <ul>
+ *   <li>{@code bounded-elastic} (default): Schedulers.boundedElastic(), at most 10 threads per
+ *   core, further calls queue for a free thread.</li>
+ *   <li>{@code virtual-threads} (Java 21+): a virtual thread per call. A fair semaphore sized to
+ *   the Hikari pool lets only as many calls at a time reach the database as there are
+ *   connections; the others park cheaply on it instead of all waiting in Hikari's
+ *   connection-timeout.</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BlockingCallExecutor implements DisposableBean {
+    public static final String BOUNDED_ELASTIC = "bounded-elastic";
+    public static final String VIRTUAL_THREADS = "virtual-threads";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${grades.blocking.mode:" + BOUNDED_ELASTIC + "}")
+    private String mode;
+
+    @Value("${grades.blocking.max-concurrent-calls:${spring.datasource.hikari.maximum-pool-size:10}}")
+    private int maxConcurrentCalls;
+
+    private Scheduler scheduler;
+    private Semaphore permits;
+
+    @PostConstruct
+    void init() {
+        switch (mode) {
+            case BOUNDED_ELASTIC -> scheduler = Schedulers.boundedElastic();
+            case VIRTUAL_THREADS -> {
+                if (Runtime.version().feature() < 21) {
+                    throw new IllegalStateException("grades.blocking.mode=" + VIRTUAL_THREADS
+                            + " needs Java 21+, running on " + Runtime.version());
+                }
+                scheduler = Schedulers.fromExecutor(new VirtualThreadTaskExecutor("grades-vt-"));
+                permits = new Semaphore(maxConcurrentCalls, true);
+                Gauge.builder("grades.blocking.permits.available", permits, Semaphore::availablePermits)
+                        .description("Database calls that may still start on virtual threads")
+                        .register(meterRegistry);
+                Gauge.builder("grades.blocking.waiting", permits, Semaphore::getQueueLength)
+                        .description("Virtual threads parked for a database permit")
+                        .register(meterRegistry);
+            }
+            default -> throw new IllegalStateException("Unknown grades.blocking.mode: " + mode);
+        }
+        log.info("Blocking calls run on {}{}", mode,
+                permits == null ? "" : ", at most " + maxConcurrentCalls + " at a time");
+    }
+
+    /**
+     * Runs {@code call} off the event loop; the Mono is empty when it returns null. A
+     * {@link PrimaryReads#required()} subscriber context applies to the call's transactions.
+     */
+    public <T> Mono<T> call(Callable<T> call) {
+        if (permits == null) {
+            return Mono.deferContextual(context -> Mono.fromCallable(() -> PrimaryReads.call(context, call)))
+                    .subscribeOn(scheduler);
+        }
+        return Mono.deferContextual(context -> Mono.fromCallable(() -> {
+            permits.acquire();
+            try {
+                return PrimaryReads.call(context, call);
+            } finally {
+                permits.release();
+            }
+        })).subscribeOn(scheduler);
+    }
+
+    @Override
+    public void destroy() {
+        if (permits != null) {
+            scheduler.dispose();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.server.service;
+
+import com.example.server.dto.CourseRef;
+import com.example.server.notification.PgNotificationListener;
+import com.example.server.repository.CourseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * In-memory course name -> id dictionary. Loaded at startup and reloaded as a whole when the
+ * courses_changed trigger reports a write to the catalog, so requests resolve course names
+ * without a query and unknown names are rejected before touching the database.
+ * <p>
+ * The first load runs on start rather than in the constructor, so the context can be refreshed
+ * without a database (the AOT and class-data sharing training runs of the fast-start build).
+ * Being a lifecycle bean also keeps it eager under lazy initialization: its subscriptions must
+ * exist before the notification listener starts.
+ */
+@Component
+@Slf4j
+public class CourseCatalog implements SmartLifecycle {
+    static final String COURSES_CHANGED_CHANNEL = "courses_changed";
+
+    private final CourseRepository courseRepository;
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of());
+    private volatile boolean running;
+
+    public CourseCatalog(CourseRepository courseRepository, PgNotificationListener notificationListener) {
+        this.courseRepository = courseRepository;
+        notificationListener.subscribe(COURSES_CHANGED_CHANNEL, payload -> reload());
+        // changes made while the notification connection was down were not reported
+        notificationListener.onReconnect(this::reload);
+    }
+
+    @Override
+    public void start() {
+        reload();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // loaded before the web server (phase DEFAULT_PHASE - 2048) takes requests
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    public Optional<Long> findId(String courseName) {
+        return Optional.ofNullable(snapshot.idsByName().get(courseName));
+    }
+
+    public Optional<String> findName(long courseId) {
+        return Optional.ofNullable(snapshot.namesById().get(courseId));
+    }
+
+    /**
+     * Ids of the given names that exist, in the order of {@code courseNames}; unknown names
+     * are left out.
+     */
+    public Map<String, Long> findIds(Collection<String> courseNames) {
+        Map<String, Long> idsByName = snapshot.idsByName();
+        Map<String, Long> found = new LinkedHashMap<>();
+        for (String courseName : courseNames) {
+            Long courseId = idsByName.get(courseName);
+            if (courseId != null) {
+                found.put(courseName, courseId);
+            }
+        }
+        return found;
+    }
+
+    /** Every course, ordered by name. */
+    public Map<String, Long> findAll() {
+        return new TreeMap<>(snapshot.idsByName());
+    }
+
+    public synchronized void reload() {
+        List<CourseRef> courses = courseRepository.findAllRefs();
+        Map<String, Long> idsByName = new HashMap<>(courses.size() * 2);
+        Map<Long, String> namesById = new HashMap<>(courses.size() * 2);
+        for (CourseRef course : courses) {
+            idsByName.put(course.getName(), course.getId());
+            namesById.put(course.getId(), course.getName());
+        }
+        snapshot = new Snapshot(Map.copyOf(idsByName), Map.copyOf(namesById));
+        log.debug("Loaded course catalog: {} courses", courses.size());
+    }
+
+    private record Snapshot(Map<String, Long> idsByName, Map<Long, String> namesById) {
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.server.service;
+
+import com.example.api.dto.AverageGradeResponse;
+import com.example.server.dto.CacheStatsResponse;
+import com.example.server.datasource.PrimaryReads;
+import com.example.server.engine.ColumnarGradeEngine;
+import com.example.server.notification.PgNotificationListener;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded TTL cache of course statistics keyed by course name. Concurrent misses for the
+ * same course share one in-flight load; entries are evicted when the grades_changed
+ * trigger reports a write to the course. A load that was in flight when its course got
+ * invalidated may have read the data from before the write: its waiters get the result,
+ * the cache does not keep it. Loads read from the primary ({@link PrimaryReads}), so a load
+ * started after the invalidation sees the write even while a replica is still behind.
+ */
+@Component
+// subscribes to notifications before the listener starts, also under lazy initialization
+@Lazy(false)
+@Slf4j
+public class CourseStatisticsCache {
+    static final String GRADES_CHANGED_CHANNEL = "grades_changed";
+    static final String STUDENTS_CHANGED_CHANNEL = "students_changed";
+
+    private final boolean enabled;
+    private final AsyncCache<String, AverageGradeResponse> cache;
+    private final CourseCatalog courseCatalog;
+    private final AtomicLong invalidationCount = new AtomicLong();
+    // bumped by every invalidation: a load compares them before and after
+    private final ConcurrentMap<String, Long> courseGenerations = new ConcurrentHashMap<>();
+    private final AtomicLong allGeneration = new AtomicLong();
+
+    public CourseStatisticsCache(@Value("${grades.cache.enabled:true}") boolean enabled,
+                                 @Value("${grades.cache.maximum-size:1000}") long maximumSize,
+                                 @Value("${grades.cache.ttl:30s}") Duration ttl,
+                                 CourseCatalog courseCatalog,
+                                 PgNotificationListener notificationListener,
+                                 Optional<ColumnarGradeEngine> columnarEngine,
+                                 MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.courseCatalog = courseCatalog;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "courseStatistics");
+
+        if (enabled) {
+            // with the columnar engine, evict only once the engine has caught up with the change
+            columnarEngine.ifPresentOrElse(engine -> {
+                engine.onCourseUpdated(this::onGradesChanged);
+                engine.onReload(this::invalidateAll);
+            }, () -> notificationListener.subscribe(GRADES_CHANGED_CHANNEL,
+                    courseId -> onGradesChanged(Long.parseLong(courseId))));
+            // a course deleted and re-created under the same name must not get the old course's statistics
+            notificationListener.subscribe(CourseCatalog.COURSES_CHANGED_CHANNEL, payload -> invalidateAll());
+            // cached top students carry their names; renames are rare
+            notificationListener.subscribe(STUDENTS_CHANGED_CHANNEL, payload -> invalidateAll());
+            notificationListener.onReconnect(this::invalidateAll);
+        }
+    }
+
+    public Mono<AverageGradeResponse> get(String courseName, Supplier<Mono<AverageGradeResponse>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        // suppressCancel: one cancelled subscriber must not cancel the load shared with the others
+        return Mono.fromFuture(() -> cache.get(courseName, (key, executor) -> load(key, loader)), true);
+    }
+
+    public void invalidate(String courseName) {
+        courseGenerations.merge(courseName, 1L, Long::sum);
+        cache.synchronous().invalidate(courseName);
+        invalidationCount.incrementAndGet();
+        log.debug("Invalidated cached statistics for course: {}", courseName);
+    }
+
+    public void invalidateAll() {
+        allGeneration.incrementAndGet();
+        cache.synchronous().invalidateAll();
+        invalidationCount.incrementAndGet();
+        log.info("Invalidated all cached course statistics");
+    }
+
+    public CacheStatsResponse stats() {
+        CacheStats stats = cache.synchronous().stats();
+        return CacheStatsResponse.builder()
+                .enabled(enabled)
+                .size(cache.synchronous().estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .loadSuccessCount(stats.loadSuccessCount())
+                .loadFailureCount(stats.loadFailureCount())
+                .evictionCount(stats.evictionCount())
+                .invalidationCount(invalidationCount.get())
+                .build();
+    }
+
+    private CompletableFuture<AverageGradeResponse> load(String courseName,
+                                                         Supplier<Mono<AverageGradeResponse>> loader) {
+        long generation = generation(courseName);
+        CompletableFuture<AverageGradeResponse> loading = new CompletableFuture<>();
+        // from the primary: a replica behind the write that invalidated the entry would refill it with the old value
+        loader.get().contextWrite(PrimaryReads.required()).toFuture().whenComplete((response, error) -> {
+            if (generation(courseName) != generation) {
+                // removed before completing, so the stale response is never visible as a cache hit
+                cache.asMap().remove(courseName, loading);
+            }
+            if (error != null) {
+                loading.completeExceptionally(error);
+            } else {
+                loading.complete(response);
+            }
+        });
+        return loading;
+    }
+
+    private long generation(String courseName) {
+        return allGeneration.get() + courseGenerations.getOrDefault(courseName, 0L);
+    }
+
+    private void onGradesChanged(long courseId) {
+        courseCatalog.findName(courseId).ifPresent(this::invalidate);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.server.service;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Every export stream permit is taken. Raised when the stream is subscribed, before its first
+ * row, so the response can still become a 503; {@code retryAfter} goes into Retry-After.
+ */
+@Getter
+public class ExportStreamsExhaustedException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public ExportStreamsExhaustedException(int maxConcurrentStreams, Duration retryAfter) {
+        super(maxConcurrentStreams + " export streams already running");
+        this.retryAfter = retryAfter;
+    }
+}
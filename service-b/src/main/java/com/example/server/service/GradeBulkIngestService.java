@@ -0,0 +1,168 @@
+package com.example.server.service;
+
+import com.example.server.dto.BulkIngestResponse;
+import com.example.server.dto.GradeRecord;
+import com.example.server.repository.GradeBulkWriter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streams NDJSON or CSV grade rows from the request body into the database in batches.
+ * The body is decoded line by line and at most one batch is buffered while the previous
+ * one is written, so memory use does not depend on the size of the upload.
+ */
+@Service
+@Slf4j
+public class GradeBulkIngestService {
+    public static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private final GradeBulkWriter gradeBulkWriter;
+    private final ObjectReader recordReader;
+    private final StringDecoder lineDecoder = StringDecoder.allMimeTypes(List.of("\n"), true);
+
+    @Value("${grades.bulk.mode:copy}")
+    private String mode;
+
+    @Value("${grades.bulk.batch-size:5000}")
+    private int batchSize;
+
+    public GradeBulkIngestService(GradeBulkWriter gradeBulkWriter, ObjectMapper objectMapper) {
+        this.gradeBulkWriter = gradeBulkWriter;
+        this.recordReader = objectMapper.readerFor(GradeRecord.class);
+    }
+
+    public Mono<BulkIngestResponse> ingest(Flux<DataBuffer> body, MediaType contentType) {
+        boolean csv = TEXT_CSV.isCompatibleWith(contentType);
+        IngestProgress progress = new IngestProgress(System.nanoTime());
+        log.info("Starting bulk ingestion: format={}, mode={}, batchSize={}", csv ? "csv" : "ndjson", mode, batchSize);
+
+        return lineDecoder.decode(body, ResolvableType.forClass(String.class), null, null)
+                .index()
+                .filter(line -> !line.getT2().isBlank())
+                .filter(line -> !(csv && line.getT1() == 0 && isCsvHeader(line.getT2())))
+                .map(line -> csv ? parseCsv(line.getT1() + 1, line.getT2()) : parseJson(line.getT1() + 1, line.getT2()))
+                .buffer(batchSize)
+                .concatMap(batch -> Mono.fromCallable(() -> writeBatch(batch, progress))
+                        .subscribeOn(Schedulers.boundedElastic()), 1)
+                .then(Mono.fromSupplier(() -> progress.toResponse(mode, null)))
+                .onErrorResume(IllegalArgumentException.class,
+                        error -> Mono.just(progress.toResponse(mode, error.getMessage())))
+                .onErrorResume(DataIntegrityViolationException.class,
+                        error -> Mono.just(progress.toResponse(mode, error.getMostSpecificCause().getMessage())))
+                .doOnNext(response -> log.info("Bulk ingestion finished: {} rows in {} batches, {} rows/s",
+                        response.getRows(), response.getBatches(), Math.round(response.getRowsPerSecond())));
+    }
+
+    private long writeBatch(List<GradeRecord> batch, IngestProgress progress) {
+        long batchStart = System.nanoTime();
+        long written = "batch".equals(mode)
+                ? gradeBulkWriter.insertBatch(batch)
+                : gradeBulkWriter.copy(batch);
+        double latencyMs = (System.nanoTime() - batchStart) / 1_000_000.0;
+        progress.batchWritten(written, latencyMs);
+        log.debug("Wrote batch #{} of {} rows in {} ms", progress.batchLatenciesMs.size(), written, latencyMs);
+        return written;
+    }
+
+    private GradeRecord parseJson(long lineNumber, String line) {
+        GradeRecord record;
+        try {
+            record = recordReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": malformed JSON: " + e.getOriginalMessage());
+        }
+        return validate(lineNumber, record);
+    }
+
+    private GradeRecord parseCsv(long lineNumber, String line) {
+        String[] fields = line.trim().split(",", -1);
+        if (fields.length < 3 || fields.length > 4) {
+            throw new IllegalArgumentException("Line " + lineNumber
+                    + ": expected studentId,courseId,grade[,createdAt]");
+        }
+        GradeRecord record;
+        try {
+            record = new GradeRecord(
+                    Long.parseLong(fields[0].trim()),
+                    Long.parseLong(fields[1].trim()),
+                    Integer.parseInt(fields[2].trim()),
+                    fields.length == 4 && !fields[3].isBlank() ? LocalDateTime.parse(fields[3].trim()) : null);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage());
+        }
+        return validate(lineNumber, record);
+    }
+
+    private GradeRecord validate(long lineNumber, GradeRecord record) {
+        if (record.getStudentId() == null || record.getCourseId() == null || record.getGrade() == null) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": studentId, courseId and grade are required");
+        }
+        if (record.getGrade() < 0 || record.getGrade() > 100) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": grade must be between 0 and 100");
+        }
+        return record;
+    }
+
+    private boolean isCsvHeader(String line) {
+        return !line.isEmpty() && !Character.isDigit(line.trim().charAt(0));
+    }
+
+    private static class IngestProgress {
+        private final long startNanos;
+        private final List<Double> batchLatenciesMs = new ArrayList<>();
+        private long rows;
+
+        IngestProgress(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        void batchWritten(long written, double latencyMs) {
+            rows += written;
+            batchLatenciesMs.add(latencyMs);
+        }
+
+        BulkIngestResponse toResponse(String mode, String error) {
+            long durationNanos = System.nanoTime() - startNanos;
+            return BulkIngestResponse.builder()
+                    .mode(mode)
+                    .rows(rows)
+                    .batches(batchLatenciesMs.size())
+                    .durationMs(durationNanos / 1_000_000)
+                    .rowsPerSecond(durationNanos > 0 ? rows * 1_000_000_000.0 / durationNanos : 0.0)
+                    .batchLatency(batchLatency())
+                    .error(error)
+                    .build();
+        }
+
+        private BulkIngestResponse.BatchLatency batchLatency() {
+            if (batchLatenciesMs.isEmpty()) {
+                return null;
+            }
+            List<Double> sorted = new ArrayList<>(batchLatenciesMs);
+            Collections.sort(sorted);
+            return BulkIngestResponse.BatchLatency.builder()
+                    .minMs(sorted.get(0))
+                    .avgMs(sorted.stream().mapToDouble(Double::doubleValue).average().orElse(0))
+                    .p95Ms(sorted.get((int) Math.ceil(sorted.size() * 0.95) - 1))
+                    .maxMs(sorted.get(sorted.size() - 1))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.server.service;
+
+import com.example.api.dto.BatchGradeDistributionResponse;
+import com.example.api.dto.GradeDistributionResponse;
+import com.example.server.dto.GradeHistogramRow;
+import com.example.server.engine.ColumnarGradeEngine;
+import com.example.server.repository.GradePartitions;
+import com.example.server.repository.GradeRepository;
+import com.example.server.repository.ReactiveCourseStatisticsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Grade distribution, percentiles, standard deviation and pass rate of courses, derived from
+ * one {@link GradeHistogram} per course. The histograms come from the columnar engine when
+ * it is loaded, otherwise from {@link GradeRepository#GRADE_HISTOGRAM_QUERY} (R2DBC with the
+ * {@code r2dbc} profile, JPA on the {@link BlockingCallExecutor} without it). The histograms
+ * of all courses are read one partition of grades per statement, that many at a time, when
+ * {@code grades.partitions.parallelism} is above 1.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GradeDistributionService {
+    private final GradeRepository gradeRepository;
+    private final GradePartitions gradePartitions;
+    private final CourseCatalog courseCatalog;
+    private final BlockingCallExecutor blockingCallExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Optional<ReactiveCourseStatisticsRepository> reactiveRepository;
+    private final Optional<ColumnarGradeEngine> columnarEngine;
+
+    @Value("${grades.distribution.pass-threshold:60}")
+    private int passThreshold;
+
+    @Value("${grades.partitions.parallelism:1}")
+    private int partitionParallelism;
+
+    /** Empty when the course does not exist. */
+    public Mono<GradeDistributionResponse> getCourseDistribution(String courseName) {
+        return Mono.justOrEmpty(courseCatalog.findId(courseName))
+                .flatMap(courseId -> Mono.defer(() -> {
+                    Timer.Sample sample = Timer.start(meterRegistry);
+                    return findHistograms(List.of(courseId))
+                            .map(histograms -> histograms.getOrDefault(courseId, new GradeHistogram())
+                                    .toResponse(courseName, passThreshold,
+                                            GradeService.stopTimer(sample, meterRegistry, mode(), "distribution")));
+                }));
+    }
+
+    /**
+     * Per-course distributions plus the {@code combined} distribution of all their grades
+     * (all courses when {@code courseNames} is empty). Unknown names are listed in
+     * {@code missingCourses}.
+     */
+    public Mono<BatchGradeDistributionResponse> getDistributions(List<String> courseNames) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            Map<String, Long> courseIds = courseNames.isEmpty()
+                    ? courseCatalog.findAll()
+                    : courseCatalog.findIds(courseNames);
+            List<String> missingCourses = courseNames.stream()
+                    .filter(name -> !courseIds.containsKey(name))
+                    .toList();
+
+            Mono<Map<Long, GradeHistogram>> histograms;
+            if (courseIds.isEmpty()) {
+                histograms = Mono.just(Map.of());
+            } else if (courseNames.isEmpty() && partitionParallelism > 1
+                    && columnarEngine.filter(ColumnarGradeEngine::isReady).isEmpty()) {
+                histograms = findHistogramsByPartition();
+            } else {
+                histograms = findHistograms(courseIds.values());
+            }
+            return histograms.map(byCourse -> {
+                long processingTime = GradeService.stopTimer(sample, meterRegistry, mode(), "distribution-batch");
+                GradeHistogram combined = new GradeHistogram();
+                List<GradeDistributionResponse> courses = new ArrayList<>(courseIds.size());
+                courseIds.forEach((courseName, courseId) -> {
+                    GradeHistogram histogram = byCourse.getOrDefault(courseId, new GradeHistogram());
+                    combined.merge(histogram);
+                    courses.add(histogram.toResponse(courseName, passThreshold, processingTime));
+                });
+                return BatchGradeDistributionResponse.builder()
+                        .courses(courses)
+                        .combined(combined.toResponse(null, passThreshold, processingTime))
+                        .missingCourses(missingCourses)
+                        .processingTimeMs(processingTime)
+                        .build();
+            });
+        });
+    }
+
+    private Mono<Map<Long, GradeHistogram>> findHistograms(Collection<Long> courseIds) {
+        Optional<ColumnarGradeEngine> engine = columnarEngine.filter(ColumnarGradeEngine::isReady);
+        if (engine.isPresent()) {
+            return Mono.fromCallable(() -> {
+                        Map<Long, GradeHistogram> histograms = new HashMap<>();
+                        for (Long courseId : courseIds) {
+                            long[] counts = engine.get().findGradeCounts(courseId, GradeHistogram.MAX_GRADE);
+                            GradeHistogram histogram = new GradeHistogram();
+                            for (int grade = 0; grade < counts.length; grade++) {
+                                histogram.add(grade, counts[grade]);
+                            }
+                            histograms.put(courseId, histogram);
+                        }
+                        return histograms;
+                    })
+                    .subscribeOn(Schedulers.boundedElastic());
+        }
+        return reactiveRepository
+                .map(repository -> repository.findGradeHistograms(courseIds).collectList())
+                .orElseGet(() -> blockingCallExecutor.call(() -> gradeRepository.findGradeHistograms(courseIds)))
+                .map(GradeDistributionService::toHistograms);
+    }
+
+    // every course of the catalog: each partition's courses in one GROUP BY, partitions in parallel
+    private Mono<Map<Long, GradeHistogram>> findHistogramsByPartition() {
+        return Flux.fromIterable(gradePartitions.names())
+                .flatMap(partition -> blockingCallExecutor.call(() -> gradePartitions.findGradeHistograms(partition)),
+                        partitionParallelism)
+                .flatMapIterable(rows -> rows)
+                .collectList()
+                .map(GradeDistributionService::toHistograms);
+    }
+
+    private static Map<Long, GradeHistogram> toHistograms(List<GradeHistogramRow> rows) {
+        Map<Long, GradeHistogram> histograms = new HashMap<>();
+        for (GradeHistogramRow row : rows) {
+            histograms.computeIfAbsent(row.getCourseId(), id -> new GradeHistogram())
+                    .add(row.getGrade(), row.getGradeCount());
+        }
+        return histograms;
+    }
+
+    private String mode() {
+        if (columnarEngine.filter(ColumnarGradeEngine::isReady).isPresent()) {
+            return "columnar";
+        }
+        return reactiveRepository.isPresent() ? "r2dbc" : "jpa";
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.server.service;
+
+import com.example.api.dto.GradeDistributionResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counting histogram of grades with one bucket per possible value (grades are 0..100 by the
+ * CHECK constraint on grades.grade). Count, mean, standard deviation, percentiles and pass
+ * rate are read off the 101 buckets without sorting, and histograms of several courses merge
+ * by adding buckets, so a cohort costs no more than its courses.
+ */
+public final class GradeHistogram {
+    public static final int MAX_GRADE = 100;
+
+    private final long[] counts = new long[MAX_GRADE + 1];
+
+    public GradeHistogram add(int grade, long count) {
+        counts[grade] += count;
+        return this;
+    }
+
+    public GradeHistogram merge(GradeHistogram other) {
+        for (int grade = 0; grade <= MAX_GRADE; grade++) {
+            counts[grade] += other.counts[grade];
+        }
+        return this;
+    }
+
+    public GradeDistributionResponse toResponse(String courseName, int passThreshold, long processingTime) {
+        long total = 0;
+        long sum = 0;
+        long sumOfSquares = 0;
+        long passed = 0;
+        List<Long> distribution = new ArrayList<>(counts.length);
+        for (int grade = 0; grade <= MAX_GRADE; grade++) {
+            long count = counts[grade];
+            total += count;
+            sum += count * grade;
+            sumOfSquares += count * grade * grade;
+            if (grade >= passThreshold) {
+                passed += count;
+            }
+            distribution.add(count);
+        }
+
+        GradeDistributionResponse.GradeDistributionResponseBuilder response = GradeDistributionResponse.builder()
+                .courseName(courseName)
+                .totalGrades(total)
+                .passThreshold(passThreshold)
+                .distribution(distribution)
+                .processingTimeMs(processingTime);
+        if (total == 0) {
+            return response.build();
+        }
+        double mean = (double) sum / total;
+        // population variance; the sums are exact longs, so no drift from a running mean
+        double variance = Math.max(0, (double) sumOfSquares / total - mean * mean);
+        return response
+                .averageGrade(mean)
+                .standardDeviation(Math.sqrt(variance))
+                .p10(percentile(0.10, total))
+                .median(percentile(0.50, total))
+                .p90(percentile(0.90, total))
+                .passRate((double) passed / total)
+                .build();
+    }
+
+    // Linear interpolation between the two closest ranks, as PostgreSQL's percentile_cont
+    private double percentile(double fraction, long total) {
+        double position = fraction * (total - 1);
+        long lowerRank = (long) Math.floor(position);
+        int lower = gradeAtRank(lowerRank);
+        int upper = gradeAtRank(Math.min(lowerRank + 1, total - 1));
+        return lower + (position - lowerRank) * (upper - lower);
+    }
+
+    // grade of the rank-th (0-based) value in ascending order
+    private int gradeAtRank(long rank) {
+        long seen = 0;
+        for (int grade = 0; grade <= MAX_GRADE; grade++) {
+            seen += counts[grade];
+            if (seen > rank) {
+                return grade;
+            }
+        }
+        throw new IllegalArgumentException("Rank " + rank + " is out of range");
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.server.service;
+
+import com.example.server.repository.GradeRollupRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds the per-grade deltas the grades triggers queued in grade_rollup_deltas to the
+ * grade_daily_rollups of their days, every {@code grades.rollup.interval}; a run costs what was
+ * written since the last one, not the size of the days it touched. Rollups lag the grades by at
+ * most that long; only whole past days are read from them, and a day written to after it ended
+ * is corrected on the next run.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GradeRollupJob implements SmartLifecycle {
+    private final GradeRollupRepository gradeRollupRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${grades.rollup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${grades.rollup.interval:5s}")
+    private Duration interval;
+
+    private volatile boolean running;
+    private ScheduledExecutorService executor;
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "grades-rollup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::refresh, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Refreshing daily grade rollups every {}", interval);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // an exception would cancel the schedule: logged, the queued deltas are retried next run
+    void refresh() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            int days = gradeRollupRepository.applyQueuedDeltas();
+            sample.stop(meterRegistry.timer("grades.rollup.refresh", "outcome", "success"));
+            if (days > 0) {
+                Counter.builder("grades.rollup.days")
+                        .description("Daily rollups updated from the queued grade deltas")
+                        .register(meterRegistry)
+                        .increment(days);
+                log.debug("Refreshed {} daily grade rollups", days);
+            }
+        } catch (RuntimeException e) {
+            sample.stop(meterRegistry.timer("grades.rollup.refresh", "outcome", "error"));
+            log.warn("Daily grade rollup refresh failed: {}", e.getMessage());
+        }
+    }
+}
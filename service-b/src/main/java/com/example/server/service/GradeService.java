@@ -1,67 +1,164 @@
 package com.example.server.service;
 
-import com.example.server.dto.AverageGradeResponse;
-import com.example.server.dto.StudentGradeStats;
-import com.example.server.entity.Course;
-import com.example.server.repository.CourseRepository;
+import com.example.api.dto.AverageGradeResponse;
+import com.example.api.dto.BatchAverageGradeResponse;
+import com.example.server.dto.CourseStatisticsRow;
+import com.example.server.engine.ColumnarGradeEngine;
 import com.example.server.repository.GradeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class GradeService {
+    static final String CALCULATION_TIMER = "grades.statistics.calculation";
+
     private final GradeRepository gradeRepository;
-    private final CourseRepository courseRepository;
+    private final CourseCatalog courseCatalog;
+    private final Optional<ColumnarGradeEngine> columnarEngine;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${grades.top-students.limit:10}")
+    private int topStudentsLimit;
 
+    // a negative limit would only fail per request: LIMIT in SQL, the heap of the columnar engine
+    @PostConstruct
+    void init() {
+        if (topStudentsLimit < 0) {
+            throw new IllegalStateException("grades.top-students.limit must not be negative: " + topStudentsLimit);
+        }
+    }
+
+    /**
+     * Empty when the course was deleted after {@code courseId} was resolved from
+     * {@link CourseCatalog}.
+     */
     @Transactional(readOnly = true)
-    public AverageGradeResponse calculateAverageGradeByCourse(String courseName) {
-        long startTime = System.currentTimeMillis();
-        log.info("Starting OPTIMIZED grade calculation for course: {}", courseName);
+    public Optional<AverageGradeResponse> calculateAverageGradeByCourse(long courseId, String courseName) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        log.debug("Starting OPTIMIZED grade calculation for course: {}", courseName);
+
+        ColumnarGradeEngine engine = readyEngine();
+        List<CourseStatisticsRow> rows = engine != null
+                ? engine.findCourseStatistics(Map.of(courseName, courseId), topStudentsLimit)
+                : gradeRepository.findCourseStatisticsByCourseId(courseId, topStudentsLimit);
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
 
-        Course course = courseRepository.findByName(courseName)
-                .orElseThrow(() -> new RuntimeException("Course not found: " + courseName));
-        log.debug("Found course: {}", course.getName());
+        long processingTime = stopTimer(sample, meterRegistry, mode(engine), "course");
 
-        log.info("OPTIMIZED: Using single SQL query with JOIN and GROUP BY");
-        List<StudentGradeStats> studentStats = gradeRepository
-                .findStudentStatsByCourseName(courseName);
+        log.debug("OPTIMIZED calculation completed in {} ms (read from {}, top {})",
+                processingTime, engine != null ? "columnar engine" : "course_stats aggregates", topStudentsLimit);
 
-        Double averageGrade = gradeRepository.findAverageGradeByCourseName(courseName);
-        if (averageGrade == null) {
-            averageGrade = 0.0;
+        return Optional.of(toResponse(courseName, rows, processingTime));
+    }
+
+    /**
+     * Statistics of several courses (all courses when {@code courseNames} is empty) from one
+     * statement. Names that match no course are listed in {@code missingCourses}; when none
+     * matches, the database is not queried at all.
+     */
+    @Transactional(readOnly = true)
+    public BatchAverageGradeResponse calculateAverageGrades(List<String> courseNames) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        log.debug("Starting batch grade calculation for courses: {}", courseNames.isEmpty() ? "all" : courseNames);
+
+        Map<String, Long> courseIds = courseCatalog.findIds(courseNames);
+        ColumnarGradeEngine engine = readyEngine();
+        List<CourseStatisticsRow> rows;
+        if (engine != null) {
+            rows = engine.findCourseStatistics(courseNames.isEmpty() ? courseCatalog.findAll() : courseIds,
+                    topStudentsLimit);
+        } else {
+            rows = courseNames.isEmpty()
+                    ? gradeRepository.findAllCourseStatistics(topStudentsLimit)
+                    : courseIds.isEmpty()
+                    ? List.of()
+                    : gradeRepository.findCourseStatisticsByCourseIds(courseIds.values(), topStudentsLimit);
         }
 
-        Long totalGrades = gradeRepository.countByCourseName(courseName);
-        Long totalStudents = gradeRepository.countDistinctStudentsByCourseName(courseName);
+        long processingTime = stopTimer(sample, meterRegistry, mode(engine), "batch");
+        log.debug("Batch calculation completed in {} ms ({} rows)", processingTime, rows.size());
 
-        List<AverageGradeResponse.StudentGradeInfo> topStudents = studentStats.stream()
-                .limit(10)
-                .map(stats -> AverageGradeResponse.StudentGradeInfo.builder()
-                        .studentId(stats.getStudentId())
-                        .studentName(stats.getStudentName())
-                        .averageGrade(stats.getAverageGrade())
-                        .gradeCount(stats.getGradeCount().intValue())
-                        .build())
-                .collect(Collectors.toList());
+        return toBatchResponse(courseNames, rows, processingTime);
+    }
 
-        long endTime = System.currentTimeMillis();
-        long processingTime = endTime - startTime;
+    // columnar profile: answered from memory once the engine has loaded, from SQL until then
+    private ColumnarGradeEngine readyEngine() {
+        return columnarEngine.filter(ColumnarGradeEngine::isReady).orElse(null);
+    }
 
-        log.info("OPTIMIZED calculation completed in {} ms", processingTime);
-        log.info("Performance improvement: Used 4 SQL queries instead of 1000+ queries and O(n²) operations");
+    private static String mode(ColumnarGradeEngine engine) {
+        return engine != null ? "columnar" : "jpa";
+    }
+
+    // processingTimeMs in the responses is the same measurement as the grades.statistics.calculation timer
+    static long stopTimer(Timer.Sample sample, MeterRegistry meterRegistry, String mode, String scope) {
+        long nanos = sample.stop(meterRegistry.timer(CALCULATION_TIMER, "mode", mode, "scope", scope));
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    static BatchAverageGradeResponse toBatchResponse(List<String> courseNames, List<CourseStatisticsRow> rows,
+                                                     long processingTime) {
+        Map<Long, List<CourseStatisticsRow>> rowsByCourse = new LinkedHashMap<>();
+        for (CourseStatisticsRow row : rows) {
+            rowsByCourse.computeIfAbsent(row.getCourseId(), id -> new ArrayList<>()).add(row);
+        }
+
+        List<AverageGradeResponse> courses = new ArrayList<>(rowsByCourse.size());
+        Set<String> found = new HashSet<>();
+        for (List<CourseStatisticsRow> courseRows : rowsByCourse.values()) {
+            String courseName = courseRows.get(0).getCourseName();
+            found.add(courseName);
+            courses.add(toResponse(courseName, courseRows, processingTime));
+        }
+
+        return BatchAverageGradeResponse.builder()
+                .courses(courses)
+                .missingCourses(courseNames.stream().filter(name -> !found.contains(name)).toList())
+                .processingTimeMs(processingTime)
+                .build();
+    }
+
+    static AverageGradeResponse toResponse(String courseName, List<CourseStatisticsRow> rows, long processingTime) {
+        CourseStatisticsRow totals = rows.get(0);
+        log.debug("Found course: {} (id {})", courseName, totals.getCourseId());
+
+        List<AverageGradeResponse.StudentGradeInfo> topStudents = new ArrayList<>(rows.size());
+        for (CourseStatisticsRow row : rows) {
+            if (row.getStudentId() == null) {
+                break;
+            }
+            topStudents.add(AverageGradeResponse.StudentGradeInfo.builder()
+                    .studentId(row.getStudentId())
+                    .studentName(row.getStudentName())
+                    .averageGrade(row.getAverageGrade())
+                    .gradeCount(row.getGradeCount().intValue())
+                    .build());
+        }
 
         return AverageGradeResponse.builder()
                 .courseName(courseName)
-                .averageGrade(averageGrade)
-                .totalStudents(totalStudents.intValue())
-                .totalGrades(totalGrades.intValue())
+                .averageGrade(totals.getCourseAverageGrade())
+                .totalStudents(totals.getCourseStudentCount().intValue())
+                .totalGrades(totals.getCourseGradeCount().intValue())
                 .topStudents(topStudents)
                 .processingTimeMs(processingTime)
                 .build();
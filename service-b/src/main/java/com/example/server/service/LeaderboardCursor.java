@@ -0,0 +1,44 @@
+package com.example.server.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position after the last row of a leaderboard page. The average is carried as the exact
+ * grade_sum / grade_count pair, so the database recomputes the very same float8 for the
+ * seek. Encoded as an opaque URL-safe token; {@code rank} only numbers the next page.
+ */
+record LeaderboardCursor(long gradeSum, long gradeCount, long studentId, long rank) {
+
+    String encode() {
+        String raw = gradeSum + "." + gradeCount + "." + studentId + "." + rank;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static LeaderboardCursor decode(String token) {
+        String[] parts;
+        try {
+            // -1: trailing empty fields count, so "1.2.3.4." is not taken for "1.2.3.4"
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII).split("\\.", -1);
+        } catch (IllegalArgumentException e) {
+            throw invalid(token);
+        }
+        if (parts.length != 4) {
+            throw invalid(token);
+        }
+        try {
+            LeaderboardCursor cursor = new LeaderboardCursor(
+                    Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]), Long.parseLong(parts[3]));
+            if (cursor.gradeCount <= 0 || cursor.rank < 0) {
+                throw invalid(token);
+            }
+            return cursor;
+        } catch (NumberFormatException e) {
+            throw invalid(token);
+        }
+    }
+
+    private static IllegalArgumentException invalid(String token) {
+        return new IllegalArgumentException("Invalid leaderboard cursor: " + token);
+    }
+}
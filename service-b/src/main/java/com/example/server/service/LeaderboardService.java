@@ -0,0 +1,93 @@
+package com.example.server.service;
+
+import com.example.api.dto.LeaderboardPage;
+import com.example.server.dto.LeaderboardRow;
+import com.example.server.repository.GradeRepository;
+import com.example.server.repository.ReactiveCourseStatisticsRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Full course ranking, page by page. Each page is one keyset query (see
+ * {@link GradeRepository#LEADERBOARD_NEXT_PAGE_QUERY}); the returned cursor points after its
+ * last row. R2DBC with the {@code r2dbc} profile, otherwise JPA on the {@link BlockingCallExecutor}.
+ */
+@Service
+@RequiredArgsConstructor
+public class LeaderboardService {
+    private final GradeRepository gradeRepository;
+    private final CourseCatalog courseCatalog;
+    private final BlockingCallExecutor blockingCallExecutor;
+    private final Optional<ReactiveCourseStatisticsRepository> reactiveRepository;
+
+    @Value("${grades.leaderboard.page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${grades.leaderboard.max-page-size:500}")
+    private int maxPageSize;
+
+    /**
+     * Empty when the course does not exist; an unknown name is answered from
+     * {@link CourseCatalog} without a query. {@code cursor} is null for the first page; a
+     * malformed cursor fails with {@link IllegalArgumentException}.
+     */
+    public Mono<LeaderboardPage> getPage(String courseName, String cursor, Integer limit) {
+        return Mono.defer(() -> {
+            LeaderboardCursor after = cursor == null || cursor.isBlank() ? null : LeaderboardCursor.decode(cursor);
+            int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+            // one extra row tells whether there is a next page
+            return Mono.justOrEmpty(courseCatalog.findId(courseName))
+                    .flatMap(courseId -> findRows(courseId, after, pageSize + 1))
+                    .flatMap(rows -> rows.isEmpty()
+                            ? Mono.empty()
+                            : Mono.just(toPage(courseName, rows, after, pageSize)));
+        });
+    }
+
+    private Mono<List<LeaderboardRow>> findRows(long courseId, LeaderboardCursor after, int limit) {
+        return reactiveRepository
+                .map(repository -> (after == null
+                        ? repository.findLeaderboardFirstPage(courseId, limit)
+                        : repository.findLeaderboardPageAfter(courseId,
+                                after.gradeSum(), after.gradeCount(), after.studentId(), limit))
+                        .collectList())
+                .orElseGet(() -> blockingCallExecutor.call(() -> after == null
+                        ? gradeRepository.findLeaderboardFirstPage(courseId, limit)
+                        : gradeRepository.findLeaderboardPageAfter(courseId,
+                                after.gradeSum(), after.gradeCount(), after.studentId(), limit)));
+    }
+
+    private static LeaderboardPage toPage(String courseName, List<LeaderboardRow> rows, LeaderboardCursor after, int pageSize) {
+        long rank = after == null ? 0 : after.rank();
+        List<LeaderboardPage.Entry> entries = new ArrayList<>(Math.min(rows.size(), pageSize));
+        LeaderboardRow last = null;
+        for (LeaderboardRow row : rows) {
+            if (row.getStudentId() == null || entries.size() == pageSize) {
+                break;
+            }
+            entries.add(LeaderboardPage.Entry.builder()
+                    .rank(++rank)
+                    .studentId(row.getStudentId())
+                    .studentName(row.getStudentName())
+                    .averageGrade((double) row.getGradeSum() / row.getGradeCount())
+                    .gradeCount(row.getGradeCount())
+                    .build());
+            last = row;
+        }
+
+        boolean hasNext = rows.size() > pageSize && rows.get(pageSize).getStudentId() != null;
+        return LeaderboardPage.builder()
+                .courseName(courseName)
+                .entries(entries)
+                .nextCursor(hasNext
+                        ? new LeaderboardCursor(last.getGradeSum(), last.getGradeCount(), last.getStudentId(), rank).encode()
+                        : null)
+                .build();
+    }
+}
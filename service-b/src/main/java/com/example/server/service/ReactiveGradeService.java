@@ -0,0 +1,81 @@
+package com.example.server.service;
+
+import com.example.api.dto.AverageGradeResponse;
+import com.example.api.dto.BatchAverageGradeResponse;
+import com.example.server.dto.CourseStatisticsRow;
+import com.example.server.repository.ReactiveCourseStatisticsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Non-blocking variant of {@link GradeService}, active with the {@code r2dbc} profile.
+ * The query runs on the R2DBC driver's event loop, so no boundedElastic thread is held
+ * while PostgreSQL computes the result. With the {@code columnar} profile as well, statistics
+ * come from the in-memory engine through {@link GradeService} instead.
+ */
+@Service
+@Profile("r2dbc & !columnar")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveGradeService {
+    private final ReactiveCourseStatisticsRepository courseStatisticsRepository;
+    private final CourseCatalog courseCatalog;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${grades.top-students.limit:10}")
+    private int topStudentsLimit;
+
+    /**
+     * Empty when the course was deleted after {@code courseId} was resolved from
+     * {@link CourseCatalog}.
+     */
+    public Mono<AverageGradeResponse> calculateAverageGradeByCourse(long courseId, String courseName) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            log.debug("Starting R2DBC grade calculation for course: {}", courseName);
+
+            return courseStatisticsRepository.findCourseStatisticsByCourseId(courseId, topStudentsLimit)
+                    .collectList()
+                    .flatMap(rows -> {
+                        if (rows.isEmpty()) {
+                            return Mono.empty();
+                        }
+                        long processingTime = GradeService.stopTimer(sample, meterRegistry, "r2dbc", "course");
+                        log.debug("R2DBC calculation completed in {} ms (read from course_stats aggregates, top {})",
+                                processingTime, topStudentsLimit);
+                        return Mono.just(GradeService.toResponse(courseName, rows, processingTime));
+                    });
+        });
+    }
+
+    public Mono<BatchAverageGradeResponse> calculateAverageGrades(List<String> courseNames) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            log.debug("Starting R2DBC batch grade calculation for courses: {}",
+                    courseNames.isEmpty() ? "all" : courseNames);
+
+            Collection<Long> courseIds = courseCatalog.findIds(courseNames).values();
+            return (courseNames.isEmpty()
+                    ? courseStatisticsRepository.findAllCourseStatistics(topStudentsLimit)
+                    : courseIds.isEmpty()
+                    ? Flux.<CourseStatisticsRow>empty()
+                    : courseStatisticsRepository.findCourseStatisticsByCourseIds(courseIds, topStudentsLimit))
+                    .collectList()
+                    .map(rows -> {
+                        long processingTime = GradeService.stopTimer(sample, meterRegistry, "r2dbc", "batch");
+                        log.debug("R2DBC batch calculation completed in {} ms ({} rows)", processingTime, rows.size());
+                        return GradeService.toBatchResponse(courseNames, rows, processingTime);
+                    });
+        });
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.server.service;
+
+import com.example.server.dto.CourseStatsMismatch;
+import com.example.server.dto.StatsConsistencyReport;
+import com.example.server.repository.CourseStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StatsConsistencyChecker {
+    private final CourseStatsRepository courseStatsRepository;
+
+    @Value("${grades.partitions.parallelism:1}")
+    private int partitionParallelism;
+
+    // REPEATABLE READ: live aggregation and stored aggregates are compared on one snapshot
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public StatsConsistencyReport check() {
+        long startTime = System.currentTimeMillis();
+        // SET LOCAL: the setting lasts until this transaction ends, the rebuild included
+        if (partitionParallelism > 1) {
+            courseStatsRepository.enablePartitionwiseAggregate();
+        }
+
+        List<CourseStatsMismatch> courseMismatches = courseStatsRepository.findCourseStatsMismatches();
+        Long studentMismatches = courseStatsRepository.countStudentCourseStatsMismatches();
+        boolean consistent = courseMismatches.isEmpty() && studentMismatches == 0;
+
+        if (consistent) {
+            log.info("Grade aggregates are consistent with the grades table");
+        } else {
+            log.warn("Grade aggregates diverged: {} course rows, {} student rows",
+                    courseMismatches.size(), studentMismatches);
+        }
+
+        return StatsConsistencyReport.builder()
+                .consistent(consistent)
+                .rebuilt(false)
+                .courseMismatches(courseMismatches)
+                .studentMismatches(studentMismatches)
+                .processingTimeMs(System.currentTimeMillis() - startTime)
+                .build();
+    }
+
+    @Transactional
+    public StatsConsistencyReport rebuild() {
+        long startTime = System.currentTimeMillis();
+        courseStatsRepository.lockGrades();
+        StatsConsistencyReport before = check();
+
+        courseStatsRepository.deleteAllStudentCourseStats();
+        courseStatsRepository.deleteAllCourseStats();
+        int studentRows = courseStatsRepository.rebuildStudentCourseStats();
+        int courseRows = courseStatsRepository.rebuildCourseStats();
+        log.info("Rebuilt grade aggregates: {} course rows, {} student rows", courseRows, studentRows);
+
+        before.setRebuilt(true);
+        before.setProcessingTimeMs(System.currentTimeMillis() - startTime);
+        return before;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.server.service;
+
+import com.example.server.dto.StudentGradeStats;
+import com.example.server.dto.TimeWindow;
+import com.example.server.repository.ReactiveCourseStatisticsRepository;
+import com.example.server.repository.StudentStatisticsCursorReader;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Per-student statistics of a whole course, streamed from a database cursor: R2DBC with the
+ * {@code r2dbc} profile, otherwise JDBC on boundedElastic. Nothing is collected into a list,
+ * so memory does not grow with the number of students.
+ * <p>
+ * A stream holds its connection for as long as the client reads, outside the blocking call
+ * executor and the concurrency limiter, so at most {@code grades.export.max-concurrent-streams}
+ * run at once; a further one fails with {@link ExportStreamsExhaustedException} before its
+ * first row.
+ */
+@Service
+@RequiredArgsConstructor
+public class StudentStatisticsExportService {
+    private final CourseCatalog courseCatalog;
+    private final StudentStatisticsCursorReader cursorReader;
+    private final Optional<ReactiveCourseStatisticsRepository> reactiveRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${grades.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${grades.export.max-concurrent-streams:2}")
+    private int maxConcurrentStreams;
+
+    @Value("${grades.export.retry-after:5s}")
+    private Duration retryAfter;
+
+    private Semaphore streams;
+
+    @PostConstruct
+    void init() {
+        if (maxConcurrentStreams <= 0) {
+            throw new IllegalStateException("grades.export.max-concurrent-streams must be positive: "
+                    + maxConcurrentStreams);
+        }
+        streams = new Semaphore(maxConcurrentStreams);
+        Gauge.builder("grades.export.streams.available", streams, Semaphore::availablePermits)
+                .description("Student export streams that may still start")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Empty when the course does not exist, so the caller can answer 404 before the body
+     * starts. The inner Flux opens the cursor when it is subscribed.
+     */
+    public Mono<Flux<StudentGradeStats>> streamStudentStatistics(String courseName) {
+        return Mono.justOrEmpty(courseCatalog.findId(courseName))
+                .map(courseId -> bounded(reactiveRepository
+                        .map(repository -> repository.streamStudentStatistics(courseId, fetchSize))
+                        .orElseGet(() -> cursorReader.streamByCourseId(courseId, fetchSize))));
+    }
+
+    /** The same, counting only grades created within {@code window}. */
+    public Mono<Flux<StudentGradeStats>> streamStudentStatistics(String courseName, TimeWindow window) {
+        return Mono.justOrEmpty(courseCatalog.findId(courseName))
+                .map(courseId -> bounded(reactiveRepository
+                        .map(repository -> repository.streamStudentStatistics(courseId, window, fetchSize))
+                        .orElseGet(() -> cursorReader.streamByCourseId(courseId, window, fetchSize))));
+    }
+
+    // the permit is taken on subscription and returned when the stream ends, however it ends
+    private Flux<StudentGradeStats> bounded(Flux<StudentGradeStats> students) {
+        return Flux.defer(() -> {
+            if (!streams.tryAcquire()) {
+                return Flux.error(new ExportStreamsExhaustedException(maxConcurrentStreams, retryAfter));
+            }
+            return students.doFinally(signal -> streams.release());
+        });
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.server.service;
+
+import com.example.api.dto.AverageGradeResponse;
+import com.example.api.dto.GradeDistributionResponse;
+import com.example.server.dto.CourseStatisticsRow;
+import com.example.server.dto.GradeHistogramRow;
+import com.example.server.dto.TimeWindow;
+import com.example.server.repository.GradeRepository;
+import com.example.server.repository.GradeRollupRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Statistics and distribution of the grades a course received within a {@link TimeWindow}.
+ * Not cached: windows ending now change with every request. The statistics aggregate the
+ * window's raw grades per student, as counting students and ranking them needs; the
+ * distribution is merged from grade_daily_rollups plus the raw grades of the window's partial
+ * days. Per-student statistics of a window are streamed by {@link StudentStatisticsExportService}.
+ */
+@Service
+@RequiredArgsConstructor
+public class WindowedGradeStatisticsService {
+    private final GradeRepository gradeRepository;
+    private final GradeRollupRepository gradeRollupRepository;
+    private final CourseCatalog courseCatalog;
+    private final BlockingCallExecutor blockingCallExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${grades.distribution.pass-threshold:60}")
+    private int passThreshold;
+
+    @Value("${grades.top-students.limit:10}")
+    private int topStudentsLimit;
+
+    /**
+     * Same fields as the statistics over all grades, restricted to the window: an average of 0
+     * and no students when the course has no grades there. Empty when the course does not exist.
+     */
+    public Mono<AverageGradeResponse> getAverageGrade(String courseName, TimeWindow window) {
+        return Mono.justOrEmpty(courseCatalog.findId(courseName))
+                .flatMap(courseId -> blockingCallExecutor.call(() -> {
+                    Timer.Sample sample = Timer.start(meterRegistry);
+                    List<CourseStatisticsRow> rows = gradeRepository.findCourseStatisticsInWindow(
+                            courseId, window.from(), window.to(), topStudentsLimit);
+                    long processingTime = GradeService.stopTimer(sample, meterRegistry, "jpa", "course-window");
+                    // no row when the course was deleted after courseId was resolved
+                    return rows.isEmpty() ? null : GradeService.toResponse(courseName, rows, processingTime);
+                }));
+    }
+
+    /** Empty when the course does not exist. */
+    public Mono<GradeDistributionResponse> getCourseDistribution(String courseName, TimeWindow window) {
+        return Mono.justOrEmpty(courseCatalog.findId(courseName))
+                .flatMap(courseId -> blockingCallExecutor.call(() -> {
+                    Timer.Sample sample = Timer.start(meterRegistry);
+                    GradeHistogram histogram = new GradeHistogram();
+                    for (GradeHistogramRow row : gradeRollupRepository.findWindowHistogram(courseId, window, LocalDate.now())) {
+                        histogram.add(row.getGrade(), row.getGradeCount());
+                    }
+                    return histogram.toResponse(courseName, passThreshold,
+                            GradeService.stopTimer(sample, meterRegistry, "rollup", "distribution-window"));
+                }));
+    }
+}
@@ -0,0 +1,24 @@
+-- Also publishes the courses of updated or deleted grades on 'grades_rewritten'. Appending the
+-- rows above the highest known id does not bring an in-memory copy of those courses up to date,
+-- and an update that keeps the course totals unchanged cannot be seen in course_stats; a
+-- course named here has to be read again as a whole. 'grades_changed' is sent as before.
+CREATE OR REPLACE FUNCTION grades_notify_change() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM pg_notify('grades_changed', course_id::text)
+        FROM (SELECT DISTINCT course_id FROM new_grades) changed;
+    ELSIF TG_OP = 'UPDATE' THEN
+        PERFORM pg_notify('grades_rewritten', course_id::text), pg_notify('grades_changed', course_id::text)
+        FROM (
+            SELECT course_id FROM new_grades
+            UNION
+            SELECT course_id FROM old_grades
+        ) changed;
+    ELSE
+        PERFORM pg_notify('grades_rewritten', course_id::text), pg_notify('grades_changed', course_id::text)
+        FROM (SELECT DISTINCT course_id FROM old_grades) changed;
+    END IF;
+    RETURN NULL;
+END;
+$$;
@@ -0,0 +1,114 @@
+-- The grades triggers now queue what a statement changed per (course, day, grade) instead of
+-- only which days it touched, so GradeRollupJob adds the changes to the rollup rows rather
+-- than recomputing every touched day from all of that day's grades.
+
+-- no grades are written while the queue is switched over
+LOCK TABLE grades IN SHARE MODE;
+
+-- Days still queued by V9's triggers, recomputed the V9 way one last time
+WITH days AS (
+    SELECT DISTINCT course_id, day FROM grade_rollup_changes
+),
+totals AS (
+    SELECT d.course_id, d.day, t.grade_sum, t.grade_count, t.histogram
+    FROM days d
+    CROSS JOIN LATERAL (
+        SELECT COALESCE(SUM(c.grade * c.grade_count), 0) AS grade_sum,
+               COALESCE(SUM(c.grade_count), 0) AS grade_count,
+               grade_histogram(array_agg(c.grade), array_agg(c.grade_count)) AS histogram
+        FROM (
+            SELECT g.grade, COUNT(*) AS grade_count
+            FROM grades g
+            WHERE g.course_id = d.course_id
+              AND g.created_at >= d.day
+              AND g.created_at < d.day + 1
+            GROUP BY g.grade
+        ) c
+    ) t
+),
+upserted AS (
+    INSERT INTO grade_daily_rollups AS r (course_id, day, grade_sum, grade_count, histogram)
+    SELECT course_id, day, grade_sum, grade_count, histogram
+    FROM totals
+    WHERE grade_count > 0
+    ON CONFLICT (course_id, day) DO UPDATE
+        SET grade_sum = EXCLUDED.grade_sum,
+            grade_count = EXCLUDED.grade_count,
+            histogram = EXCLUDED.histogram
+)
+DELETE FROM grade_daily_rollups r
+USING totals t
+WHERE r.course_id = t.course_id AND r.day = t.day AND t.grade_count = 0;
+
+DROP TRIGGER trg_grades_rollup_insert ON grades;
+DROP TRIGGER trg_grades_rollup_update ON grades;
+DROP TRIGGER trg_grades_rollup_delete ON grades;
+DROP FUNCTION grades_rollup_mark_change();
+DROP TABLE grade_rollup_changes;
+
+-- Net change in the number of grades of each value per course and day, appended by the
+-- triggers below: positive for inserted grades, negative for deleted ones, an update counts
+-- as both. No key on purpose, like V9's queue: the job deletes only the rows its snapshot
+-- sees, and deltas of transactions that commit later stay queued.
+CREATE TABLE grade_rollup_deltas (
+    course_id BIGINT NOT NULL,
+    day DATE NOT NULL,
+    grade INTEGER NOT NULL,
+    grade_count BIGINT NOT NULL
+);
+
+-- Element-wise sum of two histograms
+CREATE FUNCTION grade_histogram_add(p_left BIGINT[], p_right BIGINT[]) RETURNS BIGINT[]
+LANGUAGE sql IMMUTABLE AS $$
+    SELECT array_agg(COALESCE(l, 0) + COALESCE(r, 0) ORDER BY position)
+    FROM unnest(p_left, p_right) WITH ORDINALITY u(l, r, position)
+$$;
+
+-- Statement-level: one INSERT per statement, grouped, so a bulk insert of 10k grades queues
+-- at most one row per (course, day, grade) it touched
+CREATE FUNCTION grades_rollup_queue_deltas() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO grade_rollup_deltas (course_id, day, grade, grade_count)
+        SELECT course_id, created_at::date, grade, COUNT(*)
+        FROM new_grades
+        WHERE created_at IS NOT NULL
+        GROUP BY course_id, created_at::date, grade;
+    ELSIF TG_OP = 'UPDATE' THEN
+        INSERT INTO grade_rollup_deltas (course_id, day, grade, grade_count)
+        SELECT course_id, day, grade, SUM(grade_count)
+        FROM (
+            SELECT course_id, created_at::date AS day, grade, 1 AS grade_count
+            FROM new_grades WHERE created_at IS NOT NULL
+            UNION ALL
+            SELECT course_id, created_at::date, grade, -1
+            FROM old_grades WHERE created_at IS NOT NULL
+        ) changes
+        GROUP BY course_id, day, grade
+        HAVING SUM(grade_count) <> 0;
+    ELSE
+        INSERT INTO grade_rollup_deltas (course_id, day, grade, grade_count)
+        SELECT course_id, created_at::date, grade, -COUNT(*)
+        FROM old_grades
+        WHERE created_at IS NOT NULL
+        GROUP BY course_id, created_at::date, grade;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER trg_grades_rollup_insert
+    AFTER INSERT ON grades
+    REFERENCING NEW TABLE AS new_grades
+    FOR EACH STATEMENT EXECUTE FUNCTION grades_rollup_queue_deltas();
+
+CREATE TRIGGER trg_grades_rollup_update
+    AFTER UPDATE ON grades
+    REFERENCING OLD TABLE AS old_grades NEW TABLE AS new_grades
+    FOR EACH STATEMENT EXECUTE FUNCTION grades_rollup_queue_deltas();
+
+CREATE TRIGGER trg_grades_rollup_delete
+    AFTER DELETE ON grades
+    REFERENCING OLD TABLE AS old_grades
+    FOR EACH STATEMENT EXECUTE FUNCTION grades_rollup_queue_deltas();
@@ -0,0 +1,33 @@
+-- Publishes 'students_changed' with the id of every student whose name was changed or who was
+-- deleted, so that in-process caches of student names (the columnar engine's) drop the entry.
+-- TRUNCATE sends an empty payload: every cached name is dropped.
+CREATE FUNCTION students_notify_change() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'UPDATE' THEN
+        PERFORM pg_notify('students_changed', n.id::text)
+        FROM new_students n
+        JOIN old_students o ON o.id = n.id
+        WHERE n.name IS DISTINCT FROM o.name;
+    ELSIF TG_OP = 'DELETE' THEN
+        PERFORM pg_notify('students_changed', id::text) FROM old_students;
+    ELSE
+        PERFORM pg_notify('students_changed', '');
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER trg_students_notify_update
+    AFTER UPDATE ON students
+    REFERENCING OLD TABLE AS old_students NEW TABLE AS new_students
+    FOR EACH STATEMENT EXECUTE FUNCTION students_notify_change();
+
+CREATE TRIGGER trg_students_notify_delete
+    AFTER DELETE ON students
+    REFERENCING OLD TABLE AS old_students
+    FOR EACH STATEMENT EXECUTE FUNCTION students_notify_change();
+
+CREATE TRIGGER trg_students_notify_truncate
+    AFTER TRUNCATE ON students
+    FOR EACH STATEMENT EXECUTE FUNCTION students_notify_change();
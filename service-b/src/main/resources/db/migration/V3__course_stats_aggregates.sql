@@ -0,0 +1,150 @@
+-- Aggregates maintained on every write to grades, so course statistics are read
+-- from one row instead of scanning all grades of the course.
+CREATE TABLE course_stats (
+    course_id BIGINT PRIMARY KEY REFERENCES courses(id),
+    grade_sum BIGINT NOT NULL DEFAULT 0,
+    grade_count BIGINT NOT NULL DEFAULT 0,
+    student_count BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE student_course_stats (
+    course_id BIGINT NOT NULL REFERENCES courses(id),
+    student_id BIGINT NOT NULL REFERENCES students(id),
+    grade_sum BIGINT NOT NULL,
+    grade_count BIGINT NOT NULL,
+    PRIMARY KEY (course_id, student_id)
+);
+
+-- Ranking of a course's students by average grade: serves top-N with an index scan
+CREATE INDEX idx_student_course_stats_rank
+    ON student_course_stats (course_id, (grade_sum::float8 / grade_count) DESC, student_id);
+
+INSERT INTO student_course_stats (course_id, student_id, grade_sum, grade_count)
+SELECT course_id, student_id, SUM(grade), COUNT(*)
+FROM grades
+GROUP BY course_id, student_id;
+
+INSERT INTO course_stats (course_id, grade_sum, grade_count, student_count)
+SELECT c.id, COALESCE(SUM(scs.grade_sum), 0), COALESCE(SUM(scs.grade_count), 0), COUNT(scs.student_id)
+FROM courses c
+LEFT JOIN student_course_stats scs ON scs.course_id = c.id
+GROUP BY c.id;
+
+-- Applies signed per (course, student) deltas. A student_course_stats row is created
+-- with the first grade and deleted with the last one (never left with grade_count = 0),
+-- and course_stats.student_count follows those transitions, so it always equals
+-- COUNT(DISTINCT student_id).
+CREATE FUNCTION apply_grade_stats_delta(
+    p_course_ids BIGINT[],
+    p_student_ids BIGINT[],
+    p_grade_sums BIGINT[],
+    p_grade_counts BIGINT[]
+) RETURNS void
+LANGUAGE plpgsql AS $$
+BEGIN
+    WITH delta AS (
+        SELECT d.course_id, d.student_id, d.grade_sum, d.grade_count
+        FROM unnest(p_course_ids, p_student_ids, p_grade_sums, p_grade_counts)
+            AS d(course_id, student_id, grade_sum, grade_count)
+        WHERE d.grade_sum <> 0 OR d.grade_count <> 0
+    ),
+    removed AS (
+        DELETE FROM student_course_stats scs
+        USING delta d
+        WHERE scs.course_id = d.course_id
+          AND scs.student_id = d.student_id
+          AND scs.grade_count + d.grade_count = 0
+        RETURNING scs.course_id, scs.student_id
+    ),
+    upserted AS (
+        INSERT INTO student_course_stats AS scs (course_id, student_id, grade_sum, grade_count)
+        SELECT d.course_id, d.student_id, d.grade_sum, d.grade_count
+        FROM delta d
+        WHERE NOT EXISTS (
+            SELECT 1 FROM removed r WHERE r.course_id = d.course_id AND r.student_id = d.student_id
+        )
+        ORDER BY d.course_id, d.student_id
+        ON CONFLICT (course_id, student_id) DO UPDATE
+            SET grade_sum = scs.grade_sum + EXCLUDED.grade_sum,
+                grade_count = scs.grade_count + EXCLUDED.grade_count
+        RETURNING scs.course_id, (xmax = 0) AS created
+    ),
+    student_changes AS (
+        SELECT course_id, SUM(student_delta)::bigint AS student_delta
+        FROM (
+            SELECT course_id, COUNT(*) FILTER (WHERE created) AS student_delta FROM upserted GROUP BY course_id
+            UNION ALL
+            SELECT course_id, -COUNT(*) FROM removed GROUP BY course_id
+        ) changes
+        GROUP BY course_id
+    )
+    INSERT INTO course_stats AS cs (course_id, grade_sum, grade_count, student_count)
+    SELECT d.course_id, d.grade_sum, d.grade_count, COALESCE(sc.student_delta, 0)
+    FROM (
+        SELECT course_id, SUM(grade_sum)::bigint AS grade_sum, SUM(grade_count)::bigint AS grade_count
+        FROM delta
+        GROUP BY course_id
+    ) d
+    LEFT JOIN student_changes sc ON sc.course_id = d.course_id
+    ORDER BY d.course_id
+    ON CONFLICT (course_id) DO UPDATE
+        SET grade_sum = cs.grade_sum + EXCLUDED.grade_sum,
+            grade_count = cs.grade_count + EXCLUDED.grade_count,
+            student_count = cs.student_count + EXCLUDED.student_count;
+END;
+$$;
+
+-- Statement-level triggers: one aggregate update per INSERT/UPDATE/DELETE/COPY statement,
+-- not per row, so bulk loads touch every aggregate row once.
+CREATE FUNCTION grades_stats_sync() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM apply_grade_stats_delta(array_agg(course_id), array_agg(student_id),
+                                        array_agg(grade_sum), array_agg(grade_count))
+        FROM (
+            SELECT course_id, student_id, SUM(grade) AS grade_sum, COUNT(*) AS grade_count
+            FROM new_grades
+            GROUP BY course_id, student_id
+        ) d;
+    ELSIF TG_OP = 'UPDATE' THEN
+        PERFORM apply_grade_stats_delta(array_agg(course_id), array_agg(student_id),
+                                        array_agg(grade_sum), array_agg(grade_count))
+        FROM (
+            SELECT course_id, student_id, SUM(grade_sum)::bigint AS grade_sum, SUM(grade_count)::bigint AS grade_count
+            FROM (
+                SELECT course_id, student_id, grade::bigint AS grade_sum, 1::bigint AS grade_count
+                FROM new_grades
+                UNION ALL
+                SELECT course_id, student_id, -grade::bigint, -1::bigint
+                FROM old_grades
+            ) changes
+            GROUP BY course_id, student_id
+        ) d;
+    ELSE
+        PERFORM apply_grade_stats_delta(array_agg(course_id), array_agg(student_id),
+                                        array_agg(grade_sum), array_agg(grade_count))
+        FROM (
+            SELECT course_id, student_id, -SUM(grade) AS grade_sum, -COUNT(*) AS grade_count
+            FROM old_grades
+            GROUP BY course_id, student_id
+        ) d;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER trg_grades_stats_insert
+    AFTER INSERT ON grades
+    REFERENCING NEW TABLE AS new_grades
+    FOR EACH STATEMENT EXECUTE FUNCTION grades_stats_sync();
+
+CREATE TRIGGER trg_grades_stats_update
+    AFTER UPDATE ON grades
+    REFERENCING OLD TABLE AS old_grades NEW TABLE AS new_grades
+    FOR EACH STATEMENT EXECUTE FUNCTION grades_stats_sync();
+
+CREATE TRIGGER trg_grades_stats_delete
+    AFTER DELETE ON grades
+    REFERENCING OLD TABLE AS old_grades
+    FOR EACH STATEMENT EXECUTE FUNCTION grades_stats_sync();
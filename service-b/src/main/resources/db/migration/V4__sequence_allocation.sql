@@ -0,0 +1,6 @@
+-- Hibernate's pooled optimizer reserves allocationSize ids per nextval() call, so the
+-- sequences must advance by the same step (see @SequenceGenerator on the entities).
+-- Writers that bypass Hibernate (bulk COPY) reserve ids in the same blocks of 50.
+ALTER SEQUENCE students_id_seq INCREMENT BY 50;
+ALTER SEQUENCE courses_id_seq INCREMENT BY 50;
+ALTER SEQUENCE grades_id_seq INCREMENT BY 50;
@@ -0,0 +1,38 @@
+-- Publishes the ids of courses whose grades changed on channel 'grades_changed' so that
+-- in-process caches can evict them. Notifications are delivered on commit, and duplicate
+-- payloads within one transaction are collapsed by PostgreSQL.
+CREATE FUNCTION grades_notify_change() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM pg_notify('grades_changed', course_id::text)
+        FROM (SELECT DISTINCT course_id FROM new_grades) changed;
+    ELSIF TG_OP = 'UPDATE' THEN
+        PERFORM pg_notify('grades_changed', course_id::text)
+        FROM (
+            SELECT course_id FROM new_grades
+            UNION
+            SELECT course_id FROM old_grades
+        ) changed;
+    ELSE
+        PERFORM pg_notify('grades_changed', course_id::text)
+        FROM (SELECT DISTINCT course_id FROM old_grades) changed;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER trg_grades_notify_insert
+    AFTER INSERT ON grades
+    REFERENCING NEW TABLE AS new_grades
+    FOR EACH STATEMENT EXECUTE FUNCTION grades_notify_change();
+
+CREATE TRIGGER trg_grades_notify_update
+    AFTER UPDATE ON grades
+    REFERENCING OLD TABLE AS old_grades NEW TABLE AS new_grades
+    FOR EACH STATEMENT EXECUTE FUNCTION grades_notify_change();
+
+CREATE TRIGGER trg_grades_notify_delete
+    AFTER DELETE ON grades
+    REFERENCING OLD TABLE AS old_grades
+    FOR EACH STATEMENT EXECUTE FUNCTION grades_notify_change();
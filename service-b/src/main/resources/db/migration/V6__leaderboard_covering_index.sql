@@ -0,0 +1,8 @@
+-- Ranking index extended with the aggregate columns: grade_sum/grade_count are read from
+-- the index itself, so the top-N lateral and leaderboard pages are index-only scans (plus
+-- one students lookup per returned row) instead of a heap fetch per row.
+CREATE INDEX idx_student_course_stats_leaderboard
+    ON student_course_stats (course_id, (grade_sum::float8 / grade_count) DESC, student_id)
+    INCLUDE (grade_sum, grade_count);
+
+DROP INDEX idx_student_course_stats_rank;
@@ -0,0 +1,14 @@
+-- Publishes 'courses_changed' whenever the course catalog is modified, so that the in-process
+-- course name -> id dictionary reloads. Courses change rarely and the dictionary is reloaded
+-- as a whole, hence one payload-less notification per statement.
+CREATE FUNCTION courses_notify_change() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    PERFORM pg_notify('courses_changed', '');
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER trg_courses_notify_change
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON courses
+    FOR EACH STATEMENT EXECUTE FUNCTION courses_notify_change();
@@ -0,0 +1,79 @@
+-- grades becomes a table hash-partitioned by course_id. A query with course_id = ? (or
+-- IN (...)) touches only the partitions of those courses, each with its own small indexes,
+-- and vacuum / analyze work partition by partition. Hash rather than list partitioning:
+-- courses are created at runtime and spread over the fixed partitions without DDL.
+-- Changing the number of partitions means rewriting the table in a new migration.
+--
+-- The rows are copied into the new table, so on a large database this migration takes
+-- as long as a bulk load of the whole table; grades stays locked until it commits. The
+-- aggregates (course_stats, student_course_stats) are already correct and are kept: the
+-- triggers are created after the copy.
+CREATE TABLE grades_partitioned (
+    id BIGINT NOT NULL DEFAULT nextval('grades_id_seq'),
+    student_id BIGINT NOT NULL,
+    course_id BIGINT NOT NULL,
+    grade INTEGER NOT NULL CHECK (grade >= 0 AND grade <= 100),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+) PARTITION BY HASH (course_id);
+
+DO $$
+BEGIN
+    FOR remainder IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF grades_partitioned FOR VALUES WITH (MODULUS 16, REMAINDER %s)',
+                       'grades_p' || lpad(remainder::text, 2, '0'), remainder);
+    END LOOP;
+END;
+$$;
+
+INSERT INTO grades_partitioned (id, student_id, course_id, grade, created_at)
+SELECT id, student_id, course_id, grade, created_at
+FROM grades;
+
+-- the sequence would be dropped with the table that owns it
+ALTER SEQUENCE grades_id_seq OWNED BY NONE;
+DROP TABLE grades;
+ALTER TABLE grades_partitioned RENAME TO grades;
+ALTER SEQUENCE grades_id_seq OWNED BY grades.id;
+
+-- A unique constraint of a partitioned table must contain the partition key. Indexes
+-- created on the parent are created on every partition (grades_pNN_...).
+ALTER TABLE grades ADD CONSTRAINT grades_pkey PRIMARY KEY (id, course_id);
+ALTER TABLE grades ADD CONSTRAINT grades_student_id_fkey FOREIGN KEY (student_id) REFERENCES students(id);
+ALTER TABLE grades ADD CONSTRAINT grades_course_id_fkey FOREIGN KEY (course_id) REFERENCES courses(id);
+CREATE INDEX idx_grades_student_id ON grades (student_id);
+-- a partition holds several courses: per-course histograms and averages read only the index
+CREATE INDEX idx_grades_course_grade ON grades (course_id, grade);
+
+-- Statement-level triggers of V3 and V5, now on the partitioned table: their transition
+-- tables hold the rows of every partition a statement wrote to.
+CREATE TRIGGER trg_grades_stats_insert
+    AFTER INSERT ON grades
+    REFERENCING NEW TABLE AS new_grades
+    FOR EACH STATEMENT EXECUTE FUNCTION grades_stats_sync();
+
+CREATE TRIGGER trg_grades_stats_update
+    AFTER UPDATE ON grades
+    REFERENCING OLD TABLE AS old_grades NEW TABLE AS new_grades
+    FOR EACH STATEMENT EXECUTE FUNCTION grades_stats_sync();
+
+CREATE TRIGGER trg_grades_stats_delete
+    AFTER DELETE ON grades
+    REFERENCING OLD TABLE AS old_grades
+    FOR EACH STATEMENT EXECUTE FUNCTION grades_stats_sync();
+
+CREATE TRIGGER trg_grades_notify_insert
+    AFTER INSERT ON grades
+    REFERENCING NEW TABLE AS new_grades
+    FOR EACH STATEMENT EXECUTE FUNCTION grades_notify_change();
+
+CREATE TRIGGER trg_grades_notify_update
+    AFTER UPDATE ON grades
+    REFERENCING OLD TABLE AS old_grades NEW TABLE AS new_grades
+    FOR EACH STATEMENT EXECUTE FUNCTION grades_notify_change();
+
+CREATE TRIGGER trg_grades_notify_delete
+    AFTER DELETE ON grades
+    REFERENCING OLD TABLE AS old_grades
+    FOR EACH STATEMENT EXECUTE FUNCTION grades_notify_change();
+
+ANALYZE grades;
@@ -0,0 +1,78 @@
+-- Per course and day (the date of grades.created_at): sum, count and the 101-bucket histogram
+-- of the grades, so statistics of a time window merge one row per day instead of scanning
+-- the raw grades. Kept up to date by service-b's GradeRollupJob from grade_rollup_changes.
+CREATE TABLE grade_daily_rollups (
+    course_id BIGINT NOT NULL REFERENCES courses(id),
+    day DATE NOT NULL,
+    grade_sum BIGINT NOT NULL,
+    grade_count BIGINT NOT NULL,
+    -- histogram[grade + 1] = number of grades of that value
+    histogram BIGINT[] NOT NULL,
+    PRIMARY KEY (course_id, day)
+);
+
+-- (course, day) pairs written since the job last ran, appended by the triggers below. No
+-- unique key on purpose: the job deletes only the rows its snapshot sees, so a pair marked
+-- by a transaction that commits later stays queued even if an earlier mark was consumed.
+CREATE TABLE grade_rollup_changes (
+    course_id BIGINT NOT NULL,
+    day DATE NOT NULL
+);
+
+-- Raw rows of a window's partial days, and of one day when the job recomputes it
+CREATE INDEX idx_grades_course_created ON grades (course_id, created_at);
+
+-- Dense histogram (101 counts) from sparse (grade, count) pairs
+CREATE FUNCTION grade_histogram(p_grades INTEGER[], p_counts BIGINT[]) RETURNS BIGINT[]
+LANGUAGE sql IMMUTABLE AS $$
+    SELECT array_agg(COALESCE(c.grade_count, 0) ORDER BY v.grade)
+    FROM generate_series(0, 100) v(grade)
+    LEFT JOIN unnest(p_grades, p_counts) c(grade, grade_count) ON c.grade = v.grade
+$$;
+
+INSERT INTO grade_daily_rollups (course_id, day, grade_sum, grade_count, histogram)
+SELECT course_id, day, SUM(grade * grade_count), SUM(grade_count),
+       grade_histogram(array_agg(grade), array_agg(grade_count))
+FROM (
+    SELECT course_id, created_at::date AS day, grade, COUNT(*) AS grade_count
+    FROM grades
+    WHERE created_at IS NOT NULL
+    GROUP BY course_id, created_at::date, grade
+) counts
+GROUP BY course_id, day;
+
+-- Statement-level, like the aggregate triggers: one INSERT per statement with the distinct
+-- (course, day) pairs it touched
+CREATE FUNCTION grades_rollup_mark_change() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO grade_rollup_changes (course_id, day)
+        SELECT DISTINCT course_id, created_at::date FROM new_grades WHERE created_at IS NOT NULL;
+    ELSIF TG_OP = 'UPDATE' THEN
+        INSERT INTO grade_rollup_changes (course_id, day)
+        SELECT course_id, created_at::date FROM new_grades WHERE created_at IS NOT NULL
+        UNION
+        SELECT course_id, created_at::date FROM old_grades WHERE created_at IS NOT NULL;
+    ELSE
+        INSERT INTO grade_rollup_changes (course_id, day)
+        SELECT DISTINCT course_id, created_at::date FROM old_grades WHERE created_at IS NOT NULL;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER trg_grades_rollup_insert
+    AFTER INSERT ON grades
+    REFERENCING NEW TABLE AS new_grades
+    FOR EACH STATEMENT EXECUTE FUNCTION grades_rollup_mark_change();
+
+CREATE TRIGGER trg_grades_rollup_update
+    AFTER UPDATE ON grades
+    REFERENCING OLD TABLE AS old_grades NEW TABLE AS new_grades
+    FOR EACH STATEMENT EXECUTE FUNCTION grades_rollup_mark_change();
+
+CREATE TRIGGER trg_grades_rollup_delete
+    AFTER DELETE ON grades
+    REFERENCING OLD TABLE AS old_grades
+    FOR EACH STATEMENT EXECUTE FUNCTION grades_rollup_mark_change();
@@ -0,0 +1,112 @@
+package com.example.server.controller;
+
+import com.example.api.dto.LeaderboardPage;
+import com.example.server.dto.LeaderboardRow;
+import com.example.server.repository.GradeRepository;
+import com.example.server.service.BlockingCallExecutor;
+import com.example.server.service.CourseCatalog;
+import com.example.server.service.LeaderboardService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GradeControllerLeaderboardTest {
+    private static final long COURSE_ID = 7;
+
+    private final GradeRepository gradeRepository = mock(GradeRepository.class);
+    private final CourseCatalog courseCatalog = mock(CourseCatalog.class);
+    private final BlockingCallExecutor blockingCallExecutor = mock(BlockingCallExecutor.class);
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        when(courseCatalog.findId("Mathematics")).thenReturn(Optional.of(COURSE_ID));
+        when(blockingCallExecutor.call(any())).thenAnswer(invocation ->
+                Mono.fromCallable(invocation.<Callable<?>>getArgument(0)));
+
+        LeaderboardService leaderboardService =
+                new LeaderboardService(gradeRepository, courseCatalog, blockingCallExecutor, Optional.empty());
+        ReflectionTestUtils.setField(leaderboardService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(leaderboardService, "maxPageSize", 500);
+        client = WebTestClient.bindToController(new GradeController(null, blockingCallExecutor, courseCatalog,
+                null, null, null, null, leaderboardService, null, null, Optional.empty())).build();
+    }
+
+    @Test
+    void nextCursorOfAPageContinuesAfterItsLastRow() {
+        List<LeaderboardRow> rows = List.of(row(11, 190, 20), row(12, 170, 20), row(13, 150, 20));
+        when(gradeRepository.findLeaderboardFirstPage(COURSE_ID, 3)).thenReturn(rows);
+        when(gradeRepository.findLeaderboardPageAfter(COURSE_ID, 170, 20, 12, 3)).thenReturn(rows.subList(2, 3));
+
+        LeaderboardPage first = getPage("").expectStatus().isOk()
+                .expectBody(LeaderboardPage.class).returnResult().getResponseBody();
+        assertThat(first.getEntries()).extracting(LeaderboardPage.Entry::getRank).containsExactly(1L, 2L);
+        assertThat(first.getNextCursor()).isNotNull();
+
+        LeaderboardPage second = getPage(first.getNextCursor()).expectStatus().isOk()
+                .expectBody(LeaderboardPage.class).returnResult().getResponseBody();
+        assertThat(second.getEntries()).extracting(LeaderboardPage.Entry::getStudentId).containsExactly(13L);
+        assertThat(second.getEntries()).extracting(LeaderboardPage.Entry::getRank).containsExactly(3L);
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"garbage!", "MS4yLjM", "MS4yLjMuNC4", "MS4wLjMuNA", "MS4yLjMuLTE", "YS4yLjMuNA"})
+    void malformedCursorIsABadRequestWithoutQuery(String cursor) {
+        getPage(cursor).expectStatus().isBadRequest();
+
+        verify(blockingCallExecutor, never()).call(any());
+        verify(gradeRepository, never()).findLeaderboardPageAfter(anyLong(), anyLong(), anyLong(), anyLong(), anyInt());
+    }
+
+    @Test
+    void cursorWithTrailingFieldIsABadRequest() {
+        String valid = getCursorAfterFirstPage();
+        String raw = new String(Base64.getUrlDecoder().decode(valid), StandardCharsets.US_ASCII);
+        String extended = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((raw + ".0").getBytes(StandardCharsets.US_ASCII));
+
+        getPage(extended).expectStatus().isBadRequest();
+    }
+
+    private String getCursorAfterFirstPage() {
+        List<LeaderboardRow> rows = List.of(row(11, 190, 20), row(12, 170, 20), row(13, 150, 20));
+        when(gradeRepository.findLeaderboardFirstPage(COURSE_ID, 3)).thenReturn(rows);
+        return getPage("").expectStatus().isOk()
+                .expectBody(LeaderboardPage.class).returnResult().getResponseBody().getNextCursor();
+    }
+
+    private WebTestClient.ResponseSpec getPage(String cursor) {
+        return client.get()
+                .uri(uri -> uri.path("/api/grades/course/Mathematics/leaderboard").queryParam("cursor", cursor).build())
+                .exchange();
+    }
+
+    private static LeaderboardRow row(long studentId, long gradeSum, long gradeCount) {
+        LeaderboardRow row = mock(LeaderboardRow.class);
+        when(row.getStudentId()).thenReturn(studentId);
+        when(row.getStudentName()).thenReturn("Student " + studentId);
+        when(row.getGradeSum()).thenReturn(gradeSum);
+        when(row.getGradeCount()).thenReturn(gradeCount);
+        return row;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.server.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.util.context.Context;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReadWriteRoutingDataSourceTest {
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private final ReplicaLagMonitor replicaMonitor = mock(ReplicaLagMonitor.class);
+    private final ReadWriteRoutingDataSource dataSource =
+            new ReadWriteRoutingDataSource(primary, replica, replicaMonitor, new SimpleMeterRegistry());
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        when(primary.getConnection("reporting", "secret")).thenReturn(primaryConnection);
+        when(replica.getConnection("reporting", "secret")).thenReturn(replicaConnection);
+        when(replicaMonitor.getStatus()).thenReturn(ReplicaLagMonitor.Status.AVAILABLE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void readWriteGoesToThePrimary() throws SQLException {
+        assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+        assertThat(dataSource.getConnection("reporting", "secret")).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void readOnlyGoesToAUsableReplica() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(dataSource.getConnection()).isSameAs(replicaConnection);
+        assertThat(dataSource.getConnection("reporting", "secret")).isSameAs(replicaConnection);
+    }
+
+    @Test
+    void readOnlyGoesToThePrimaryWhenPrimaryReadsAreRequired() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        Connection required = PrimaryReads.call(PrimaryReads.required(), dataSource::getConnection);
+        Connection notRequired = PrimaryReads.call(Context.empty(), dataSource::getConnection);
+
+        assertThat(required).isSameAs(primaryConnection);
+        assertThat(notRequired).isSameAs(replicaConnection);
+        // the requirement ends with the call
+        assertThat(dataSource.getConnection()).isSameAs(replicaConnection);
+    }
+
+    @Test
+    void readOnlyGoesToThePrimaryWhileTheReplicaLags() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(replicaMonitor.getStatus()).thenReturn(ReplicaLagMonitor.Status.LAGGING);
+
+        assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+        assertThat(dataSource.getConnection("reporting", "secret")).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void replicaConnectionFailureFallsBackToThePrimary() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        SQLException refused = new SQLException("connection refused");
+        when(replica.getConnection("reporting", "secret")).thenThrow(refused);
+
+        assertThat(dataSource.getConnection("reporting", "secret")).isSameAs(primaryConnection);
+        verify(replicaMonitor).markUnavailable(refused);
+    }
+
+    @Test
+    void unsupportedCredentialsAreNotAReplicaFailure() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(replica.getConnection("reporting", "secret")).thenThrow(new SQLFeatureNotSupportedException());
+
+        assertThatThrownBy(() -> dataSource.getConnection("reporting", "secret"))
+                .isInstanceOf(SQLFeatureNotSupportedException.class);
+        verify(replicaMonitor, never()).markUnavailable(any());
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.server.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaLagMonitorTest {
+    private static final Duration MAX_LAG = Duration.ofSeconds(1);
+    private static final Duration CHECK_INTERVAL = Duration.ofMillis(200);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private long nanoTime;
+    private long primaryLsn;
+    private Long replayLsn;
+    private boolean replicaDown;
+
+    private final ReplicaLagMonitor monitor = new ReplicaLagMonitor(
+            dataSource(() -> format(primaryLsn)),
+            dataSource(() -> {
+                if (replicaDown) {
+                    throw new SQLException("connection refused");
+                }
+                return replayLsn == null ? null : format(replayLsn);
+            }),
+            MAX_LAG, CHECK_INTERVAL, meterRegistry, () -> nanoTime);
+
+    @Test
+    void replicaKeepingUpUnderSteadyWritesLagsFarLessThanACheckInterval() {
+        // 1 MB of WAL per check, replayed up to 10 KB behind: about 2 ms
+        for (int i = 0; i < 20; i++) {
+            advance(1_000_000);
+            replayLsn = primaryLsn - 10_000;
+            monitor.check();
+        }
+
+        assertThat(monitor.getStatus()).isEqualTo(ReplicaLagMonitor.Status.AVAILABLE);
+        assertThat(gauge("grades.replica.lag")).isCloseTo(0.002, within(0.0005));
+        assertThat(gauge("grades.replica.lag.bytes")).isEqualTo(10_000);
+    }
+
+    @Test
+    void idlePrimaryMeansNoLag() {
+        advance(1_000);
+        replayLsn = primaryLsn;
+        for (int i = 0; i < 10; i++) {
+            nanoTime += CHECK_INTERVAL.toNanos();
+            monitor.check();
+        }
+
+        assertThat(monitor.getStatus()).isEqualTo(ReplicaLagMonitor.Status.AVAILABLE);
+        assertThat(gauge("grades.replica.lag")).isZero();
+    }
+
+    @Test
+    void stalledReplayBecomesLaggingAndRecovers() {
+        advance(1_000);
+        replayLsn = primaryLsn;
+        monitor.check();
+        long stalledAt = replayLsn;
+
+        // 6 checks of 200 ms without replay: the oldest unreplayed change is 1.2 s old
+        for (int i = 0; i < 6; i++) {
+            advance(1_000);
+            replayLsn = stalledAt;
+            monitor.check();
+        }
+        assertThat(monitor.getStatus()).isEqualTo(ReplicaLagMonitor.Status.LAGGING);
+        assertThat(gauge("grades.replica.lag")).isGreaterThan(MAX_LAG.toNanos() / 1e9);
+
+        advance(1_000);
+        replayLsn = primaryLsn - 100;
+        monitor.check();
+        assertThat(monitor.getStatus()).isEqualTo(ReplicaLagMonitor.Status.AVAILABLE);
+        assertThat(gauge("grades.replica.lag")).isLessThan(0.05);
+    }
+
+    @Test
+    void unreachableReplicaIsUnavailableUntilTheNextSuccessfulCheck() {
+        advance(1_000);
+        replayLsn = primaryLsn;
+        monitor.check();
+        assertThat(monitor.getStatus()).isEqualTo(ReplicaLagMonitor.Status.AVAILABLE);
+
+        replicaDown = true;
+        advance(1_000);
+        monitor.check();
+        assertThat(monitor.getStatus()).isEqualTo(ReplicaLagMonitor.Status.UNAVAILABLE);
+
+        replicaDown = false;
+        advance(1_000);
+        replayLsn = primaryLsn;
+        monitor.check();
+        assertThat(monitor.getStatus()).isEqualTo(ReplicaLagMonitor.Status.AVAILABLE);
+    }
+
+    @Test
+    void serverNotInRecoveryHasNoLag() {
+        advance(1_000);
+        replayLsn = null;
+        monitor.check();
+
+        assertThat(monitor.getStatus()).isEqualTo(ReplicaLagMonitor.Status.AVAILABLE);
+        assertThat(gauge("grades.replica.lag")).isZero();
+    }
+
+    @Test
+    void checkIntervalMustBeShorterThanMaxLag() {
+        assertThatThrownBy(() -> new ReplicaLagMonitor(null, null, Duration.ofSeconds(1), Duration.ofSeconds(1),
+                new SimpleMeterRegistry()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("check-interval");
+        assertThatThrownBy(() -> new ReplicaLagMonitor(null, null, Duration.ofSeconds(1), Duration.ZERO,
+                new SimpleMeterRegistry()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void parsesLsnTextForm() {
+        assertThat(ReplicaLagMonitor.parseLsn("16/B374D848")).isEqualTo(0x16_B374D848L);
+        assertThat(ReplicaLagMonitor.parseLsn("0/0")).isZero();
+    }
+
+    private void advance(long walBytes) {
+        nanoTime += CHECK_INTERVAL.toNanos();
+        primaryLsn += walBytes;
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private static String format(long lsn) {
+        return Long.toHexString(lsn >>> 32).toUpperCase() + "/" + Long.toHexString(lsn & 0xFFFFFFFFL).toUpperCase();
+    }
+
+    private static DataSource dataSource(Callable<String> result) {
+        try {
+            DataSource dataSource = mock(DataSource.class);
+            Connection connection = mock(Connection.class);
+            Statement statement = mock(Statement.class);
+            ResultSet resultSet = mock(ResultSet.class);
+            when(dataSource.getConnection()).thenReturn(connection);
+            when(connection.createStatement()).thenReturn(statement);
+            when(statement.executeQuery(anyString())).thenReturn(resultSet);
+            when(resultSet.next()).thenReturn(true);
+            when(resultSet.getString(1)).thenAnswer(invocation -> result.call());
+            return dataSource;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
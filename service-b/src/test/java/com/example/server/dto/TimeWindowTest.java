@@ -0,0 +1,150 @@
+package com.example.server.dto;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimeWindowTest {
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 10);
+    private static final LocalDateTime NOW = TODAY.atTime(14, 30);
+
+    @Test
+    void lastEndsNow() {
+        assertThat(TimeWindow.parse(null, null, "30d", NOW))
+                .contains(new TimeWindow(NOW.minusDays(30), NOW));
+        assertThat(TimeWindow.parse(null, null, "12h", NOW))
+                .contains(new TimeWindow(NOW.minusHours(12), NOW));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"999999999d", "9999999999d", "9223372036854775807s", "-1d", "0s", "30 days"})
+    void lastOutOfRangeOrMalformedIsRejected(String last) {
+        assertThatThrownBy(() -> TimeWindow.parse(null, null, last, NOW))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void datesAreMidnightsAndToDefaultsToNow() {
+        assertThat(TimeWindow.parse("2025-02-01", "2025-06-01", null, NOW))
+                .contains(new TimeWindow(LocalDate.of(2025, 2, 1).atStartOfDay(), LocalDate.of(2025, 6, 1).atStartOfDay()));
+        assertThat(TimeWindow.parse("2025-06-01T08:15:00", null, null, NOW))
+                .contains(new TimeWindow(LocalDateTime.of(2025, 6, 1, 8, 15), NOW));
+        assertThat(TimeWindow.parse(null, null, null, NOW)).isEmpty();
+    }
+
+    @Test
+    void inconsistentParametersAreRejected() {
+        assertThatThrownBy(() -> TimeWindow.parse("2025-06-01", null, "30d", NOW))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TimeWindow.parse(null, "2025-06-01", null, NOW))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TimeWindow.parse("2025-06-05", "2025-06-01", null, NOW))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TimeWindow.parse("01.06.2025", null, null, NOW))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TimeWindow.parse("2025-06-01", "+12025-06-01T00:00", null, NOW))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void windowBetweenMidnightsIsAllRollups() {
+        TimeWindow window = new TimeWindow(at(1, 0), at(5, 0));
+
+        assertThat(window.split(TODAY))
+                .isEqualTo(new TimeWindow.Parts(at(1, 0), day(1), day(5), at(5, 0)));
+    }
+
+    @Test
+    void partialDaysAtEitherEndAreRaw() {
+        TimeWindow window = new TimeWindow(at(1, 10), at(5, 12));
+
+        assertThat(window.split(TODAY))
+                .isEqualTo(new TimeWindow.Parts(at(2, 0), day(2), day(5), at(5, 0)));
+    }
+
+    @Test
+    void windowEndingAtTodaysMidnightStopsRollupsBeforeToday() {
+        TimeWindow window = new TimeWindow(at(9, 0), at(10, 0));
+
+        assertThat(window.split(TODAY))
+                .isEqualTo(new TimeWindow.Parts(at(9, 0), day(9), day(10), at(10, 0)));
+    }
+
+    @Test
+    void todayIsAlwaysRawEvenWhenWhole() {
+        TimeWindow window = new TimeWindow(at(8, 0), NOW);
+
+        assertThat(window.split(TODAY))
+                .isEqualTo(new TimeWindow.Parts(at(8, 0), day(8), day(10), at(10, 0)));
+    }
+
+    @Test
+    void windowInsideTodayIsAllHead() {
+        TimeWindow window = new TimeWindow(at(10, 8), NOW);
+
+        assertThat(window.split(TODAY))
+                .isEqualTo(new TimeWindow.Parts(NOW, day(10), day(10), NOW));
+    }
+
+    @Test
+    void windowFromTodaysMidnightIsAllHead() {
+        TimeWindow window = new TimeWindow(at(10, 0), NOW);
+
+        assertThat(window.split(TODAY))
+                .isEqualTo(new TimeWindow.Parts(NOW, day(10), day(10), NOW));
+    }
+
+    @Test
+    void windowWithoutAWholeDayIsAllHead() {
+        TimeWindow window = new TimeWindow(at(3, 10), at(4, 5));
+
+        assertThat(window.split(TODAY))
+                .isEqualTo(new TimeWindow.Parts(at(4, 5), day(4), day(4), at(4, 5)));
+    }
+
+    @Test
+    void futureToEndsRollupsAtToday() {
+        TimeWindow window = new TimeWindow(at(1, 0), at(20, 0));
+
+        assertThat(window.split(TODAY))
+                .isEqualTo(new TimeWindow.Parts(at(1, 0), day(1), day(10), at(10, 0)));
+    }
+
+    @Test
+    void windowEntirelyInTheFutureIsAllHead() {
+        TimeWindow window = new TimeWindow(at(12, 0), at(15, 0));
+
+        assertThat(window.split(TODAY))
+                .isEqualTo(new TimeWindow.Parts(at(15, 0), day(10), day(10), at(15, 0)));
+    }
+
+    @Test
+    void lastDaysCoverWholeDaysBetweenTwoPartialOnes() {
+        TimeWindow window = TimeWindow.parse(null, null, "3d", NOW).orElseThrow();
+
+        assertThat(window.split(TODAY))
+                .isEqualTo(new TimeWindow.Parts(at(8, 0), day(8), day(10), at(10, 0)));
+    }
+
+    @Test
+    void lastHoursWithinTodayIsAllHead() {
+        TimeWindow window = TimeWindow.parse(null, null, "2h", NOW).orElseThrow();
+
+        assertThat(window.split(TODAY))
+                .isEqualTo(new TimeWindow.Parts(NOW, day(10), day(10), NOW));
+    }
+
+    private static LocalDate day(int dayOfMonth) {
+        return LocalDate.of(2025, 6, dayOfMonth);
+    }
+
+    private static LocalDateTime at(int dayOfMonth, int hour) {
+        return day(dayOfMonth).atTime(hour, 0);
+    }
+}
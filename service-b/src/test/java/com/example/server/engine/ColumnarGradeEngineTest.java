@@ -0,0 +1,71 @@
+package com.example.server.engine;
+
+import com.example.server.notification.PgNotificationListener;
+import com.example.server.repository.GradeColumnReader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ColumnarGradeEngineTest {
+    private final GradeColumnReader reader = mock(GradeColumnReader.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ColumnarGradeEngine engine;
+
+    @AfterEach
+    void shutDown() {
+        engine.destroy();
+    }
+
+    @Test
+    void failedInitialLoadIsRetriedUntilTheEngineIsReady() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch subscribed = new CountDownLatch(1);
+        when(reader.inSnapshot(anyInt(), any())).thenAnswer(invocation -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new SQLException("connection refused");
+            }
+            subscribed.await();
+            return new HashMap<>();
+        });
+
+        engine = new ColumnarGradeEngine(1, 1024, 100, 1, Duration.ofMillis(10), Duration.ofMillis(20),
+                reader, mock(PgNotificationListener.class), meterRegistry);
+        CountDownLatch loaded = new CountDownLatch(1);
+        engine.onReload(loaded::countDown);
+        subscribed.countDown();
+
+        assertThat(loaded.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(engine.isReady()).isTrue();
+        assertThat(attempts).hasValue(3);
+        assertThat(meterRegistry.get("grades.engine.ready").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void readyGaugeIsZeroWhileTheLoadKeepsFailing() throws Exception {
+        CountDownLatch attempts = new CountDownLatch(3);
+        when(reader.inSnapshot(anyInt(), any())).thenAnswer(invocation -> {
+            attempts.countDown();
+            throw new SQLException("connection refused");
+        });
+
+        engine = new ColumnarGradeEngine(1, 1024, 100, 1, Duration.ofMillis(10), Duration.ofMillis(20),
+                reader, mock(PgNotificationListener.class), meterRegistry);
+
+        assertThat(attempts.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(engine.isReady()).isFalse();
+        assertThat(meterRegistry.get("grades.engine.ready").gauge().value()).isEqualTo(0.0);
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.server.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+    private static final long THRESHOLD = Duration.ofMillis(500).toNanos();
+    private static final long FAST = Duration.ofMillis(20).toNanos();
+    private static final long SLOW = Duration.ofSeconds(2).toNanos();
+
+    private long nanoTime;
+
+    @Test
+    void initialLimitIsClampedToMinAndMax() {
+        assertThat(limiter(1, 4, 256).getLimit()).isEqualTo(4);
+        assertThat(limiter(1000, 4, 256).getLimit()).isEqualTo(256);
+    }
+
+    @Test
+    void admitsUpToTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 4, 256);
+        acquire(limiter, 10);
+
+        assertThat(limiter.tryAcquire()).isFalse();
+        limiter.releaseIgnored();
+        assertThat(limiter.getLimit()).isEqualTo(10);
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.getInFlight()).isEqualTo(10);
+    }
+
+    @Test
+    void fastRequestsAtHalfUseAddOnePerLimitsWorth() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 4, 256);
+        acquire(limiter, 5);
+
+        // six in flight when each one finishes, at least half of the limit; +1/limit each
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+            limiter.release(FAST, false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(10);
+
+        // 10.96 after ten, 11.05 after eleven
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.release(FAST, false);
+        assertThat(limiter.getLimit()).isEqualTo(11);
+    }
+
+    @Test
+    void fastRequestsBelowHalfUseLeaveTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 4, 256);
+        for (int i = 0; i < 1000; i++) {
+            acquire(limiter, 4);
+            release(limiter, 4, FAST, false);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void slowOrFailedRequestMultipliesByTheBackoffRatio() {
+        AdaptiveConcurrencyLimiter limiter = limiter(100, 4, 256);
+        acquire(limiter, 2);
+
+        limiter.release(SLOW, false);
+        assertThat(limiter.getLimit()).isEqualTo(90);
+
+        nanoTime += THRESHOLD;
+        limiter.release(FAST, true);
+        assertThat(limiter.getLimit()).isEqualTo(81);
+    }
+
+    @Test
+    void decreasesAtMostOncePerThresholdInterval() {
+        AdaptiveConcurrencyLimiter limiter = limiter(100, 4, 256);
+        acquire(limiter, 50);
+
+        // a burst of slow responses within one interval
+        release(limiter, 49, SLOW, false);
+        assertThat(limiter.getLimit()).isEqualTo(90);
+
+        nanoTime += THRESHOLD - 1;
+        limiter.release(SLOW, false);
+        assertThat(limiter.getLimit()).isEqualTo(90);
+
+        acquire(limiter, 1);
+        nanoTime += 1;
+        limiter.release(SLOW, false);
+        assertThat(limiter.getLimit()).isEqualTo(81);
+    }
+
+    @Test
+    void dropsNeverGoBelowTheFloor() {
+        AdaptiveConcurrencyLimiter limiter = limiter(32, 4, 256);
+        for (int i = 0; i < 100; i++) {
+            acquire(limiter, 1);
+            limiter.release(FAST, true);
+            nanoTime += THRESHOLD;
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        acquire(limiter, 4);
+        assertThat(limiter.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void increasesNeverGoAboveTheCeiling() {
+        AdaptiveConcurrencyLimiter limiter = limiter(32, 4, 40);
+        for (int i = 0; i < 10_000; i++) {
+            int admitted = acquireAll(limiter);
+            release(limiter, admitted, FAST, false);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(40);
+    }
+
+    @Test
+    void settlesAroundTheCapacityOfASimulatedServer() {
+        // latency stays low up to 50 concurrent requests and grows with every one beyond;
+        // clients offer more than the limit every 100 ms
+        int capacity = 50;
+        AdaptiveConcurrencyLimiter limiter = limiter(8, 4, 256);
+        int lowest = Integer.MAX_VALUE;
+        int highest = 0;
+        for (int tick = 0; tick < 10_000; tick++) {
+            int admitted = acquireAll(limiter);
+            long latency = FAST + Math.max(0, admitted - capacity) * Duration.ofMillis(100).toNanos();
+            release(limiter, admitted, latency, false);
+            nanoTime += Duration.ofMillis(100).toNanos();
+            if (tick >= 5_000) {
+                lowest = Math.min(lowest, limiter.getLimit());
+                highest = Math.max(highest, limiter.getLimit());
+            }
+        }
+
+        // AIMD saw-tooth just below and above the capacity
+        assertThat(lowest).isBetween((int) (capacity * 0.9) - 1, capacity);
+        assertThat(highest).isBetween(capacity, capacity + 6);
+    }
+
+    @Test
+    void recoversAfterABurstOfDrops() {
+        AdaptiveConcurrencyLimiter limiter = limiter(64, 4, 256);
+        for (int tick = 0; tick < 20; tick++) {
+            int admitted = acquireAll(limiter);
+            release(limiter, admitted, FAST, true);
+            nanoTime += THRESHOLD;
+        }
+        int afterDrops = limiter.getLimit();
+        assertThat(afterDrops).isLessThan(10);
+
+        for (int tick = 0; tick < 200; tick++) {
+            int admitted = acquireAll(limiter);
+            release(limiter, admitted, FAST, false);
+        }
+        assertThat(limiter.getLimit()).isGreaterThan(afterDrops + 10);
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit, int minLimit, int maxLimit) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, THRESHOLD, 0.9, () -> nanoTime);
+    }
+
+    private static void acquire(AdaptiveConcurrencyLimiter limiter, int requests) {
+        for (int i = 0; i < requests; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+    }
+
+    private static int acquireAll(AdaptiveConcurrencyLimiter limiter) {
+        int admitted = 0;
+        while (limiter.tryAcquire()) {
+            admitted++;
+        }
+        return admitted;
+    }
+
+    private static void release(AdaptiveConcurrencyLimiter limiter, int requests, long latencyNanos, boolean failed) {
+        for (int i = 0; i < requests; i++) {
+            limiter.release(latencyNanos, failed);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.server.repository;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.PooledOptimizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/** Grade ids of the bulk writer against a fresh grades_id_seq (START 1, INCREMENT BY 50). */
+class GradeBulkWriterIdsTest {
+    private long sequence;
+    private GradeBulkWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        sequence = 1 - SequenceBlocks.BLOCK_SIZE;
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(invocation -> {
+            int blocks = invocation.getArgument(2);
+            List<Long> values = new ArrayList<>();
+            for (int i = 0; i < blocks; i++) {
+                values.add(nextval());
+            }
+            return values;
+        }).when(jdbcTemplate).queryForList(anyString(), eq(Long.class), any());
+        writer = new GradeBulkWriter(jdbcTemplate);
+    }
+
+    private long nextval() {
+        sequence += SequenceBlocks.BLOCK_SIZE;
+        return sequence;
+    }
+
+    @Test
+    void freshSequenceStartsAtOne() {
+        long[] ids = writer.allocateIds(120);
+
+        assertThat(ids).containsExactly(LongStream.rangeClosed(1, 120).toArray());
+    }
+
+    @Test
+    void freshSequenceNeverHandsOutIdsBelowOne() {
+        assertThat(writer.allocateIds(1)).containsExactly(1);
+        assertThat(writer.allocateIds(50)).containsExactly(LongStream.rangeClosed(2, 51).toArray());
+    }
+
+    @Test
+    void neverOverlapsHibernatePooledOptimizer() {
+        for (long seed = 0; seed < 20; seed++) {
+            setUp();
+            Random random = new Random(seed);
+            PooledOptimizer hibernate = new PooledOptimizer(Long.class, SequenceBlocks.BLOCK_SIZE);
+            hibernate.injectInitialValue(1);
+            AccessCallback callback = new AccessCallback() {
+                @Override
+                public IntegralDataTypeHolder getNextValue() {
+                    return IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class).initialize(nextval());
+                }
+
+                @Override
+                public String getTenantIdentifier() {
+                    return null;
+                }
+            };
+
+            Set<Long> seen = new HashSet<>();
+            for (int step = 0; step < 200; step++) {
+                if (random.nextBoolean()) {
+                    for (int i = random.nextInt(1, 80); i > 0; i--) {
+                        assertThat(seen.add((Long) hibernate.generate(callback))).isTrue();
+                    }
+                } else {
+                    for (long id : writer.allocateIds(random.nextInt(1, 120))) {
+                        assertThat(seen.add(id)).as("id %d handed out twice (seed %d)", id, seed).isTrue();
+                    }
+                }
+            }
+            assertThat(seen).allMatch(id -> id >= 1);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.server.service;
+
+import com.example.api.dto.AverageGradeResponse;
+import com.example.server.datasource.ReadWriteRoutingDataSource;
+import com.example.server.datasource.ReplicaLagMonitor;
+import com.example.server.notification.PgNotificationListener;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CourseStatisticsCacheTest {
+    private static final String COURSE = "Mathematics";
+
+    private final CourseStatisticsCache cache = new CourseStatisticsCache(true, 100, Duration.ofMinutes(1),
+            mock(CourseCatalog.class), mock(PgNotificationListener.class), Optional.empty(),
+            new SimpleMeterRegistry());
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void concurrentMissesShareOneLoadAndLaterCallsHit() {
+        Sinks.One<AverageGradeResponse> pending = Sinks.one();
+        CompletableFuture<AverageGradeResponse> first = cache.get(COURSE, () -> load(pending)).toFuture();
+        CompletableFuture<AverageGradeResponse> second = cache.get(COURSE, () -> load(Sinks.one())).toFuture();
+        pending.tryEmitValue(response(1));
+
+        assertThat(first.join()).isEqualTo(response(1));
+        assertThat(second.join()).isEqualTo(response(1));
+        assertThat(cache.get(COURSE, () -> load(Sinks.one())).block()).isEqualTo(response(1));
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void loadInvalidatedInFlightIsNotCached() {
+        Sinks.One<AverageGradeResponse> pending = Sinks.one();
+        CompletableFuture<AverageGradeResponse> inFlight = cache.get(COURSE, () -> load(pending)).toFuture();
+
+        cache.invalidate(COURSE);
+        pending.tryEmitValue(response(1));
+        // the waiter still gets what was loaded for it
+        assertThat(inFlight.join()).isEqualTo(response(1));
+
+        Sinks.One<AverageGradeResponse> reload = Sinks.one();
+        reload.tryEmitValue(response(2));
+        assertThat(cache.get(COURSE, () -> load(reload)).block()).isEqualTo(response(2));
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void loadInFlightDuringInvalidateAllIsNotCached() {
+        Sinks.One<AverageGradeResponse> pending = Sinks.one();
+        CompletableFuture<AverageGradeResponse> inFlight = cache.get(COURSE, () -> load(pending)).toFuture();
+
+        cache.invalidateAll();
+        pending.tryEmitValue(response(1));
+        assertThat(inFlight.join()).isEqualTo(response(1));
+
+        Sinks.One<AverageGradeResponse> reload = Sinks.one();
+        reload.tryEmitValue(response(2));
+        assertThat(cache.get(COURSE, () -> load(reload)).block()).isEqualTo(response(2));
+    }
+
+    @Test
+    void invalidatingAnotherCourseKeepsTheLoad() {
+        Sinks.One<AverageGradeResponse> pending = Sinks.one();
+        CompletableFuture<AverageGradeResponse> inFlight = cache.get(COURSE, () -> load(pending)).toFuture();
+
+        cache.invalidate("Physics");
+        pending.tryEmitValue(response(1));
+        assertThat(inFlight.join()).isEqualTo(response(1));
+
+        assertThat(cache.get(COURSE, () -> load(Sinks.one())).block()).isEqualTo(response(1));
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void writeFollowedByAnImmediateReadIsNotRefilledFromALaggingReplica() throws SQLException {
+        // both pools hand out connections that "hold" an average; the replica has not replayed the write yet
+        Connection primaryConnection = mock(Connection.class);
+        Connection replicaConnection = mock(Connection.class);
+        DataSource primary = mock(DataSource.class);
+        DataSource replica = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        ReplicaLagMonitor replicaMonitor = mock(ReplicaLagMonitor.class);
+        when(replicaMonitor.getStatus()).thenReturn(ReplicaLagMonitor.Status.AVAILABLE);
+        ReadWriteRoutingDataSource dataSource =
+                new ReadWriteRoutingDataSource(primary, replica, replicaMonitor, new SimpleMeterRegistry());
+        Map<Connection, Double> averages = new ConcurrentHashMap<>(Map.of(primaryConnection, 1.0, replicaConnection, 1.0));
+
+        BlockingCallExecutor blockingCallExecutor = new BlockingCallExecutor(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(blockingCallExecutor, "mode", BlockingCallExecutor.BOUNDED_ELASTIC);
+        blockingCallExecutor.init();
+        // what GradeService does: a read-only transaction, whose connection the routing decides
+        Supplier<Mono<AverageGradeResponse>> loader = () -> blockingCallExecutor.call(() -> {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+            try (Connection connection = dataSource.getConnection()) {
+                return response(averages.get(connection));
+            } finally {
+                TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+            }
+        });
+        assertThat(cache.get(COURSE, loader).block()).isEqualTo(response(1));
+
+        // the write commits on the primary and its NOTIFY invalidates the course at once
+        averages.put(primaryConnection, 2.0);
+        cache.invalidate(COURSE);
+
+        assertThat(cache.get(COURSE, loader).block()).isEqualTo(response(2));
+        assertThat(cache.get(COURSE, loader).block()).isEqualTo(response(2));
+        // the replica still serves read-only transactions outside cache fills
+        assertThat(loader.get().block()).isEqualTo(response(1));
+    }
+
+    private Mono<AverageGradeResponse> load(Sinks.One<AverageGradeResponse> result) {
+        loads.incrementAndGet();
+        return result.asMono();
+    }
+
+    private static AverageGradeResponse response(double average) {
+        return AverageGradeResponse.builder().courseName(COURSE).averageGrade(average).build();
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.server.service;
+
+import com.example.api.dto.GradeDistributionResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class GradeHistogramTest {
+    private static final int PASS_THRESHOLD = 60;
+    // statistics of these grades as computed by PostgreSQL:
+    // percentile_cont(array[0.1, 0.5, 0.9]) within group (order by g) -> {47.8, 69, 91.7},
+    // avg(g) -> 66.25, stddev_pop(g) -> 24.8264811575596969
+    private static final int[] GRADES = {0, 55, 61, 61, 72, 80, 80, 80, 93, 100, 47, 66};
+
+    @Test
+    void percentilesInterpolateLikePercentileCont() {
+        GradeDistributionResponse response = of(GRADES).toResponse("Mathematics", PASS_THRESHOLD, 0);
+
+        assertThat(response.getP10()).isCloseTo(47.8, within(1e-9));
+        assertThat(response.getMedian()).isCloseTo(69.0, within(1e-9));
+        assertThat(response.getP90()).isCloseTo(91.7, within(1e-9));
+    }
+
+    @Test
+    void meanStandardDeviationAndPassRate() {
+        GradeDistributionResponse response = of(GRADES).toResponse("Mathematics", PASS_THRESHOLD, 0);
+
+        assertThat(response.getTotalGrades()).isEqualTo(12L);
+        assertThat(response.getAverageGrade()).isCloseTo(66.25, within(1e-9));
+        assertThat(response.getStandardDeviation()).isCloseTo(24.8264811575596969, within(1e-9));
+        // 9 of 12 grades are at or above 60: the threshold itself passes
+        assertThat(response.getPassRate()).isCloseTo(0.75, within(1e-9));
+        assertThat(response.getDistribution()).hasSize(GradeHistogram.MAX_GRADE + 1);
+        assertThat(response.getDistribution().get(80)).isEqualTo(3L);
+        assertThat(response.getDistribution().get(61)).isEqualTo(2L);
+    }
+
+    @Test
+    void emptyHistogramHasCountsButNoStatistics() {
+        GradeDistributionResponse response = new GradeHistogram().toResponse("Mathematics", PASS_THRESHOLD, 0);
+
+        assertThat(response.getTotalGrades()).isZero();
+        assertThat(response.getDistribution()).isEqualTo(Collections.nCopies(GradeHistogram.MAX_GRADE + 1, 0L));
+        assertThat(response.getAverageGrade()).isNull();
+        assertThat(response.getStandardDeviation()).isNull();
+        assertThat(response.getMedian()).isNull();
+        assertThat(response.getP10()).isNull();
+        assertThat(response.getP90()).isNull();
+        assertThat(response.getPassRate()).isNull();
+    }
+
+    @Test
+    void singleBucketIsItsOwnEveryPercentile() {
+        GradeDistributionResponse response = new GradeHistogram().add(73, 5).toResponse("Mathematics", PASS_THRESHOLD, 0);
+
+        assertThat(response.getAverageGrade()).isEqualTo(73.0);
+        assertThat(response.getStandardDeviation()).isZero();
+        assertThat(response.getP10()).isEqualTo(73.0);
+        assertThat(response.getMedian()).isEqualTo(73.0);
+        assertThat(response.getP90()).isEqualTo(73.0);
+        assertThat(response.getPassRate()).isEqualTo(1.0);
+    }
+
+    @Test
+    void extremeGradesAreValidBuckets() {
+        GradeDistributionResponse response = new GradeHistogram().add(0, 1).add(GradeHistogram.MAX_GRADE, 1)
+                .toResponse("Mathematics", PASS_THRESHOLD, 0);
+
+        assertThat(response.getMedian()).isEqualTo(50.0);
+        assertThat(response.getStandardDeviation()).isEqualTo(50.0);
+        assertThat(response.getPassRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void mergeIsAssociativeAndMatchesTheCombinedGrades() {
+        int[] mathematics = {0, 55, 61, 61};
+        int[] physics = {72, 80, 80, 80};
+        int[] history = {93, 100, 47, 66};
+
+        GradeDistributionResponse leftFirst = of(mathematics).merge(of(physics)).merge(of(history))
+                .toResponse("cohort", PASS_THRESHOLD, 0);
+        GradeDistributionResponse rightFirst = of(mathematics).merge(of(physics).merge(of(history)))
+                .toResponse("cohort", PASS_THRESHOLD, 0);
+        GradeDistributionResponse combined = of(GRADES).toResponse("cohort", PASS_THRESHOLD, 0);
+
+        assertThat(leftFirst).isEqualTo(rightFirst).isEqualTo(combined);
+    }
+
+    @Test
+    void mergingAnEmptyHistogramChangesNothing() {
+        GradeDistributionResponse merged = of(GRADES).merge(new GradeHistogram()).toResponse("Mathematics", PASS_THRESHOLD, 0);
+
+        assertThat(merged).isEqualTo(of(GRADES).toResponse("Mathematics", PASS_THRESHOLD, 0));
+    }
+
+    private static GradeHistogram of(int... grades) {
+        GradeHistogram histogram = new GradeHistogram();
+        for (int grade : grades) {
+            histogram.add(grade, 1);
+        }
+        return histogram;
+    }
+}
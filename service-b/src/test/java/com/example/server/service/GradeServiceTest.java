@@ -0,0 +1,34 @@
+package com.example.server.service;
+
+import com.example.server.repository.GradeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class GradeServiceTest {
+
+    @Test
+    void negativeTopStudentsLimitFailsAtStartup() {
+        assertThatThrownBy(() -> service(-1).init())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("grades.top-students.limit");
+    }
+
+    @Test
+    void zeroTopStudentsLimitIsAllowed() {
+        assertThatCode(() -> service(0).init()).doesNotThrowAnyException();
+    }
+
+    private static GradeService service(int topStudentsLimit) {
+        GradeService service = new GradeService(mock(GradeRepository.class), mock(CourseCatalog.class),
+                Optional.empty(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "topStudentsLimit", topStudentsLimit);
+        return service;
+    }
+}
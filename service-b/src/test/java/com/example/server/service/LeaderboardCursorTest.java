@@ -0,0 +1,82 @@
+package com.example.server.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LeaderboardCursorTest {
+    private static final String BASE64_URL_ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+
+    @Test
+    void decodesWhatItEncodes() {
+        for (LeaderboardCursor cursor : List.of(
+                new LeaderboardCursor(0, 1, 1, 0),
+                new LeaderboardCursor(4_321, 57, 1_950, 50),
+                new LeaderboardCursor(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE))) {
+            String token = cursor.encode();
+
+            assertThat(token).matches("[A-Za-z0-9_-]+");
+            assertThat(LeaderboardCursor.decode(token)).isEqualTo(cursor);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "!!!", "not a cursor", "MS4yLjMuNA+/"})
+    void rejectsTokensThatAreNotUrlSafeBase64(String token) {
+        assertInvalid(token);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "1.2.3",                          // a field missing
+            "1.2.3.4.5",                      // one too many
+            "1.2.3.4.",                       // trailing separator
+            ".1.2.3",                         // leading separator
+            "1..3.4",                         // empty field
+            "a.2.3.4",                        // not a number
+            "1.2.3.4 ",                       // trailing blank
+            "99999999999999999999.2.3.4",     // beyond long
+            "1.0.3.4",                        // no grades
+            "1.-2.3.4",                       // negative grade count
+            "1.2.3.-1"                        // negative rank
+    })
+    void rejectsMalformedCursors(String raw) {
+        assertInvalid(base64(raw));
+    }
+
+    @Test
+    void alteredTokenIsRejectedOrStillACursor() {
+        String token = new LeaderboardCursor(4_321, 57, 1_950, 50).encode();
+        for (int position = 0; position < token.length(); position++) {
+            for (char replacement : BASE64_URL_ALPHABET.toCharArray()) {
+                String altered = token.substring(0, position) + replacement + token.substring(position + 1);
+                try {
+                    LeaderboardCursor cursor = LeaderboardCursor.decode(altered);
+                    // unsigned: an edit may land on another position, which is as public as the original
+                    assertThat(cursor.gradeCount()).isPositive();
+                    assertThat(cursor.rank()).isNotNegative();
+                } catch (IllegalArgumentException e) {
+                    assertThat(e).hasMessageStartingWith("Invalid leaderboard cursor");
+                }
+            }
+        }
+    }
+
+    private static void assertInvalid(String token) {
+        assertThatThrownBy(() -> LeaderboardCursor.decode(token))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid leaderboard cursor: " + token);
+    }
+
+    private static String base64(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.server.service;
+
+import com.example.server.dto.CourseStatsMismatch;
+import com.example.server.dto.StatsConsistencyReport;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The V3 aggregate triggers and {@link StatsConsistencyChecker} against an embedded PostgreSQL
+ * migrated by Flyway. Every test runs in a transaction that is rolled back.
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(StatsConsistencyChecker.class)
+class StatsConsistencyCheckerTest {
+    private static final EmbeddedPostgres POSTGRES = start();
+    private static final long MATHEMATICS = 1;
+    private static final long PHYSICS = 2;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StatsConsistencyChecker checker;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        POSTGRES.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO courses (id, name) VALUES (?, 'Mathematics'), (?, 'Physics')",
+                MATHEMATICS, PHYSICS);
+        jdbcTemplate.update("""
+                INSERT INTO students (id, name, email)
+                VALUES (1, 'Student 1', 's1@example.com'), (2, 'Student 2', 's2@example.com'),
+                       (3, 'Student 3', 's3@example.com')
+                """);
+        // one statement: the statement-level triggers see several rows per (course, student)
+        jdbcTemplate.update("""
+                INSERT INTO grades (student_id, course_id, grade)
+                VALUES (1, 1, 90), (1, 1, 70), (2, 1, 50), (3, 1, 100), (1, 2, 60), (2, 2, 80)
+                """);
+    }
+
+    @Test
+    void insertedGradesAreAggregated() {
+        assertAggregatesMatchGrades();
+        assertThat(checker.check().isConsistent()).isTrue();
+    }
+
+    @Test
+    void updatedGradeValueIsAggregated() {
+        jdbcTemplate.update("UPDATE grades SET grade = grade - 10 WHERE course_id = ? AND student_id = 1", MATHEMATICS);
+
+        assertAggregatesMatchGrades();
+        assertThat(checker.check().isConsistent()).isTrue();
+    }
+
+    @Test
+    void gradeMovedToAnotherCourseIsAggregatedInBoth() {
+        // student 3's only Mathematics grade: the student leaves Mathematics and joins Physics
+        jdbcTemplate.update("UPDATE grades SET course_id = ? WHERE course_id = ? AND student_id = 3",
+                PHYSICS, MATHEMATICS);
+
+        assertAggregatesMatchGrades();
+        assertThat(courseStats(MATHEMATICS)).containsExactly(210L, 3L, 2L);
+        assertThat(courseStats(PHYSICS)).containsExactly(240L, 3L, 3L);
+        assertThat(checker.check().isConsistent()).isTrue();
+    }
+
+    @Test
+    void deletedGradesAreRemovedFromTheAggregates() {
+        jdbcTemplate.update("DELETE FROM grades WHERE student_id = 2");
+
+        assertAggregatesMatchGrades();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM student_course_stats WHERE student_id = 2", Long.class)).isZero();
+        assertThat(checker.check().isConsistent()).isTrue();
+    }
+
+    @Test
+    void deletingEveryGradeOfACourseLeavesZeroTotals() {
+        jdbcTemplate.update("DELETE FROM grades WHERE course_id = ?", PHYSICS);
+
+        assertAggregatesMatchGrades();
+        assertThat(courseStats(PHYSICS)).containsExactly(0L, 0L, 0L);
+        assertThat(checker.check().isConsistent()).isTrue();
+    }
+
+    @Test
+    void checkerReportsCorruptedRows() {
+        jdbcTemplate.update("UPDATE course_stats SET grade_sum = grade_sum + 5 WHERE course_id = ?", PHYSICS);
+        jdbcTemplate.update("UPDATE student_course_stats SET grade_count = 7 WHERE course_id = ? AND student_id = 1",
+                MATHEMATICS);
+
+        StatsConsistencyReport report = checker.check();
+
+        assertThat(report.isConsistent()).isFalse();
+        assertThat(report.getCourseMismatches()).hasSize(1);
+        CourseStatsMismatch mismatch = report.getCourseMismatches().get(0);
+        assertThat(mismatch.getCourseId()).isEqualTo(PHYSICS);
+        assertThat(mismatch.getExpectedGradeSum()).isEqualTo(140L);
+        assertThat(mismatch.getActualGradeSum()).isEqualTo(145L);
+        assertThat(report.getStudentMismatches()).isEqualTo(1L);
+    }
+
+    @Test
+    void rebuildRepairsCorruptedRows() {
+        jdbcTemplate.update("DELETE FROM student_course_stats WHERE course_id = ? AND student_id = 3", MATHEMATICS);
+        jdbcTemplate.update("UPDATE course_stats SET student_count = 0 WHERE course_id = ?", MATHEMATICS);
+
+        StatsConsistencyReport report = checker.rebuild();
+
+        assertThat(report.isConsistent()).isFalse();
+        assertThat(report.isRebuilt()).isTrue();
+        assertAggregatesMatchGrades();
+        assertThat(checker.check().isConsistent()).isTrue();
+    }
+
+    // course_stats and student_course_stats against a recomputation from grades; a course_stats
+    // row of a course without grades holds zeros
+    private void assertAggregatesMatchGrades() {
+        assertThat(rows("""
+                SELECT course_id, grade_sum, grade_count, student_count
+                FROM course_stats
+                WHERE grade_sum <> 0 OR grade_count <> 0 OR student_count <> 0
+                """, 1)).isEqualTo(rows("""
+                SELECT course_id, SUM(grade), COUNT(*), COUNT(DISTINCT student_id)
+                FROM grades
+                GROUP BY course_id
+                """, 1));
+        assertThat(rows("""
+                SELECT course_id, student_id, grade_sum, grade_count
+                FROM student_course_stats
+                """, 2)).isEqualTo(rows("""
+                SELECT course_id, student_id, SUM(grade), COUNT(*)
+                FROM grades
+                GROUP BY course_id, student_id
+                """, 2));
+    }
+
+    // the first keyColumns columns of each row -> the remaining ones
+    private Map<List<Long>, List<Long>> rows(String sql, int keyColumns) {
+        Map<List<Long>, List<Long>> rows = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            int columns = rs.getMetaData().getColumnCount();
+            Long[] values = new Long[columns];
+            for (int i = 0; i < columns; i++) {
+                values[i] = rs.getLong(i + 1);
+            }
+            rows.put(List.of(values).subList(0, keyColumns), List.of(values).subList(keyColumns, columns));
+        });
+        return rows;
+    }
+
+    private List<Long> courseStats(long courseId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT grade_sum, grade_count, student_count FROM course_stats WHERE course_id = ?",
+                (rs, rowNum) -> List.of(rs.getLong(1), rs.getLong(2), rs.getLong(3)), courseId);
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}